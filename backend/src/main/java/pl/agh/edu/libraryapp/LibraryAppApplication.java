@@ -2,10 +2,8 @@ package pl.agh.edu.libraryapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableScheduling
 public class LibraryAppApplication {
 
 	public static void main(String[] args) {
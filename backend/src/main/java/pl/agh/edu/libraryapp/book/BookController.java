@@ -7,6 +7,7 @@ import pl.agh.edu.libraryapp.bookItem.BookItem;
 import pl.agh.edu.libraryapp.bookItem.BookItemService;
 import pl.agh.edu.libraryapp.book.services.BookService;
 import pl.agh.edu.libraryapp.review.ReviewService;
+import pl.agh.edu.libraryapp.review.ReviewSummary;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -94,8 +95,9 @@ public class BookController {
         dto.setAuthor(book.getAuthor());
         dto.setCount(book.getCount());
         dto.setCategories(book.getCategories());
-        dto.setAverageRating(reviewService.getAverageRating(book.getId()));
-        dto.setReviewCount(reviewService.getReviewCount(book.getId()));
+        ReviewSummary summary = reviewService.getSummary(book.getId());
+        dto.setAverageRating(summary.averageRating());
+        dto.setReviewCount(summary.reviewCount());
         return dto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.book;
+
+import java.util.Set;
+
+public record BookCreatedEvent(Long bookId, String title, String author, Set<Long> categoryIds) {
+}
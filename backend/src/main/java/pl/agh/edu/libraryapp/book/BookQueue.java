@@ -9,7 +9,8 @@ import pl.agh.edu.libraryapp.user.User;
 @Table(name="book_queue")
 public class BookQueue {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_queue_seq")
+    @SequenceGenerator(name = "book_queue_seq", sequenceName = "book_queue_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
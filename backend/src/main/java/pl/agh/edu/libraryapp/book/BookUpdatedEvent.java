@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.book;
+
+import java.util.Set;
+
+public record BookUpdatedEvent(Long bookId, Set<Long> categoryIds) {
+}
@@ -1,21 +1,31 @@
 package pl.agh.edu.libraryapp.book;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import pl.agh.edu.libraryapp.book.Category;
+import pl.agh.edu.libraryapp.book.index.CategoryBookIndex;
+import pl.agh.edu.libraryapp.book.index.RoaringBitmap;
 import pl.agh.edu.libraryapp.book.repositories.CategoryRepository;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/category")
 public class CategoryController {
     private final CategoryRepository categoryRepository;
+    private final CategoryBookIndex categoryBookIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryController(CategoryRepository categoryRepository) {
+    public CategoryController(CategoryRepository categoryRepository, CategoryBookIndex categoryBookIndex,
+                              ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
+        this.categoryBookIndex = categoryBookIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
@@ -23,6 +33,20 @@ public class CategoryController {
         return ResponseEntity.ok(categoryRepository.findAll());
     }
 
+    // Liczba książek w każdej kategorii wśród książek należących do wszystkich wybranych kategorii
+    @GetMapping("/facets")
+    public ResponseEntity<CategoryFacets> getFacets(@RequestParam(required = false) List<Long> selected) {
+        RoaringBitmap matching = categoryBookIndex.booksInAll(selected != null ? selected : List.of());
+        Map<Long, Integer> counts = categoryBookIndex.facetCounts(matching);
+        List<CategoryFacet> facets = categoryRepository.findAll().stream()
+                .map(category -> new CategoryFacet(category.getId(), category.getName(),
+                        counts.getOrDefault(category.getId(), 0)))
+                .sorted(Comparator.comparingLong(CategoryFacet::bookCount).reversed()
+                        .thenComparing(CategoryFacet::name))
+                .toList();
+        return ResponseEntity.ok(new CategoryFacets(matching.cardinality(), facets));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Category> getCategory(@PathVariable Long id) {
         Optional<Category> category = categoryRepository.findById(id);
@@ -80,6 +104,7 @@ public class CategoryController {
             }
 
             categoryRepository.deleteById(id);
+            eventPublisher.publishEvent(new CategoryDeletedEvent(id));
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Nie można usunąć kategorii: " + e.getMessage());
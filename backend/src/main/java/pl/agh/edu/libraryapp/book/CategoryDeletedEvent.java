@@ -0,0 +1,4 @@
+package pl.agh.edu.libraryapp.book;
+
+public record CategoryDeletedEvent(Long categoryId) {
+}
@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.book;
+
+import java.util.List;
+
+public record CategoryFacets(long matchingBooks, List<CategoryFacet> facets) {
+}
@@ -0,0 +1,170 @@
+package pl.agh.edu.libraryapp.book.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.book.BookCreatedEvent;
+import pl.agh.edu.libraryapp.book.BookDeletedEvent;
+import pl.agh.edu.libraryapp.book.BookUpdatedEvent;
+import pl.agh.edu.libraryapp.book.CategoryDeletedEvent;
+import pl.agh.edu.libraryapp.book.repositories.BookRepository;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Indeks kategoria -> bitmapa id książek (i odwrotny), utrzymywany w pamięci przy zapisach BookService i CategoryController
+@Component
+@Slf4j
+public class CategoryBookIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final BookRepository bookRepository;
+
+    // Czytelnicy widzą zawsze spójną, niezmienną mapę i niezmienne bitmapy; zapisy podmieniają je w całości
+    private volatile Map<Long, RoaringBitmap> booksByCategory = Map.of();
+    private volatile RoaringBitmap allBooks = RoaringBitmap.EMPTY;
+    private final Map<Long, long[]> categoriesByBook = new ConcurrentHashMap<>();
+
+    public CategoryBookIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    public RoaringBitmap booksIn(long categoryId) {
+        return booksByCategory.getOrDefault(categoryId, RoaringBitmap.EMPTY);
+    }
+
+    public long[] categoriesOf(long bookId) {
+        return categoriesByBook.getOrDefault(bookId, EMPTY);
+    }
+
+    public RoaringBitmap allBooks() {
+        return allBooks;
+    }
+
+    // Książki należące do wszystkich podanych kategorii; pusty wybór oznacza cały katalog
+    public RoaringBitmap booksInAll(Collection<Long> categoryIds) {
+        RoaringBitmap result = allBooks;
+        for (Long categoryId : categoryIds) {
+            result = result.and(booksIn(categoryId));
+        }
+        return result;
+    }
+
+    // Liczba książek z wybranego zbioru w każdej kategorii - przecięcia bitmap bez materializacji wyniku
+    public Map<Long, Integer> facetCounts(RoaringBitmap selection) {
+        Map<Long, Integer> counts = new HashMap<>();
+        booksByCategory.forEach((categoryId, books) -> {
+            int count = selection == allBooks ? books.cardinality() : books.andCardinality(selection);
+            if (count > 0) {
+                counts.put(categoryId, count);
+            }
+        });
+        return counts;
+    }
+
+    // Waga kategorii odwrotna do jej rozmiaru: wspólna niszowa kategoria mówi więcej niż wspólna "Powieść"
+    public double categoryWeight(long categoryId) {
+        int size = booksIn(categoryId).cardinality();
+        return size == 0 ? 0.0 : Math.log(1.0 + (double) allBooks.cardinality() / size);
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public synchronized void rebuild() {
+        Map<Long, List<Long>> books = new HashMap<>();
+        Map<Long, List<Long>> categories = new HashMap<>();
+        for (Object[] row : bookRepository.findAllCategoryBookPairs()) {
+            Long categoryId = (Long) row[0];
+            Long bookId = (Long) row[1];
+            books.computeIfAbsent(categoryId, _ -> new ArrayList<>()).add(bookId);
+            categories.computeIfAbsent(bookId, _ -> new ArrayList<>()).add(categoryId);
+        }
+
+        Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+        books.forEach((categoryId, ids) -> byCategory.put(categoryId, RoaringBitmap.of(sorted(ids))));
+        categoriesByBook.clear();
+        categories.forEach((bookId, ids) -> categoriesByBook.put(bookId, sorted(ids)));
+        allBooks = RoaringBitmap.of(sorted(bookRepository.findAllIds()));
+        booksByCategory = Map.copyOf(byCategory);
+        log.info("Category index rebuilt: {} categories, {} books", byCategory.size(), allBooks.cardinality());
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookCreated(BookCreatedEvent event) {
+        allBooks = allBooks.with(event.bookId());
+        setCategories(event.bookId(), event.categoryIds());
+    }
+
+    @TransactionalEventListener
+    public void onBookUpdated(BookUpdatedEvent event) {
+        setCategories(event.bookId(), event.categoryIds());
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookDeleted(BookDeletedEvent event) {
+        allBooks = allBooks.without(event.bookId());
+        setCategories(event.bookId(), Set.of());
+    }
+
+    // CategoryController zapisuje bez własnej transakcji, więc zdarzenie trzeba obsłużyć także poza nią
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryDeleted(CategoryDeletedEvent event) {
+        RoaringBitmap books = booksIn(event.categoryId());
+        if (books.isEmpty()) {
+            return;
+        }
+        Map<Long, RoaringBitmap> byCategory = new HashMap<>(booksByCategory);
+        byCategory.remove(event.categoryId());
+        booksByCategory = Map.copyOf(byCategory);
+        books.forEach(bookId -> {
+            long[] remaining = Arrays.stream(categoriesOf(bookId))
+                    .filter(categoryId -> categoryId != event.categoryId())
+                    .toArray();
+            if (remaining.length == 0) {
+                categoriesByBook.remove(bookId);
+            } else {
+                categoriesByBook.put(bookId, remaining);
+            }
+        });
+    }
+
+    // Zdarzenia niosą pełny stan kategorii książki, więc ponowne zastosowanie niczego nie psuje
+    synchronized void setCategories(long bookId, Collection<Long> categoryIds) {
+        long[] previous = categoriesOf(bookId);
+        long[] current = sorted(categoryIds);
+        if (Arrays.equals(previous, current)) {
+            return;
+        }
+
+        Map<Long, RoaringBitmap> byCategory = new HashMap<>(booksByCategory);
+        for (long categoryId : previous) {
+            if (Arrays.binarySearch(current, categoryId) < 0) {
+                RoaringBitmap remaining = byCategory.getOrDefault(categoryId, RoaringBitmap.EMPTY).without(bookId);
+                if (remaining.isEmpty()) {
+                    byCategory.remove(categoryId);
+                } else {
+                    byCategory.put(categoryId, remaining);
+                }
+            }
+        }
+        for (long categoryId : current) {
+            if (Arrays.binarySearch(previous, categoryId) < 0) {
+                byCategory.put(categoryId, byCategory.getOrDefault(categoryId, RoaringBitmap.EMPTY).with(bookId));
+            }
+        }
+
+        booksByCategory = Map.copyOf(byCategory);
+        if (current.length == 0) {
+            categoriesByBook.remove(bookId);
+        } else {
+            categoriesByBook.put(bookId, current);
+        }
+    }
+
+    private static long[] sorted(Collection<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+    }
+}
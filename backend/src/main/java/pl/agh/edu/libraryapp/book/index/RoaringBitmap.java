@@ -0,0 +1,483 @@
+package pl.agh.edu.libraryapp.book.index;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Skompresowany zbiór id w stylu Roaring: starsze 16 bitów wybiera kontener, młodsze trafiają do
+// posortowanej tablicy (do 4096 elementów) albo do bitmapy 2^16 bitów. Obiekt jest niezmienny -
+// with/without zwracają nową bitmapę, współdzieląc nietknięte kontenery, więc odczyty nie potrzebują blokad.
+public final class RoaringBitmap {
+
+    public static final RoaringBitmap EMPTY = new RoaringBitmap(new char[0], new Container[0], 0);
+
+    static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+    private static final long MAX_VALUE = 0xFFFF_FFFFL;
+
+    private final char[] keys;
+    private final Container[] containers;
+    private final int cardinality;
+
+    private RoaringBitmap(char[] keys, Container[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public static RoaringBitmap of(long[] ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        check(sorted[0]);
+        check(sorted[sorted.length - 1]);
+
+        char[] keys = new char[sorted.length];
+        Container[] containers = new Container[sorted.length];
+        int count = 0;
+        int total = 0;
+        int i = 0;
+        while (i < sorted.length) {
+            char key = high(sorted[i]);
+            char[] values = new char[Math.min(sorted.length - i, 1 << 16)];
+            int size = 0;
+            while (i < sorted.length && high(sorted[i]) == key) {
+                char low = low(sorted[i++]);
+                if (size == 0 || values[size - 1] != low) {
+                    values[size++] = low;
+                }
+            }
+            keys[count] = key;
+            containers[count++] = size > ARRAY_MAX
+                    ? BitmapContainer.of(values, size)
+                    : new ArrayContainer(Arrays.copyOf(values, size));
+            total += size;
+        }
+        return new RoaringBitmap(Arrays.copyOf(keys, count), Arrays.copyOf(containers, count), total);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(long id) {
+        if (id < 0 || id > MAX_VALUE) {
+            return false;
+        }
+        int position = Arrays.binarySearch(keys, high(id));
+        return position >= 0 && containers[position].contains(low(id));
+    }
+
+    public RoaringBitmap with(long id) {
+        check(id);
+        char key = high(id);
+        char low = low(id);
+        int position = Arrays.binarySearch(keys, key);
+        if (position >= 0) {
+            Container container = containers[position];
+            if (container.contains(low)) {
+                return this;
+            }
+            Container[] copy = containers.clone();
+            copy[position] = container.add(low);
+            return new RoaringBitmap(keys, copy, cardinality + 1);
+        }
+
+        position = -position - 1;
+        char[] newKeys = new char[keys.length + 1];
+        Container[] newContainers = new Container[containers.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, position);
+        System.arraycopy(containers, 0, newContainers, 0, position);
+        newKeys[position] = key;
+        newContainers[position] = new ArrayContainer(new char[]{low});
+        System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+        System.arraycopy(containers, position, newContainers, position + 1, containers.length - position);
+        return new RoaringBitmap(newKeys, newContainers, cardinality + 1);
+    }
+
+    public RoaringBitmap without(long id) {
+        if (!contains(id)) {
+            return this;
+        }
+        int position = Arrays.binarySearch(keys, high(id));
+        Container remaining = containers[position].remove(low(id));
+        if (remaining != null) {
+            Container[] copy = containers.clone();
+            copy[position] = remaining;
+            return new RoaringBitmap(keys, copy, cardinality - 1);
+        }
+
+        char[] newKeys = new char[keys.length - 1];
+        Container[] newContainers = new Container[containers.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, position);
+        System.arraycopy(containers, 0, newContainers, 0, position);
+        System.arraycopy(keys, position + 1, newKeys, position, keys.length - position - 1);
+        System.arraycopy(containers, position + 1, newContainers, position, containers.length - position - 1);
+        return new RoaringBitmap(newKeys, newContainers, cardinality - 1);
+    }
+
+    public RoaringBitmap and(RoaringBitmap other) {
+        int capacity = Math.min(keys.length, other.keys.length);
+        char[] newKeys = new char[capacity];
+        Container[] newContainers = new Container[capacity];
+        int count = 0;
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container intersection = and(containers[i++], other.containers[j++]);
+                if (intersection != null) {
+                    newKeys[count] = keys[i - 1];
+                    newContainers[count++] = intersection;
+                    total += intersection.cardinality();
+                }
+            }
+        }
+        return count == 0 ? EMPTY
+                : new RoaringBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count), total);
+    }
+
+    // Liczność przecięcia bez budowania wynikowej bitmapy (liczniki facetów)
+    public int andCardinality(RoaringBitmap other) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += andCardinality(containers[i++], other.containers[j++]);
+            }
+        }
+        return total;
+    }
+
+    public RoaringBitmap or(RoaringBitmap other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        char[] newKeys = new char[keys.length + other.keys.length];
+        Container[] newContainers = new Container[newKeys.length];
+        int count = 0;
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            Container container;
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                newKeys[count] = keys[i];
+                container = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                newKeys[count] = other.keys[j];
+                container = other.containers[j++];
+            } else {
+                newKeys[count] = keys[i];
+                container = or(containers[i++], other.containers[j++]);
+            }
+            newContainers[count++] = container;
+            total += container.cardinality();
+        }
+        return new RoaringBitmap(Arrays.copyOf(newKeys, count), Arrays.copyOf(newContainers, count), total);
+    }
+
+    // Id w kolejności rosnącej
+    public void forEach(LongConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].forEach((long) keys[i] << 16, consumer);
+        }
+    }
+
+    // Najwyżej limit najmniejszych id - kontenery za limitem nie są przechodzone
+    public long[] head(int limit) {
+        long[] result = new long[Math.clamp(limit, 0, cardinality)];
+        int[] next = {0};
+        for (int i = 0; i < keys.length && next[0] < result.length; i++) {
+            containers[i].forEach((long) keys[i] << 16, id -> {
+                if (next[0] < result.length) {
+                    result[next[0]++] = id;
+                }
+            });
+        }
+        return result;
+    }
+
+    public long[] toArray() {
+        long[] result = new long[cardinality];
+        int[] next = {0};
+        forEach(id -> result[next[0]++] = id);
+        return result;
+    }
+
+    private static void check(long id) {
+        if (id < 0 || id > MAX_VALUE) {
+            throw new IllegalArgumentException("Id out of bitmap range: " + id);
+        }
+    }
+
+    private static char high(long id) {
+        return (char) (id >>> 16);
+    }
+
+    private static char low(long id) {
+        return (char) id;
+    }
+
+    private static Container and(Container a, Container b) {
+        if (a instanceof ArrayContainer left && b instanceof ArrayContainer right) {
+            char[] result = new char[Math.min(left.values.length, right.values.length)];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.values.length && j < right.values.length) {
+                if (left.values[i] < right.values[j]) {
+                    i++;
+                } else if (left.values[i] > right.values[j]) {
+                    j++;
+                } else {
+                    result[size++] = left.values[i++];
+                    j++;
+                }
+            }
+            return size == 0 ? null : new ArrayContainer(Arrays.copyOf(result, size));
+        }
+        if (a instanceof BitmapContainer left && b instanceof BitmapContainer right) {
+            long[] words = new long[WORDS];
+            int size = 0;
+            for (int k = 0; k < WORDS; k++) {
+                words[k] = left.words[k] & right.words[k];
+                size += Long.bitCount(words[k]);
+            }
+            if (size == 0) {
+                return null;
+            }
+            return size > ARRAY_MAX ? new BitmapContainer(words, size) : BitmapContainer.toArray(words, size);
+        }
+        ArrayContainer array = a instanceof ArrayContainer first ? first : (ArrayContainer) b;
+        BitmapContainer bitmap = a instanceof BitmapContainer first ? first : (BitmapContainer) b;
+        char[] result = new char[array.values.length];
+        int size = 0;
+        for (char value : array.values) {
+            if (bitmap.contains(value)) {
+                result[size++] = value;
+            }
+        }
+        return size == 0 ? null : new ArrayContainer(Arrays.copyOf(result, size));
+    }
+
+    private static int andCardinality(Container a, Container b) {
+        if (a instanceof ArrayContainer left && b instanceof ArrayContainer right) {
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.values.length && j < right.values.length) {
+                if (left.values[i] < right.values[j]) {
+                    i++;
+                } else if (left.values[i] > right.values[j]) {
+                    j++;
+                } else {
+                    size++;
+                    i++;
+                    j++;
+                }
+            }
+            return size;
+        }
+        if (a instanceof BitmapContainer left && b instanceof BitmapContainer right) {
+            int size = 0;
+            for (int k = 0; k < WORDS; k++) {
+                size += Long.bitCount(left.words[k] & right.words[k]);
+            }
+            return size;
+        }
+        ArrayContainer array = a instanceof ArrayContainer first ? first : (ArrayContainer) b;
+        BitmapContainer bitmap = a instanceof BitmapContainer first ? first : (BitmapContainer) b;
+        int size = 0;
+        for (char value : array.values) {
+            if (bitmap.contains(value)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private static Container or(Container a, Container b) {
+        if (a instanceof ArrayContainer left && b instanceof ArrayContainer right) {
+            char[] result = new char[left.values.length + right.values.length];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.values.length || j < right.values.length) {
+                if (j == right.values.length || (i < left.values.length && left.values[i] < right.values[j])) {
+                    result[size++] = left.values[i++];
+                } else if (i == left.values.length || left.values[i] > right.values[j]) {
+                    result[size++] = right.values[j++];
+                } else {
+                    result[size++] = left.values[i++];
+                    j++;
+                }
+            }
+            return size > ARRAY_MAX ? BitmapContainer.of(result, size) : new ArrayContainer(Arrays.copyOf(result, size));
+        }
+        long[] words = new long[WORDS];
+        for (Container container : new Container[]{a, b}) {
+            if (container instanceof BitmapContainer bitmap) {
+                for (int k = 0; k < WORDS; k++) {
+                    words[k] |= bitmap.words[k];
+                }
+            } else {
+                for (char value : ((ArrayContainer) container).values) {
+                    words[value >>> 6] |= 1L << value;
+                }
+            }
+        }
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return new BitmapContainer(words, size);
+    }
+
+    private sealed interface Container permits ArrayContainer, BitmapContainer {
+        int cardinality();
+
+        boolean contains(char value);
+
+        Container add(char value);
+
+        // null, gdy kontener zostaje pusty
+        Container remove(char value);
+
+        void forEach(long base, LongConsumer consumer);
+    }
+
+    private static final class ArrayContainer implements Container {
+        private final char[] values;
+
+        ArrayContainer(char[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        @Override
+        public Container add(char value) {
+            int position = -Arrays.binarySearch(values, value) - 1;
+            if (values.length >= ARRAY_MAX) {
+                return BitmapContainer.of(values, values.length).add(value);
+            }
+            char[] result = new char[values.length + 1];
+            System.arraycopy(values, 0, result, 0, position);
+            result[position] = value;
+            System.arraycopy(values, position, result, position + 1, values.length - position);
+            return new ArrayContainer(result);
+        }
+
+        @Override
+        public Container remove(char value) {
+            if (values.length == 1) {
+                return null;
+            }
+            int position = Arrays.binarySearch(values, value);
+            char[] result = new char[values.length - 1];
+            System.arraycopy(values, 0, result, 0, position);
+            System.arraycopy(values, position + 1, result, position, values.length - position - 1);
+            return new ArrayContainer(result);
+        }
+
+        @Override
+        public void forEach(long base, LongConsumer consumer) {
+            for (char value : values) {
+                consumer.accept(base | value);
+            }
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words;
+        private final int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        static BitmapContainer of(char[] values, int size) {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, size);
+        }
+
+        static ArrayContainer toArray(long[] words, int size) {
+            char[] values = new char[size];
+            int next = 0;
+            for (int k = 0; k < WORDS; k++) {
+                long word = words[k];
+                while (word != 0) {
+                    values[next++] = (char) (k * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values);
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public Container add(char value) {
+            long[] copy = words.clone();
+            copy[value >>> 6] |= 1L << value;
+            return new BitmapContainer(copy, cardinality + 1);
+        }
+
+        @Override
+        public Container remove(char value) {
+            long[] copy = words.clone();
+            copy[value >>> 6] &= ~(1L << value);
+            return cardinality - 1 > ARRAY_MAX ? new BitmapContainer(copy, cardinality - 1) : toArray(copy, cardinality - 1);
+        }
+
+        @Override
+        public void forEach(long base, LongConsumer consumer) {
+            for (int k = 0; k < WORDS; k++) {
+                long word = words[k];
+                while (word != 0) {
+                    consumer.accept(base | (k * 64L + Long.numberOfTrailingZeros(word)));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package pl.agh.edu.libraryapp.book.repositories;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pl.agh.edu.libraryapp.book.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import pl.agh.edu.libraryapp.book.Category;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,4 +18,19 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     @Query("SELECT b FROM Book b WHERE b.count > 0")
     List<Book> findAvailableBooks();
+
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.categories WHERE b.id IN :ids")
+    List<Book> findAllWithCategoriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.id, b.id FROM Book b JOIN b.categories c")
+    List<Object[]> findAllCategoryBookPairs();
+
+    @Query("SELECT b.id FROM Book b")
+    List<Long> findAllIds();
+
+    @Query("SELECT b.id, b.title FROM Book b")
+    List<Object[]> findAllIdsAndTitles();
+
+    @Query("SELECT b.id, b.title FROM Book b WHERE b.id IN :ids")
+    List<Object[]> findIdsAndTitlesByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -1,16 +1,23 @@
 package pl.agh.edu.libraryapp.book.services;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.agh.edu.libraryapp.book.Book;
+import pl.agh.edu.libraryapp.book.BookCreatedEvent;
+import pl.agh.edu.libraryapp.book.BookDeletedEvent;
+import pl.agh.edu.libraryapp.book.BookUpdatedEvent;
 import pl.agh.edu.libraryapp.book.Category;
 import pl.agh.edu.libraryapp.book.repositories.BookRepository;
 import pl.agh.edu.libraryapp.book.repositories.CategoryRepository;
 import pl.agh.edu.libraryapp.book.exceptions.BookNotFoundException;
+import pl.agh.edu.libraryapp.bookQueue.BookQueueRepository;
+import pl.agh.edu.libraryapp.bookQueue.QueueEntryEvent;
 
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -18,16 +25,24 @@ public class BookService {
 
     private final BookRepository bookRepository;
     private final CategoryRepository categoryRepository;
+    private final BookQueueRepository bookQueueRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BookService(BookRepository bookRepository, CategoryRepository categoryRepository) {
+    public BookService(BookRepository bookRepository, CategoryRepository categoryRepository,
+                       BookQueueRepository bookQueueRepository, ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
         this.categoryRepository = categoryRepository;
+        this.bookQueueRepository = bookQueueRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public Book createBook(Book book) {
         mapCategories(book);
         if (book.getCount() == null) book.setCount(0);
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        eventPublisher.publishEvent(new BookCreatedEvent(saved.getId(), saved.getTitle(), saved.getAuthor(),
+                categoryIds(saved)));
+        return saved;
     }
 
     public Book updateBook(Long id, Book bookDetails) {
@@ -57,7 +72,16 @@ public class BookService {
             }
         }
 
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        eventPublisher.publishEvent(new BookUpdatedEvent(saved.getId(), categoryIds(saved)));
+        return saved;
+    }
+
+    private Set<Long> categoryIds(Book book) {
+        if (book.getCategories() == null) {
+            return Set.of();
+        }
+        return book.getCategories().stream().map(Category::getId).collect(Collectors.toSet());
     }
 
     private void mapCategories(Book book) {
@@ -77,8 +101,14 @@ public class BookService {
         return bookRepository.findAll();
     }
 
+    // Wpisy kolejki znikają kaskadowo z książką - bez ABANDONED w dzienniku wyglądałyby na wiecznie oczekujące
     public void deleteBook(Long id) {
+        for (Object[] entry : bookQueueRepository.findActiveEntryIdsByBookId(id)) {
+            eventPublisher.publishEvent(new QueueEntryEvent((Long) entry[0], (Long) entry[1], id,
+                    QueueEntryEvent.Kind.ABANDONED));
+        }
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(new BookDeletedEvent(id));
     }
 
     public void incrementBookCount(Long bookId) {
@@ -35,13 +35,13 @@ public class BookQueueController {
 
     @GetMapping("/book/{bookId}/has-queue")
     public ResponseEntity<Boolean> hasQueue(@PathVariable Long bookId) {
-        boolean hasQueue = !bookQueueService.getQueueByBook(bookId).isEmpty();
+        boolean hasQueue = !bookQueueService.getQueueState(bookId).isEmpty();
         return ResponseEntity.ok(hasQueue);
     }
 
     @GetMapping("/book/{bookId}/is-reserved")
     public ResponseEntity<Boolean> isReserved(@PathVariable Long bookId) {
-        boolean isReserved = bookQueueService.isBookReservedForUser(bookId);
+        boolean isReserved = bookQueueService.getQueueState(bookId).isReservedForHead();
         return ResponseEntity.ok(isReserved);
     }
 
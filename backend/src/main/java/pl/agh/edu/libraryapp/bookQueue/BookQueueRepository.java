@@ -1,5 +1,8 @@
 package pl.agh.edu.libraryapp.bookQueue;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pl.agh.edu.libraryapp.book.Book;
 import pl.agh.edu.libraryapp.book.BookQueue;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,4 +18,20 @@ public interface BookQueueRepository extends JpaRepository<BookQueue, Long> {
     List<BookQueue> findByBookAndStatusOrderByIdAsc(Book book, String status);
     boolean existsByUserAndBookAndStatus(User user, Book book, String status);
     boolean existsByBookAndStatus(Book book, String status);
+
+    @Query("SELECT q.user.id, q.status FROM BookQueue q WHERE q.book.id = :bookId AND q.status IN ('WAITING', 'NOTIFIED') ORDER BY q.id ASC")
+    List<Object[]> findActiveEntriesByBookId(@Param("bookId") Long bookId);
+
+    @Query("SELECT q.id, q.user.id FROM BookQueue q WHERE q.book.id = :bookId AND q.status IN ('WAITING', 'NOTIFIED')")
+    List<Object[]> findActiveEntryIdsByBookId(@Param("bookId") Long bookId);
+
+    @Query("SELECT q.book.id, COUNT(q) FROM BookQueue q WHERE q.status IN ('WAITING', 'NOTIFIED') GROUP BY q.book.id")
+    List<Object[]> countActiveEntriesPerBook();
+
+    @Query("SELECT q.id FROM BookQueue q WHERE q.user.id = :userId AND q.book.id = :bookId")
+    List<Long> findIdsByUserIdAndBookId(@Param("userId") Long userId, @Param("bookId") Long bookId);
+
+    @Modifying
+    @Query("DELETE FROM BookQueue q WHERE q.user.id = :userId AND q.book.id = :bookId")
+    int deleteByUserIdAndBookId(@Param("userId") Long userId, @Param("bookId") Long bookId);
 }
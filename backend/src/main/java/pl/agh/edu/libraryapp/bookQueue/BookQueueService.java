@@ -1,5 +1,6 @@
 package pl.agh.edu.libraryapp.bookQueue;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.agh.edu.libraryapp.book.Book;
@@ -19,13 +20,18 @@ public class BookQueueService {
     private final BookService bookService;
     private final UserRepository userRepository;
     private final NotificationService  notificationService;
+    private final QueueStateCache queueStateCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public BookQueueService(BookQueueRepository bookQueueRepository, BookService bookService,
-                        UserRepository userRepository,  NotificationService notificationService) {
+                        UserRepository userRepository,  NotificationService notificationService,
+                        QueueStateCache queueStateCache, ApplicationEventPublisher eventPublisher) {
         this.bookQueueRepository = bookQueueRepository;
         this.bookService = bookService;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
+        this.queueStateCache = queueStateCache;
+        this.eventPublisher = eventPublisher;
     }
 
     public BookQueue addToQueue(Long userId, Long bookId) {
@@ -43,12 +49,22 @@ public class BookQueueService {
         queue.setBook(book);
         queue.setStatus("WAITING");
 
-        return bookQueueRepository.save(queue);
+        BookQueue saved = bookQueueRepository.save(queue);
+        queueStateCache.invalidate(bookId);
+        eventPublisher.publishEvent(new QueueEntryEvent(saved.getId(), userId, bookId, QueueEntryEvent.Kind.ENQUEUED));
+        return saved;
     }
 
     public void removeFromQueue(Long queueId) {
         BookQueue queue = getQueueById(queueId);
         bookQueueRepository.delete(queue);
+        queueStateCache.invalidate(queue.getBook().getId());
+        eventPublisher.publishEvent(new QueueEntryEvent(queue.getId(), queue.getUser().getId(), queue.getBook().getId(),
+                QueueEntryEvent.Kind.ABANDONED));
+    }
+
+    public QueueState getQueueState(Long bookId) {
+        return queueStateCache.get(bookId);
     }
 
     public BookQueue getQueueById(Long id) {
@@ -110,6 +126,9 @@ public class BookQueueService {
         // Zmień status na NOTIFIED ale nie usuwaj z kolejki
         nextInLine.setStatus("NOTIFIED");
         bookQueueRepository.save(nextInLine);
+        queueStateCache.invalidate(bookId);
+        eventPublisher.publishEvent(new QueueEntryEvent(nextInLine.getId(), nextInLine.getUser().getId(), bookId,
+                QueueEntryEvent.Kind.NOTIFIED));
         
         // Wyślij powiadomienie
         notificationService.addBookAvailableNotification(
@@ -120,27 +139,26 @@ public class BookQueueService {
 
     @Transactional
     public void removeUserFromNotifiedQueue(Long userId, Long bookId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Book book = bookService.getBookById(bookId);
-        
-        // Znajdź i usuń wpis z kolejki dla tego użytkownika i książki
-        List<BookQueue> userQueues = bookQueueRepository.findByUserAndBook(user, book);
-        if (!userQueues.isEmpty()) {
-            bookQueueRepository.deleteAll(userQueues);
+        removeUserFromNotifiedQueue(userId, getQueueState(bookId));
+    }
+
+    @Transactional
+    public void removeUserFromNotifiedQueue(Long userId, QueueState state) {
+        // Wypożyczyć może tylko pierwszy w kolejce, więc przy innym stanie nie ma czego usuwać
+        if (!state.isHead(userId)) {
+            return;
+        }
+
+        List<Long> entryIds = bookQueueRepository.findIdsByUserIdAndBookId(userId, state.bookId());
+        bookQueueRepository.deleteByUserIdAndBookId(userId, state.bookId());
+        queueStateCache.invalidate(state.bookId());
+        for (Long entryId : entryIds) {
+            eventPublisher.publishEvent(new QueueEntryEvent(entryId, userId, state.bookId(), QueueEntryEvent.Kind.FULFILLED));
         }
     }
 
     public boolean canUserBorrowBook(Long userId, Long bookId) {
-        List<BookQueue> queue = getQueueByBook(bookId);
-        
-        if (queue.isEmpty()) {
-            return true;
-        }
-        
-        // Jeśli jest kolejka, tylko pierwszy może wypożyczyć
-        BookQueue firstInQueue = queue.get(0);
-        return firstInQueue.getUser().getId().equals(userId);
+        return getQueueState(bookId).canBorrow(userId);
     }
 
     @Transactional
@@ -152,21 +170,18 @@ public class BookQueueService {
         List<BookQueue> userQueues = bookQueueRepository.findByUserAndBook(user, book);
         if (!userQueues.isEmpty()) {
             bookQueueRepository.deleteAll(userQueues);
+            queueStateCache.invalidate(bookId);
+            for (BookQueue entry : userQueues) {
+                eventPublisher.publishEvent(new QueueEntryEvent(entry.getId(), userId, bookId, QueueEntryEvent.Kind.ABANDONED));
+            }
         }
     }
 
     public boolean isBookReservedForUser(Long bookId) {
-        List<BookQueue> queue = getQueueByBook(bookId);
-        
-        if (queue.isEmpty()) {
-            return false;
-        }
-        
-        BookQueue firstInQueue = queue.get(0);
-        return "NOTIFIED".equals(firstInQueue.getStatus());
+        return getQueueState(bookId).isReservedForHead();
     }
 
     public boolean isQueueEmpty(Book book) {
-        return !bookQueueRepository.existsByBookAndStatus(book, "WAITING");
+        return !getQueueState(book.getId()).hasWaiting();
     }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package pl.agh.edu.libraryapp.bookQueue;
+
+public record QueueEntryEvent(Long entryId, Long userId, Long bookId, Kind kind) {
+
+    // NOTIFIED - egzemplarz czeka na pierwszego w kolejce, FULFILLED - wypożyczył go,
+    // ABANDONED - wpis usunięty bez wypożyczenia
+    public enum Kind { ENQUEUED, NOTIFIED, FULFILLED, ABANDONED }
+}
@@ -0,0 +1,55 @@
+package pl.agh.edu.libraryapp.bookQueue;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Dziennik kolejek tylko do dopisywania - przeżywa usunięcie wpisu z book_queue.
+// waitSeconds: od zapisu do kolejki, holdSeconds: od powiadomienia (null, gdy nie było lub wpis sprzed dziennika).
+@Entity
+@Table(name = "queue_event", indexes = {
+        @Index(name = "idx_queue_event_entry", columnList = "entry_id"),
+        @Index(name = "idx_queue_event_occurred_at", columnList = "occurred_at")
+})
+@Getter
+@NoArgsConstructor
+public class QueueEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "queue_event_seq")
+    @SequenceGenerator(name = "queue_event_seq", sequenceName = "queue_event_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "entry_id")
+    private Long entryId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private QueueEntryEvent.Kind kind;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    private Long waitSeconds;
+
+    private Long holdSeconds;
+
+    public QueueEvent(Long entryId, Long userId, Long bookId, QueueEntryEvent.Kind kind, LocalDateTime occurredAt,
+                      Long waitSeconds, Long holdSeconds) {
+        this.entryId = entryId;
+        this.userId = userId;
+        this.bookId = bookId;
+        this.kind = kind;
+        this.occurredAt = occurredAt;
+        this.waitSeconds = waitSeconds;
+        this.holdSeconds = holdSeconds;
+    }
+}
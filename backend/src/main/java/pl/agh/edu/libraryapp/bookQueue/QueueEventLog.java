@@ -0,0 +1,45 @@
+package pl.agh.edu.libraryapp.bookQueue;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Synchronicznie w transakcji zmiany kolejki - wpis do dziennika zatwierdza się albo wycofuje razem z nią
+@Component
+public class QueueEventLog {
+
+    private final QueueEventRepository queueEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public QueueEventLog(QueueEventRepository queueEventRepository, ApplicationEventPublisher eventPublisher) {
+        this.queueEventRepository = queueEventRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener
+    public void onQueueEntry(QueueEntryEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime enqueuedAt = null;
+        LocalDateTime notifiedAt = null;
+        if (event.entryId() != null && event.kind() != QueueEntryEvent.Kind.ENQUEUED) {
+            for (QueueEvent previous : queueEventRepository.findByEntryIdOrderByIdAsc(event.entryId())) {
+                switch (previous.getKind()) {
+                    case ENQUEUED -> enqueuedAt = previous.getOccurredAt();
+                    case NOTIFIED -> notifiedAt = previous.getOccurredAt();
+                    default -> { }
+                }
+            }
+        }
+        Long waitSeconds = enqueuedAt == null ? null : Duration.between(enqueuedAt, now).toSeconds();
+        Long holdSeconds = notifiedAt == null || event.kind() == QueueEntryEvent.Kind.NOTIFIED
+                ? null : Duration.between(notifiedAt, now).toSeconds();
+
+        QueueEvent saved = queueEventRepository.save(new QueueEvent(event.entryId(), event.userId(), event.bookId(),
+                event.kind(), now, waitSeconds, holdSeconds));
+        eventPublisher.publishEvent(new QueueWaitEvent(saved.getId(), event.bookId(), event.kind(), waitSeconds,
+                holdSeconds));
+    }
+}
@@ -0,0 +1,16 @@
+package pl.agh.edu.libraryapp.bookQueue;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface QueueEventRepository extends JpaRepository<QueueEvent, Long> {
+
+    List<QueueEvent> findByEntryIdOrderByIdAsc(Long entryId);
+
+    @Query("SELECT e.id, e.bookId, e.kind, e.waitSeconds, e.holdSeconds FROM QueueEvent e WHERE e.occurredAt >= :since")
+    List<Object[]> findWaitsSince(@Param("since") LocalDateTime since);
+}
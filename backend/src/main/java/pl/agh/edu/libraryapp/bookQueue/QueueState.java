@@ -0,0 +1,29 @@
+package pl.agh.edu.libraryapp.bookQueue;
+
+public record QueueState(Long bookId, Long headUserId, String headStatus, int waitingCount, long version) {
+
+    public static QueueState empty(Long bookId, long version) {
+        return new QueueState(bookId, null, null, 0, version);
+    }
+
+    public boolean isEmpty() {
+        return headUserId == null;
+    }
+
+    public boolean isHead(Long userId) {
+        return headUserId != null && headUserId.equals(userId);
+    }
+
+    // Jeśli jest kolejka, tylko pierwszy może wypożyczyć
+    public boolean canBorrow(Long userId) {
+        return isEmpty() || isHead(userId);
+    }
+
+    public boolean isReservedForHead() {
+        return "NOTIFIED".equals(headStatus);
+    }
+
+    public boolean hasWaiting() {
+        return waitingCount > 0;
+    }
+}
@@ -0,0 +1,67 @@
+package pl.agh.edu.libraryapp.bookQueue;
+
+import org.springframework.stereotype.Component;
+import pl.agh.edu.libraryapp.config.TransactionCallbacks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class QueueStateCache {
+
+    private final BookQueueRepository bookQueueRepository;
+    private final Map<Long, QueueState> states = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    public QueueStateCache(BookQueueRepository bookQueueRepository) {
+        this.bookQueueRepository = bookQueueRepository;
+    }
+
+    public QueueState get(Long bookId) {
+        QueueState cached = states.get(bookId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = versions.getOrDefault(bookId, 0L);
+        QueueState loaded = load(bookId, version);
+
+        // Wpis z kolejki mógł się zmienić w trakcie ładowania - wtedy nie cache'ujemy starego stanu
+        if (versions.getOrDefault(bookId, 0L) == version) {
+            states.put(bookId, loaded);
+            if (versions.getOrDefault(bookId, 0L) != version) {
+                states.remove(bookId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long bookId) {
+        evict(bookId);
+        // Drugie usunięcie po zakończeniu transakcji, żeby nie zostawić stanu odczytanego przed commitem
+        TransactionCallbacks.afterCompletion(() -> evict(bookId));
+    }
+
+    private void evict(Long bookId) {
+        versions.merge(bookId, 1L, Long::sum);
+        states.remove(bookId);
+    }
+
+    private QueueState load(Long bookId, long version) {
+        List<Object[]> entries = bookQueueRepository.findActiveEntriesByBookId(bookId);
+        if (entries.isEmpty()) {
+            return QueueState.empty(bookId, version);
+        }
+
+        int waiting = 0;
+        for (Object[] entry : entries) {
+            if ("WAITING".equals(entry[1])) {
+                waiting++;
+            }
+        }
+
+        Object[] head = entries.get(0);
+        return new QueueState(bookId, (Long) head[0], (String) head[1], waiting, version);
+    }
+}
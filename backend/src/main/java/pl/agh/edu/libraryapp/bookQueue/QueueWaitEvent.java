@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.bookQueue;
+
+// Wpis dziennika kolejek z policzonymi czasami - publikowany w tej samej transakcji co zapis do queue_event;
+// eventId to id wiersza queue_event, żeby przebudowa z dziennika nie policzyła zdarzenia drugi raz
+public record QueueWaitEvent(Long eventId, Long bookId, QueueEntryEvent.Kind kind, Long waitSeconds, Long holdSeconds) {
+}
@@ -0,0 +1,19 @@
+package pl.agh.edu.libraryapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/*
+ * Zadania w tle - harmonogram i przebudowy uruchamiane przy starcie - są wyłączone w profilu evaluation.
+ * Trening ALS, backfille i przebudowy indeksów biegłyby inaczej równolegle z pomiarem i zaburzały czasy
+ * budowy, zużycie pamięci i opóźnienia mierzone przez EvaluationRunner.
+ */
+@Configuration
+@EnableScheduling
+@Profile("!evaluation")
+public class BackgroundJobsConfig {
+
+    // Warunek dla słuchaczy ApplicationReadyEvent uruchamiających zadania startowe
+    public static final String STARTUP_JOBS_ENABLED = "!@environment.matchesProfiles('evaluation')";
+}
@@ -3,6 +3,7 @@ package pl.agh.edu.libraryapp.config;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
+import pl.agh.edu.libraryapp.review.ReviewService;
 import pl.agh.edu.libraryapp.user.Role;
 import pl.agh.edu.libraryapp.user.RoleRepository;
 import pl.agh.edu.libraryapp.user.User;
@@ -22,12 +23,14 @@ public class DataInitializer implements CommandLineRunner {
     private final BCryptPasswordEncoder passwordEncoder;
 
     private final DatabaseSeederService seederService; // 2. Dodaj pole serwisu
+    private final ReviewService reviewService;
 
-    public DataInitializer(RoleRepository roleRepository, UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, DatabaseSeederService seederService) {
+    public DataInitializer(RoleRepository roleRepository, UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, DatabaseSeederService seederService, ReviewService reviewService) {
         this.roleRepository = roleRepository;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.seederService = seederService;
+        this.reviewService = reviewService;
     }
 
     @Override
@@ -38,6 +41,9 @@ public class DataInitializer implements CommandLineRunner {
         //generacja danych
         seederService.seedManualBooks();
         seederService.seedUsersAndRentals();
+
+        // Seeder zapisuje opinie bezpośrednio przez repozytorium
+        reviewService.initMissingAggregates();
     }
 
     private void initRoles() {
@@ -0,0 +1,130 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.agh.edu.libraryapp.book.BookCreatedEvent;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class CatalogFanOutService {
+
+    static final String NEW_BOOK_TITLE = "Nowość w Twojej ulubionej kategorii";
+
+    // Powiadomienia wstawiane jednym zapytaniem - bez ładowania encji User/Rentals do pamięci. Zwykły INSERT ... SELECT
+    // (bez CTE z RETURNING, którego nie ma H2 z profilu test); odbiorców czytamy potem z wstawionych wierszy w tej samej
+    // transakcji, więc liczniki nieprzeczytanych i maile zgadzają się z tabelą, nawet gdy odbiorcy zmienią się w trakcie
+    private static final String INSERT_NOTIFICATIONS = """
+            INSERT INTO notifications (id, title, message, user_id, status, created_at)
+            SELECT %s, :title, :message, audience.user_id, 'NEW', :createdAt
+            FROM (SELECT DISTINCT r.user_id
+                  FROM rentals r
+                  JOIN book_item bi ON bi.id = r.book_item_id
+                  JOIN book_category bc ON bc.book_id = bi.book_id
+                  WHERE bc.category_id IN (:categoryIds) AND bi.book_id <> :bookId) audience
+            """;
+
+    private final NotificationRepository notificationRepository;
+    private final LibraryMailService mailService;
+    private final UnreadNotificationCounter unreadCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CatalogFanOutService(NotificationRepository notificationRepository, LibraryMailService mailService,
+                                UnreadNotificationCounter unreadCounter,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${notifications.fan-out.queue-capacity:100}") int queueCapacity) {
+        this.notificationRepository = notificationRepository;
+        this.mailService = mailService;
+        this.unreadCounter = unreadCounter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofVirtual().name("catalog-fan-out").factory());
+    }
+
+    @TransactionalEventListener
+    public void onBookCreated(BookCreatedEvent event) {
+        if (event.categoryIds().isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> fanOut(event));
+        } catch (RejectedExecutionException e) {
+            log.warn("Fan-out queue full, skipping new book notifications for book {}", event.bookId());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    // Wyjątek z zadania executora nie trafiłby do logów aplikacji - łapiemy go tutaj
+    void fanOut(BookCreatedEvent event) {
+        try {
+            notifyAudience(event);
+        } catch (RuntimeException e) {
+            log.error("New book fan-out failed for book {}", event.bookId(), e);
+        }
+    }
+
+    private void notifyAudience(BookCreatedEvent event) {
+        String message = String.format("W kategorii, z której wypożyczałeś książki, pojawiła się nowa pozycja: '%s' (autor: %s).",
+                event.title(), event.author());
+        // Znacznik paczki - obcięty do dokładności kolumny, żeby porównanie z zapisaną wartością było dokładne
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        List<Object[]> audience = transactionTemplate.execute(_ -> {
+            int inserted = entityManager.createNativeQuery(INSERT_NOTIFICATIONS.formatted(nextSequenceValue()))
+                    .setParameter("title", NEW_BOOK_TITLE)
+                    .setParameter("message", message)
+                    .setParameter("createdAt", createdAt)
+                    .setParameter("categoryIds", event.categoryIds())
+                    .setParameter("bookId", event.bookId())
+                    .executeUpdate();
+            log.info("Created {} new book notifications for book {}", inserted, event.bookId());
+            return inserted == 0 ? List.of()
+                    : notificationRepository.findBatchRecipients(NotificationStatus.NEW, createdAt, NEW_BOOK_TITLE, message);
+        });
+        if (audience == null || audience.isEmpty()) {
+            return;
+        }
+
+        for (Object[] recipient : audience) {
+            unreadCounter.add((Long) recipient[0], 1);
+        }
+        try {
+            for (Object[] recipient : audience) {
+                mailService.sendBulkMail(NEW_BOOK_TITLE, message, (String) recipient[1]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Fan-out mail for book {} interrupted", event.bookId());
+        }
+    }
+
+    // Każdy wiersz pobiera własną wartość sekwencji; przy pooled optimizerze Hibernate to tylko "zużyty" blok id
+    private String nextSequenceValue() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport()
+                .getSelectSequenceNextValString("notifications_seq");
+    }
+}
@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import java.time.LocalDateTime;
+
+public record DeadLetterMail(String to, String subject, int attempts, String error, LocalDateTime failedAt) {
+}
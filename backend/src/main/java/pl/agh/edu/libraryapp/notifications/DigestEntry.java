@@ -0,0 +1,41 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Wpis czekający na najbliższy digest - zapisywany w transakcji, która go wywołała, więc wycofanie go usuwa,
+// a restart procesu go nie gubi
+@Entity
+@Table(name = "notification_digest_entries", indexes = {
+        @Index(name = "idx_digest_entries_user", columnList = "user_id, id")
+})
+@Getter
+@NoArgsConstructor
+public class DigestEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "digest_entries_seq")
+    @SequenceGenerator(name = "digest_entries_seq", sequenceName = "digest_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(length = 2000)
+    private String message;
+
+    private LocalDateTime createdAt;
+
+    public DigestEntry(Long userId, String title, String message) {
+        this.userId = userId;
+        this.title = title;
+        this.message = message;
+        this.createdAt = LocalDateTime.now();
+    }
+}
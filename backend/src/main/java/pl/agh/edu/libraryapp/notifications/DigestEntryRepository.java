@@ -0,0 +1,17 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface DigestEntryRepository extends JpaRepository<DigestEntry, Long> {
+
+    // id, userId, email, imię, tytuł, treść - pogrupowane po użytkowniku w kolejności dodania
+    @Query("""
+            SELECT e.id, e.userId, u.email, u.firstName, e.title, e.message
+            FROM DigestEntry e JOIN User u ON u.id = e.userId
+            ORDER BY e.userId, e.id
+            """)
+    List<Object[]> findAllPending();
+}
@@ -1,31 +1,39 @@
 package pl.agh.edu.libraryapp.notifications;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import pl.agh.edu.libraryapp.config.TransactionCallbacks;
 
 @Service
 public class LibraryMailService{
 
-    private final JavaMailSender mailSender;
+    private final MailDeliveryQueue mailDeliveryQueue;
     @Value("${mail.from}")
     private String from;
-    public LibraryMailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public LibraryMailService(MailDeliveryQueue mailDeliveryQueue) {
+        this.mailDeliveryQueue = mailDeliveryQueue;
     }
 
     public void sendMail(String subject, String body, String to) {
-        SimpleMailMessage message = new SimpleMailMessage();
+        SimpleMailMessage message = buildMessage(subject, body, to);
+
+        // Wysyłka dopiero po commicie - SMTP nie blokuje transakcji ani wątku żądania
+        TransactionCallbacks.afterCommit(() -> mailDeliveryQueue.enqueue(message));
+    }
 
-        System.out.println(to);
-        System.out.println(from);
+    // Dla zadań w tle - osobna, dławiona kolejka, która nie zabiera miejsca wiadomościom interaktywnym
+    public void sendBulkMail(String subject, String body, String to) throws InterruptedException {
+        mailDeliveryQueue.enqueueBulk(buildMessage(subject, body, to));
+    }
+
+    private SimpleMailMessage buildMessage(String subject, String body, String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
 
         message.setTo(to);
         message.setSubject(subject);
         message.setText(body);
         message.setFrom(from);
-        mailSender.send(message);
+        return message;
     }
 }
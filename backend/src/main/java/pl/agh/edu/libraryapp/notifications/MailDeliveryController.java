@@ -0,0 +1,36 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/notifications/mail")
+@PreAuthorize("hasRole('ADMIN')")
+public class MailDeliveryController {
+
+    private final MailDeliveryQueue mailDeliveryQueue;
+
+    public MailDeliveryController(MailDeliveryQueue mailDeliveryQueue) {
+        this.mailDeliveryQueue = mailDeliveryQueue;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<MailDeliveryStats> getStats() {
+        return ResponseEntity.ok(mailDeliveryQueue.getStats());
+    }
+
+    @GetMapping("/dead-letters")
+    public ResponseEntity<List<DeadLetterMail>> getDeadLetters() {
+        return ResponseEntity.ok(mailDeliveryQueue.getDeadLetters());
+    }
+
+    @DeleteMapping("/dead-letters")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void clearDeadLetters() {
+        mailDeliveryQueue.clearDeadLetters();
+    }
+}
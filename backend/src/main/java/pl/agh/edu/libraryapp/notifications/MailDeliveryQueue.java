@@ -0,0 +1,303 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+@Slf4j
+public class MailDeliveryQueue {
+
+    private final JavaMailSender mailSender;
+    private final BlockingQueue<MailEnvelope> queue;
+    private final BlockingQueue<MailEnvelope> bulkQueue;
+    private final Semaphore bulkWorkers;
+    private final Deque<DeadLetterMail> deadLetters = new ConcurrentLinkedDeque<>();
+
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long offerTimeoutMillis;
+    private final int deadLetterCapacity;
+    private final long bulkNanosPerMessage;
+    private final AtomicLong nextBulkSlotNanos = new AtomicLong(System.nanoTime());
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchSendNanos = new LongAdder();
+    private final LongAdder deliveryNanos = new LongAdder();
+    private final LatencyHistogram deliveryLatencyMicros = new LatencyHistogram();
+    private final AtomicLong maxBatchSendNanos = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Wiadomości czekające w retryScheduler - przy zatrzymaniu trafiają do martwych listów zamiast przepaść
+    private final Map<Long, MailEnvelope> scheduledRetries = new ConcurrentHashMap<>();
+    private final AtomicLong retrySequence = new AtomicLong();
+
+    private ExecutorService workerPool;
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean running;
+
+    public MailDeliveryQueue(JavaMailSender mailSender,
+                             @Value("${mail.delivery.queue-capacity:10000}") int queueCapacity,
+                             @Value("${mail.delivery.workers:4}") int workers,
+                             @Value("${mail.delivery.batch-size:50}") int batchSize,
+                             @Value("${mail.delivery.max-attempts:5}") int maxAttempts,
+                             @Value("${mail.delivery.initial-backoff-ms:1000}") long initialBackoffMillis,
+                             @Value("${mail.delivery.max-backoff-ms:300000}") long maxBackoffMillis,
+                             @Value("${mail.delivery.offer-timeout-ms:100}") long offerTimeoutMillis,
+                             @Value("${mail.delivery.dead-letter-capacity:1000}") int deadLetterCapacity,
+                             @Value("${mail.delivery.bulk-queue-capacity:10000}") int bulkQueueCapacity,
+                             @Value("${mail.delivery.bulk-rate-per-second:50}") int bulkRatePerSecond) {
+        this.mailSender = mailSender;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.bulkQueue = new ArrayBlockingQueue<>(bulkQueueCapacity);
+        // Co najmniej jeden worker zostaje zawsze wolny dla wiadomości transakcyjnych - przy workers=1 dochodzi
+        // drugi, inaczej jedyny worker usypiany przez limit kolejki masowej wstrzymywałby całą wysyłkę
+        int bulkCapable = Math.max(1, workers - 1);
+        this.bulkWorkers = new Semaphore(bulkCapable);
+        this.bulkNanosPerMessage = 1_000_000_000L / Math.max(1, bulkRatePerSecond);
+        this.workers = bulkCapable + 1;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.deadLetterCapacity = deadLetterCapacity;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        workerPool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mail-worker-", 0).factory());
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("mail-retry").factory());
+        for (int i = 0; i < workers; i++) {
+            workerPool.submit(this::runWorker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        int abandonedRetries = 0;
+        for (Long id : scheduledRetries.keySet()) {
+            MailEnvelope envelope = scheduledRetries.remove(id);
+            if (envelope != null) {
+                deadLetter(envelope, "Delivery stopped before retry");
+                abandonedRetries++;
+            }
+        }
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(10, TimeUnit.SECONDS)) {
+            workerPool.shutdownNow();
+        }
+        if (!queue.isEmpty() || !bulkQueue.isEmpty() || abandonedRetries > 0) {
+            log.warn("Mail delivery stopped with {} undelivered messages ({} pending retries moved to dead letters)",
+                    queue.size() + bulkQueue.size() + abandonedRetries, abandonedRetries);
+        }
+    }
+
+    public void enqueue(SimpleMailMessage message) {
+        MailEnvelope envelope = new MailEnvelope(message, false);
+        try {
+            if (queue.offer(envelope, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                enqueued.increment();
+            } else {
+                deadLetter(envelope, "Delivery queue full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deadLetter(envelope, "Interrupted while enqueuing");
+        }
+    }
+
+    // Kolejka masowa blokuje nadawcę (zadanie w tle), zamiast odrzucać wiadomości
+    public void enqueueBulk(SimpleMailMessage message) throws InterruptedException {
+        bulkQueue.put(new MailEnvelope(message, true));
+        enqueued.increment();
+    }
+
+    public MailDeliveryStats getStats() {
+        long batchCount = batches.sum();
+        long sentCount = sent.sum();
+        return new MailDeliveryStats(
+                queue.size(),
+                bulkQueue.size(),
+                inFlight.get(),
+                scheduledRetries.size(),
+                enqueued.sum(),
+                sentCount,
+                failedAttempts.sum(),
+                retried.sum(),
+                deadLettered.sum(),
+                batchCount == 0 ? 0 : batchSendNanos.sum() / 1_000_000.0 / batchCount,
+                maxBatchSendNanos.get() / 1_000_000.0,
+                sentCount == 0 ? 0 : deliveryNanos.sum() / 1_000_000.0 / sentCount,
+                deliveryLatencyMicros.percentile(0.99) / 1000.0
+        );
+    }
+
+    public List<DeadLetterMail> getDeadLetters() {
+        return List.copyOf(deadLetters);
+    }
+
+    public void clearDeadLetters() {
+        deadLetters.clear();
+    }
+
+    private void runWorker() {
+        List<MailEnvelope> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !bulkQueue.isEmpty()) {
+            try {
+                MailEnvelope first = queue.poll();
+                if (first == null && pollBulk(batch)) {
+                    continue;
+                }
+                if (first == null) {
+                    first = queue.poll(200, TimeUnit.MILLISECONDS);
+                }
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected mail delivery failure", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean pollBulk(List<MailEnvelope> batch) throws InterruptedException {
+        if (bulkQueue.isEmpty() || !bulkWorkers.tryAcquire()) {
+            return false;
+        }
+        try {
+            MailEnvelope first = bulkQueue.poll();
+            if (first == null) {
+                return false;
+            }
+            batch.add(first);
+            bulkQueue.drainTo(batch, batchSize - 1);
+            throttleBulk(batch.size());
+            deliver(batch);
+            return true;
+        } finally {
+            bulkWorkers.release();
+        }
+    }
+
+    private void throttleBulk(int messages) throws InterruptedException {
+        long now = System.nanoTime();
+        long cost = messages * bulkNanosPerMessage;
+        long previous = nextBulkSlotNanos.getAndAccumulate(cost, (slot, c) -> Math.max(slot, now) + c);
+        long wait = Math.max(previous, now) - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    // Jedno wywołanie send() otwiera jedno połączenie SMTP dla całej paczki wiadomości
+    private void deliver(List<MailEnvelope> batch) {
+        inFlight.addAndGet(batch.size());
+        long start = System.nanoTime();
+        try {
+            mailSender.send(batch.stream().map(MailEnvelope::message).toArray(SimpleMailMessage[]::new));
+            batch.forEach(this::delivered);
+        } catch (MailSendException e) {
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            for (MailEnvelope envelope : batch) {
+                Exception cause = failedMessages.get(envelope.message());
+                if (cause != null || failedMessages.isEmpty()) {
+                    failed(envelope, cause != null ? cause : e);
+                } else {
+                    delivered(envelope);
+                }
+            }
+        } catch (MailException e) {
+            batch.forEach(envelope -> failed(envelope, e));
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            batches.increment();
+            batchSendNanos.add(elapsed);
+            maxBatchSendNanos.accumulateAndGet(elapsed, Math::max);
+            inFlight.addAndGet(-batch.size());
+        }
+    }
+
+    private void delivered(MailEnvelope envelope) {
+        sent.increment();
+        long latency = System.nanoTime() - envelope.enqueuedAtNanos();
+        deliveryNanos.add(latency);
+        deliveryLatencyMicros.record(latency / 1000);
+    }
+
+    private void failed(MailEnvelope envelope, Exception cause) {
+        failedAttempts.increment();
+        if (envelope.attempt() + 1 >= maxAttempts || !running) {
+            deadLetter(envelope, cause.getMessage());
+            return;
+        }
+
+        long delay = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(envelope.attempt(), 20));
+        log.warn("Mail to {} failed (attempt {}), retrying in {} ms: {}",
+                envelope.message().getTo(), envelope.attempt() + 1, delay, cause.getMessage());
+
+        retried.increment();
+        long retryId = retrySequence.incrementAndGet();
+        scheduledRetries.put(retryId, envelope);
+        try {
+            retryScheduler.schedule(() -> {
+                // Brak wpisu - stop() już przeniósł wiadomość do martwych listów
+                if (scheduledRetries.remove(retryId) == null) {
+                    return;
+                }
+                MailEnvelope next = envelope.nextAttempt();
+                if (!(next.bulk() ? bulkQueue : queue).offer(next)) {
+                    deadLetter(next, "Delivery queue full");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            scheduledRetries.remove(retryId);
+            deadLetter(envelope, cause.getMessage());
+        }
+    }
+
+    private void deadLetter(MailEnvelope envelope, String error) {
+        SimpleMailMessage message = envelope.message();
+        String to = message.getTo() != null ? String.join(",", message.getTo()) : null;
+        deadLetters.addLast(new DeadLetterMail(to, message.getSubject(), envelope.attempt() + 1, error, LocalDateTime.now()));
+        deadLettered.increment();
+        while (deadLetters.size() > deadLetterCapacity) {
+            deadLetters.pollFirst();
+        }
+        log.error("Mail to {} moved to dead letters: {}", to, error);
+    }
+}
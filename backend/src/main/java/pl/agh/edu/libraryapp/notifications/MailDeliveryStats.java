@@ -0,0 +1,17 @@
+package pl.agh.edu.libraryapp.notifications;
+
+public record MailDeliveryStats(
+        int queueDepth,
+        int bulkQueueDepth,
+        int inFlight,
+        int pendingRetries,
+        long enqueued,
+        long sent,
+        long failedAttempts,
+        long retried,
+        long deadLettered,
+        double avgBatchSendMillis,
+        double maxBatchSendMillis,
+        double avgDeliveryMillis,
+        double p99DeliveryMillis) {
+}
@@ -0,0 +1,14 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import org.springframework.mail.SimpleMailMessage;
+
+public record MailEnvelope(SimpleMailMessage message, boolean bulk, int attempt, long enqueuedAtNanos) {
+
+    public MailEnvelope(SimpleMailMessage message, boolean bulk) {
+        this(message, bulk, 0, System.nanoTime());
+    }
+
+    public MailEnvelope nextAttempt() {
+        return new MailEnvelope(message, bulk, attempt + 1, enqueuedAtNanos);
+    }
+}
@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import java.util.List;
+
+public record MarkAsReadRequest(List<Long> ids) {
+}
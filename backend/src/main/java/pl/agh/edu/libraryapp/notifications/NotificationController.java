@@ -1,6 +1,7 @@
 package pl.agh.edu.libraryapp.notifications;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -9,6 +10,7 @@ import pl.agh.edu.libraryapp.user.User;
 import pl.agh.edu.libraryapp.user.UserService;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -30,6 +32,20 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    @GetMapping("/new/count")
+    public ResponseEntity<Long> getMyUnreadCount(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(notificationService.getUnreadCount(user.getId()));
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<NotificationFeedPage> getFeed(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(notificationService.getFeed(user.getId(), before, beforeId, size));
+    }
+
     @GetMapping()
     public ResponseEntity<List<NotificationDto>> getUserNotifications(@AuthenticationPrincipal User user) {
         List<NotificationDto> notifications = notificationService.getNotifications(user.getId())
@@ -40,6 +56,13 @@ public class NotificationController {
         return new ResponseEntity<>(notifications, HttpStatus.OK);
     }
 
+    @PatchMapping("/read")
+    public ResponseEntity<Integer> setNotificationsAsRead(@AuthenticationPrincipal User user,
+                                                          @RequestBody(required = false) MarkAsReadRequest request) {
+        int updated = notificationService.markAsRead(user.getId(), request != null ? request.ids() : null);
+        return ResponseEntity.ok(updated);
+    }
+
     @PatchMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void setNotificationAsRead(@PathVariable Long id) {
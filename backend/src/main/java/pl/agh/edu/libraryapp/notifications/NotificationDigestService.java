@@ -0,0 +1,77 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.agh.edu.libraryapp.user.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class NotificationDigestService {
+
+    public static final String DIGEST_TITLE = "Podsumowanie powiadomień";
+    private static final String DIGEST_TEMPLATE = """
+            Dzień dobry %s,
+
+            mamy dla Ciebie nowe powiadomienia z biblioteki (%d):
+
+            %s
+
+            Pozdrawiamy,
+            Biblioteka
+            """;
+
+    private final boolean enabled;
+    private final DigestEntryRepository digestEntryRepository;
+
+    public NotificationDigestService(DigestEntryRepository digestEntryRepository,
+                                     @Value("${notifications.digest.enabled:false}") boolean enabled) {
+        this.digestEntryRepository = digestEntryRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(User user, String title, String message) {
+        digestEntryRepository.save(new DigestEntry(user.getId(), title, message));
+    }
+
+    // Usuwane są dokładnie wczytane wpisy (po id), więc wpis zatwierdzony w trakcie czeka na następny digest.
+    // W transakcji wołającego - jeśli zapis powiadomień się nie uda, wpisy zostają.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Digest> drain() {
+        List<Object[]> rows = digestEntryRepository.findAllPending();
+        List<Digest> digests = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(rows.size());
+        int from = 0;
+        for (int i = 0; i <= rows.size(); i++) {
+            if (i < rows.size()) {
+                ids.add((Long) rows.get(i)[0]);
+            }
+            if (i == rows.size() || (i > from && !rows.get(i)[1].equals(rows.get(from)[1]))) {
+                if (i > from) {
+                    digests.add(digest(rows.subList(from, i)));
+                }
+                from = i;
+            }
+        }
+        digestEntryRepository.deleteAllByIdInBatch(ids);
+        return digests;
+    }
+
+    private static Digest digest(List<Object[]> entries) {
+        Object[] first = entries.getFirst();
+        List<String> lines = entries.stream().map(row -> "- " + row[4] + ": " + row[5]).toList();
+        String body = DIGEST_TEMPLATE.formatted(first[3], lines.size(), String.join("\n", lines));
+        return new Digest((Long) first[1], (String) first[2], body);
+    }
+
+    public record Digest(Long userId, String email, String body) {
+    }
+}
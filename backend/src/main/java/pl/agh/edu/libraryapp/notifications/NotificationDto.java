@@ -1,4 +1,6 @@
 package pl.agh.edu.libraryapp.notifications;
 
-public record NotificationDto(Long id, String title, String message) {
+import java.time.LocalDateTime;
+
+public record NotificationDto(Long id, String title, String message, NotificationStatus status, LocalDateTime createdAt) {
 }
@@ -0,0 +1,7 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record NotificationFeedPage(List<NotificationDto> items, LocalDateTime nextBefore, Long nextBeforeId) {
+}
@@ -1,7 +1,13 @@
 package pl.agh.edu.libraryapp.notifications;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -12,4 +18,52 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification> findByOrderByCreatedAtDesc();
 
     List<Notification> findByUserIdAndStatusOrderByCreatedAtDesc(Long id, NotificationStatus status);
+
+    long countByUserIdAndStatus(Long userId, NotificationStatus status);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :newStatus WHERE n.user.id = :userId AND n.status = :oldStatus")
+    int updateStatusForUser(@Param("userId") Long userId,
+                            @Param("oldStatus") NotificationStatus oldStatus,
+                            @Param("newStatus") NotificationStatus newStatus);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :newStatus WHERE n.user.id = :userId AND n.status = :oldStatus AND n.id IN :ids")
+    int updateStatusForUserAndIds(@Param("userId") Long userId,
+                                  @Param("ids") Collection<Long> ids,
+                                  @Param("oldStatus") NotificationStatus oldStatus,
+                                  @Param("newStatus") NotificationStatus newStatus);
+
+    @Query("SELECT n.id FROM Notification n WHERE n.status = :status AND n.createdAt < :cutoff ORDER BY n.createdAt")
+    List<Long> findIdsByStatusCreatedBefore(@Param("status") NotificationStatus status,
+                                            @Param("cutoff") LocalDateTime cutoff,
+                                            Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeed(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("""
+            SELECT n FROM Notification n
+            WHERE n.user.id = :userId
+              AND (n.createdAt < :before OR (n.createdAt = :before AND n.id < :beforeId))
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<Notification> findFeedBefore(@Param("userId") Long userId,
+                                      @Param("before") LocalDateTime before,
+                                      @Param("beforeId") Long beforeId,
+                                      Pageable pageable);
+
+    // Odbiorcy paczki wstawionej jednym INSERT ... SELECT - wiersze paczki mają wspólny czas utworzenia i treść
+    @Query("""
+            SELECT n.user.id, n.user.email FROM Notification n
+            WHERE n.status = :status AND n.createdAt = :createdAt AND n.title = :title AND n.message = :message
+            """)
+    List<Object[]> findBatchRecipients(@Param("status") NotificationStatus status,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("title") String title,
+                                       @Param("message") String message);
 }
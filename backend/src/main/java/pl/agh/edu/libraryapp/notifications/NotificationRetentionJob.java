@@ -0,0 +1,54 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@Slf4j
+public class NotificationRetentionJob {
+
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int chunkSize;
+
+    public NotificationRetentionJob(NotificationRepository notificationRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${notifications.retention.days:180}") int retentionDays,
+                                    @Value("${notifications.retention.chunk-size:1000}") int chunkSize) {
+        this.notificationRepository = notificationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${notifications.retention.cron:0 30 3 * * *}")
+    public void purgeReadNotifications() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long deleted = 0;
+        int chunk;
+
+        // Każda paczka w osobnej, krótkiej transakcji - bez długich blokad na tabeli notifications
+        do {
+            Integer removed = transactionTemplate.execute(_ -> {
+                List<Long> ids = notificationRepository.findIdsByStatusCreatedBefore(
+                        NotificationStatus.READ, cutoff, PageRequest.of(0, chunkSize));
+                return ids.isEmpty() ? 0 : notificationRepository.deleteByIdIn(ids);
+            });
+            chunk = removed != null ? removed : 0;
+            deleted += chunk;
+        } while (chunk == chunkSize);
+
+        if (deleted > 0) {
+            log.info("Purged {} read notifications older than {} days", deleted, retentionDays);
+        }
+    }
+}
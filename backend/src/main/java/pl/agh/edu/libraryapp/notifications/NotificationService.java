@@ -1,7 +1,13 @@
 package pl.agh.edu.libraryapp.notifications;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.agh.edu.libraryapp.book.Book;
@@ -9,25 +15,47 @@ import pl.agh.edu.libraryapp.rentals.Rentals;
 import pl.agh.edu.libraryapp.user.User;
 import pl.agh.edu.libraryapp.user.UserService;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class NotificationService {
 
+    private static final String OVERDUE_TITLE = "Pilne: Przekroczono termin!";
+    private static final String UPCOMING_RETURN_TITLE = "Zbliżający się termin zwrotu";
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+
     private final NotificationRepository notificationRepository;
     private final UserService userService;
     private final LibraryMailService mailService;
+    private final NotificationDigestService digestService;
+    private final UnreadNotificationCounter unreadCounter;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public NotificationService(NotificationRepository notificationRepository, UserService userService, LibraryMailService mailService) {
+    public NotificationService(NotificationRepository notificationRepository, UserService userService,
+                               LibraryMailService mailService, NotificationDigestService digestService,
+                               UnreadNotificationCounter unreadCounter,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
         this.notificationRepository = notificationRepository;
         this.userService = userService;
         this.mailService = mailService;
+        this.digestService = digestService;
+        this.unreadCounter = unreadCounter;
+        this.batchSize = batchSize;
     }
 
     private void save(User user, String title, String message) {
         Notification notification = new Notification(title, message, user);
         notificationRepository.save(notification);
+        unreadCounter.add(user.getId(), 1);
     }
 
     @Transactional
@@ -41,12 +69,7 @@ public class NotificationService {
     }
     @Transactional
     public void addBookOverdueNotification(Rentals rental) {
-        String title = "Pilne: Przekroczono termin!";
-        String message = String.format("Termin zwrotu książki '%s' minął %s. Prosimy o niezwłoczny zwrot, aby uniknąć naliczania dalszych opłat.",
-                rental.getBookItem().getBook().getTitle(), rental.getEndDate());
-
-        mailService.sendMail(title, message, rental.getUser().getEmail());
-        save(rental.getUser(), title, message);
+        sendOrCoalesce(rental.getUser(), OVERDUE_TITLE, overdueMessage(rental));
     }
     @Transactional
     public void addBookReturnedNotification(Rentals rental) {
@@ -58,12 +81,89 @@ public class NotificationService {
     }
     @Transactional
     public void addUpcomingReturnReminder(Rentals rental) {
-        String title = "Zbliżający się termin zwrotu";
-        String message = String.format("Przypominamy, że termin zwrotu książki '%s' upływa za 3 dni (%s).",
+        sendOrCoalesce(rental.getUser(), UPCOMING_RETURN_TITLE, upcomingReturnMessage(rental));
+    }
+
+    @Transactional
+    public void addBookOverdueNotifications(List<Rentals> rentals) {
+        addAll(rentals, OVERDUE_TITLE, this::overdueMessage);
+    }
+
+    @Transactional
+    public void addUpcomingReturnReminders(List<Rentals> rentals) {
+        addAll(rentals, UPCOMING_RETURN_TITLE, this::upcomingReturnMessage);
+    }
+
+    private void addAll(List<Rentals> rentals, String title, Function<Rentals, String> messageBuilder) {
+        List<Notification> notifications = new ArrayList<>();
+        for (Rentals rental : rentals) {
+            String message = messageBuilder.apply(rental);
+            if (digestService.isEnabled()) {
+                digestService.add(rental.getUser(), title, message);
+            } else {
+                mailService.sendMail(title, message, rental.getUser().getEmail());
+                notifications.add(new Notification(title, message, rental.getUser()));
+            }
+        }
+        saveAll(notifications);
+    }
+
+    // W trybie digest przypomnienia z harmonogramu trafiają do jednej zbiorczej wiadomości na użytkownika
+    private void sendOrCoalesce(User user, String title, String message) {
+        if (digestService.isEnabled()) {
+            digestService.add(user, title, message);
+            return;
+        }
+        mailService.sendMail(title, message, user.getEmail());
+        save(user, title, message);
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${notifications.digest.window:PT15M}")
+    public void flushDigests() {
+        List<NotificationDigestService.Digest> digests = digestService.drain();
+        if (digests.isEmpty()) {
+            return;
+        }
+
+        List<Notification> notifications = new ArrayList<>(digests.size());
+        for (NotificationDigestService.Digest digest : digests) {
+            notifications.add(new Notification(NotificationDigestService.DIGEST_TITLE, digest.body(),
+                    entityManager.getReference(User.class, digest.userId())));
+            mailService.sendMail(NotificationDigestService.DIGEST_TITLE, digest.body(), digest.email());
+        }
+        saveAll(notifications);
+        log.info("Sent {} notification digests", digests.size());
+    }
+
+    // Zapis paczkami: flush co batchSize wierszy i odłączenie tylko zapisanych powiadomień, żeby kontekst persystencji
+    // nie rósł przy dużych wolumenach - encje wczytane wcześniej przez wołającego (Rentals, User) zostają zarządzane
+    @Transactional
+    public void saveAll(List<Notification> notifications) {
+        Map<Long, Long> unreadPerUser = notifications.stream()
+                .collect(Collectors.groupingBy(n -> n.getUser().getId(), Collectors.counting()));
+
+        int batchStart = 0;
+        for (int i = 0; i < notifications.size(); i++) {
+            entityManager.persist(notifications.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                notifications.subList(batchStart, i + 1).forEach(entityManager::detach);
+                batchStart = i + 1;
+            }
+        }
+        entityManager.flush();
+        unreadPerUser.forEach(unreadCounter::add);
+    }
+
+    private String overdueMessage(Rentals rental) {
+        return String.format("Termin zwrotu książki '%s' minął %s. Prosimy o niezwłoczny zwrot, aby uniknąć naliczania dalszych opłat.",
                 rental.getBookItem().getBook().getTitle(), rental.getEndDate());
+    }
 
-        mailService.sendMail(title, message, rental.getUser().getEmail());
-        save(rental.getUser(), title, message);
+    private String upcomingReturnMessage(Rentals rental) {
+        return String.format("Przypominamy, że termin zwrotu książki '%s' upływa za 3 dni (%s).",
+                rental.getBookItem().getBook().getTitle(), rental.getEndDate());
     }
 
     @Transactional
@@ -73,8 +173,7 @@ public class NotificationService {
                 rental.getBookItem().getBook().getTitle());
 
         mailService.sendMail(title, message, rental.getUser().getEmail());
-        Notification notification = new Notification(title, message, rental.getUser());
-        notificationRepository.save(notification);
+        save(rental.getUser(), title, message);
     }
 
     @Transactional
@@ -83,7 +182,39 @@ public class NotificationService {
                 EntityNotFoundException::new
         );
 
-        notification.setStatus(NotificationStatus.READ);
+        if (notification.getStatus() == NotificationStatus.NEW) {
+            notification.setStatus(NotificationStatus.READ);
+            unreadCounter.add(notification.getUser().getId(), -1);
+        }
+    }
+
+    @Transactional
+    public int markAsRead(Long userId, List<Long> ids) {
+        int updated = ids == null || ids.isEmpty()
+                ? notificationRepository.updateStatusForUser(userId, NotificationStatus.NEW, NotificationStatus.READ)
+                : notificationRepository.updateStatusForUserAndIds(userId, ids, NotificationStatus.NEW, NotificationStatus.READ);
+        if (updated > 0) {
+            unreadCounter.add(userId, -updated);
+        }
+        return updated;
+    }
+
+    public long getUnreadCount(Long userId) {
+        return unreadCounter.get(userId);
+    }
+
+    public NotificationFeedPage getFeed(Long userId, LocalDateTime before, Long beforeId, int size) {
+        Pageable page = PageRequest.of(0, Math.clamp(size, 1, MAX_FEED_PAGE_SIZE));
+        List<Notification> notifications = before == null || beforeId == null
+                ? notificationRepository.findFeed(userId, page)
+                : notificationRepository.findFeedBefore(userId, before, beforeId, page);
+
+        List<NotificationDto> items = notifications.stream().map(this::toDto).toList();
+        if (notifications.size() < page.getPageSize()) {
+            return new NotificationFeedPage(items, null, null);
+        }
+        Notification last = notifications.getLast();
+        return new NotificationFeedPage(items, last.getCreatedAt(), last.getId());
     }
 
     public List<Notification> getNotifications() {
@@ -99,6 +230,7 @@ public class NotificationService {
     }
 
     public NotificationDto toDto(Notification notification) {
-        return new NotificationDto(notification.getId() ,notification.getTitle(), notification.getMessage());
+        return new NotificationDto(notification.getId(), notification.getTitle(), notification.getMessage(),
+                notification.getStatus(), notification.getCreatedAt());
     }
 }
\ No newline at end of file
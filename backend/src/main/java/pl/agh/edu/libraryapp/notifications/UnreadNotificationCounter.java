@@ -0,0 +1,89 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.agh.edu.libraryapp.config.TransactionCallbacks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class UnreadNotificationCounter {
+
+    private final NotificationRepository notificationRepository;
+    private final Map<Long, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    // Użytkownicy z zatwierdzaną właśnie zmianą - między commitem a dodaniem delty COUNT może już widzieć nowe wiersze
+    private final Map<Long, Integer> committing = new ConcurrentHashMap<>();
+
+    public UnreadNotificationCounter(NotificationRepository notificationRepository) {
+        this.notificationRepository = notificationRepository;
+    }
+
+    public long get(Long userId) {
+        AtomicLong counter = counters.get(userId);
+        if (counter != null) {
+            return counter.get();
+        }
+
+        // Licznik odbudowywany leniwie - jeśli w trakcie liczenia coś się zmieniło, nie zapamiętujemy wyniku
+        long version = versions.getOrDefault(userId, 0L);
+        long count = notificationRepository.countByUserIdAndStatus(userId, NotificationStatus.NEW);
+        if (versions.getOrDefault(userId, 0L) == version && !committing.containsKey(userId)) {
+            counters.putIfAbsent(userId, new AtomicLong(count));
+            if (versions.getOrDefault(userId, 0L) != version) {
+                counters.remove(userId);
+            }
+        }
+        return count;
+    }
+
+    // Wersja zmienia się już przed commitem, więc odczyt, który mógł policzyć nowe wiersze, nie trafi do cache
+    public void add(Long userId, long delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean started;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                started = true;
+                committing.merge(userId, 1, Integer::sum);
+                versions.merge(userId, 1L, Long::sum);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!started) {
+                    return;
+                }
+                if (status == STATUS_COMMITTED) {
+                    apply(userId, delta);
+                } else {
+                    versions.merge(userId, 1L, Long::sum);
+                    counters.remove(userId);
+                }
+                committing.computeIfPresent(userId, (_, pending) -> pending == 1 ? null : pending - 1);
+            }
+        });
+    }
+
+    private void apply(Long userId, long delta) {
+        versions.merge(userId, 1L, Long::sum);
+        AtomicLong counter = counters.get(userId);
+        if (counter != null && counter.addAndGet(delta) < 0) {
+            counters.remove(userId);
+        }
+    }
+
+    public void invalidate(Long userId) {
+        TransactionCallbacks.afterCompletion(() -> {
+            versions.merge(userId, 1L, Long::sum);
+            counters.remove(userId);
+        });
+    }
+}
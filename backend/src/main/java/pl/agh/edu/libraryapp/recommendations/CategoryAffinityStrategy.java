@@ -0,0 +1,125 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import pl.agh.edu.libraryapp.book.index.CategoryBookIndex;
+import pl.agh.edu.libraryapp.book.index.RoaringBitmap;
+import pl.agh.edu.libraryapp.recommendations.model.ItemSimilarityModel;
+import pl.agh.edu.libraryapp.recommendations.model.Neighbours;
+import pl.agh.edu.libraryapp.recommendations.model.TrainingData;
+import pl.agh.edu.libraryapp.recommendations.util.LongDoubleMap;
+import pl.agh.edu.libraryapp.recommendations.util.TopK;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+
+import java.util.*;
+import java.util.function.LongFunction;
+
+// Ulubione kategorie użytkownika + podobieństwo item-item do przeczytanych książek + ocena
+@Component
+@Order(2)
+public class CategoryAffinityStrategy implements RecommendationStrategy {
+
+    private static final double MAX_RATING = 5.0;
+
+    private final RentalsRepository rentalsRepository;
+    private final TopRatedRanking topRatedRanking;
+    private final CategoryBookIndex categoryBookIndex;
+    private final ItemSimilarityService itemSimilarityService;
+
+    public CategoryAffinityStrategy(RentalsRepository rentalsRepository, TopRatedRanking topRatedRanking,
+                                    CategoryBookIndex categoryBookIndex, ItemSimilarityService itemSimilarityService) {
+        this.rentalsRepository = rentalsRepository;
+        this.topRatedRanking = topRatedRanking;
+        this.categoryBookIndex = categoryBookIndex;
+        this.itemSimilarityService = itemSimilarityService;
+    }
+
+    @Override
+    public String name() {
+        return "category";
+    }
+
+    @Override
+    public List<Long> recommend(long userId, int limit) {
+        Set<Long> readBookIds = new HashSet<>();
+        LongDoubleMap categoryWeights = new LongDoubleMap();
+        double totalWeight = 0;
+        for (Object[] row : rentalsRepository.findReadBookCategories(userId)) {
+            readBookIds.add((Long) row[0]);
+            if (row[1] != null) {
+                categoryWeights.addTo((Long) row[1], 1.0);
+                totalWeight++;
+            }
+        }
+        return rank(readBookIds, categoryWeights, totalWeight, itemSimilarityService::neighbours, limit);
+    }
+
+    // Kategorie z bieżącego katalogu, podobieństwo item-item z modelu zbudowanego tylko na podanej historii
+    @Override
+    public Replay replay(TrainingData training) {
+        Map<Long, Set<Long>> readByUser = new HashMap<>();
+        for (int i = 0; i < training.size(); i++) {
+            readByUser.computeIfAbsent(training.users()[i], _ -> new HashSet<>()).add(training.books()[i]);
+        }
+        ItemSimilarityModel model = itemSimilarityService.buildModel(training.toInteractions());
+
+        return (userId, limit) -> {
+            Set<Long> readBookIds = readByUser.getOrDefault(userId, Set.of());
+            LongDoubleMap categoryWeights = new LongDoubleMap();
+            double totalWeight = 0;
+            for (long bookId : readBookIds) {
+                for (long categoryId : categoryBookIndex.categoriesOf(bookId)) {
+                    categoryWeights.addTo(categoryId, 1.0);
+                    totalWeight++;
+                }
+            }
+            return rank(readBookIds, categoryWeights, totalWeight, model::neighbours, limit);
+        };
+    }
+
+    private List<Long> rank(Set<Long> readBookIds, LongDoubleMap categoryWeights, double totalWeight,
+                            LongFunction<Neighbours> neighboursOf, int limit) {
+        // Podobieństwo item-item do przeczytanych książek (suma kosinusów z list sąsiadów)
+        LongDoubleMap similarity = new LongDoubleMap();
+        for (Long readBookId : readBookIds) {
+            Neighbours neighbours = neighboursOf.apply(readBookId);
+            for (int i = 0; i < neighbours.size(); i++) {
+                similarity.addTo(neighbours.ids()[i], neighbours.scores()[i]);
+            }
+        }
+
+        // Suma bitmap ulubionych kategorii - każda książka odwiedzana raz, bez deduplikacji
+        RoaringBitmap[] candidates = {RoaringBitmap.EMPTY};
+        categoryWeights.forEach((categoryId, _) -> candidates[0] = candidates[0].or(categoryBookIndex.booksIn(categoryId)));
+
+        TopK top = new TopK(limit);
+        double categoryTotal = totalWeight;
+        candidates[0].forEach(bookId -> {
+            if (readBookIds.contains(bookId)) {
+                return;
+            }
+            double affinity = 0;
+            for (long bookCategory : categoryBookIndex.categoriesOf(bookId)) {
+                affinity += categoryWeights.get(bookCategory, 0.0);
+            }
+            top.offer(bookId, score(bookId, affinity / categoryTotal, similarity));
+        });
+        // Kandydaci wyłącznie z modelu podobieństwa (spoza kategorii użytkownika)
+        similarity.forEach((bookId, _) -> {
+            if (!readBookIds.contains(bookId) && !candidates[0].contains(bookId)) {
+                top.offer(bookId, score(bookId, 0.0, similarity));
+            }
+        });
+
+        List<Long> result = new ArrayList<>(limit);
+        for (long bookId : top.toSortedIds()) {
+            result.add(bookId);
+        }
+        return result;
+    }
+
+    // Ocena znormalizowana do [0, 1] + udział kategorii w historii użytkownika + podobieństwo do przeczytanych
+    private double score(long bookId, double affinity, LongDoubleMap similarity) {
+        return topRatedRanking.rating(bookId) / MAX_RATING + affinity + similarity.get(bookId, 0.0);
+    }
+}
@@ -0,0 +1,254 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.book.BookCreatedEvent;
+import pl.agh.edu.libraryapp.book.BookDeletedEvent;
+import pl.agh.edu.libraryapp.book.BookUpdatedEvent;
+import pl.agh.edu.libraryapp.book.CategoryDeletedEvent;
+import pl.agh.edu.libraryapp.book.index.CategoryBookIndex;
+import pl.agh.edu.libraryapp.book.repositories.BookRepository;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+import pl.agh.edu.libraryapp.recommendations.util.LongDoubleMap;
+import pl.agh.edu.libraryapp.recommendations.util.TopK;
+import pl.agh.edu.libraryapp.rentals.BookRentedEvent;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+import pl.agh.edu.libraryapp.review.ReviewAggregate;
+import pl.agh.edu.libraryapp.review.ReviewAggregateRepository;
+import pl.agh.edu.libraryapp.review.ReviewChangedEvent;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * "Popularne w kategorii": dla każdej kategorii posortowana lista `size` najlepszych książek według
+ * wypożyczeń z ostatnich window-days dni + waga * ocena. Odczyt to wycinek tablicy - O(K) niezależnie od katalogu.
+ * Zdarzenia przeliczają wynik jednej książki w jej kategoriach. Wypadanie starych wypożyczeń z okna oraz książki
+ * spoza listy, które zyskałyby po spadku wyniku którejś z listy, wyrównuje dopiero nocna przebudowa.
+ */
+@Component
+@Slf4j
+public class CategoryPopularity {
+
+    private static final double MAX_RATING = 5.0;
+
+    private final BookRepository bookRepository;
+    private final RentalsRepository rentalsRepository;
+    private final ReviewAggregateRepository reviewAggregateRepository;
+    private final CategoryBookIndex categoryBookIndex;
+    private final int size;
+    private final int windowDays;
+    private final double ratingWeight;
+    private final double priorWeight;
+
+    // Zapisy pod blokadą obiektu; czytelnicy biorą z mapy współbieżnej niezmienny ranking bez blokady
+    private volatile Map<Long, Ranking> rankings = new ConcurrentHashMap<>();
+    private LongDoubleMap recentRentals = new LongDoubleMap();
+    private LongDoubleMap ratings = new LongDoubleMap();
+    private double globalMean;
+
+    public CategoryPopularity(BookRepository bookRepository, RentalsRepository rentalsRepository,
+                              ReviewAggregateRepository reviewAggregateRepository,
+                              CategoryBookIndex categoryBookIndex,
+                              @Value("${recommendations.category-popular.size:50}") int size,
+                              @Value("${recommendations.category-popular.window-days:30}") int windowDays,
+                              @Value("${recommendations.category-popular.rating-weight:2}") double ratingWeight,
+                              @Value("${recommendations.top-rated.prior-weight:5}") double priorWeight) {
+        this.bookRepository = bookRepository;
+        this.rentalsRepository = rentalsRepository;
+        this.reviewAggregateRepository = reviewAggregateRepository;
+        this.categoryBookIndex = categoryBookIndex;
+        this.size = size;
+        this.windowDays = windowDays;
+        this.ratingWeight = ratingWeight;
+        this.priorWeight = priorWeight;
+    }
+
+    public List<Long> top(long categoryId, int limit) {
+        Ranking ranking = rankings.get(categoryId);
+        if (ranking == null) {
+            return List.of();
+        }
+        return Arrays.stream(ranking.bookIds(), 0, Math.clamp(limit, 0, ranking.bookIds().length)).boxed().toList();
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("category-popularity-rebuild").start(this::rebuild);
+    }
+
+    // Przynależność do kategorii czytana z bazy, a nie z CategoryBookIndex - kolejność słuchaczy startowych nie jest ustalona.
+    // Wszystkie odczyty z bazy przed podmianą pól, więc nieudana przebudowa zostawia poprzednie rankingi
+    @Scheduled(cron = "${recommendations.category-popular.rebuild-cron:0 45 2 * * *}")
+    public synchronized void rebuild() {
+        try {
+            long start = System.nanoTime();
+            List<Object[]> rentals = rentalsRepository.countRentalsPerBookAndDaySince(LocalDate.now().minusDays(windowDays));
+            List<ReviewAggregate> aggregates = reviewAggregateRepository.findAll().stream()
+                    .filter(aggregate -> aggregate.getReviewCount() > 0)
+                    .toList();
+            List<Object[]> categoryBookPairs = bookRepository.findAllCategoryBookPairs();
+
+            recentRentals = new LongDoubleMap();
+            for (Object[] row : rentals) {
+                recentRentals.addTo((Long) row[0], (Long) row[2]);
+            }
+            long totalCount = aggregates.stream().mapToLong(ReviewAggregate::getReviewCount).sum();
+            long totalSum = aggregates.stream().mapToLong(ReviewAggregate::getRatingSum).sum();
+            globalMean = totalCount == 0 ? 0.0 : (double) totalSum / totalCount;
+            ratings = new LongDoubleMap(aggregates.size());
+            for (ReviewAggregate aggregate : aggregates) {
+                ratings.put(aggregate.getBookId(), rating(aggregate));
+            }
+
+            Map<Long, TopK> tops = new HashMap<>();
+            for (Object[] row : categoryBookPairs) {
+                long bookId = (Long) row[1];
+                tops.computeIfAbsent((Long) row[0], _ -> new TopK(size)).offer(bookId, score(bookId));
+            }
+            Map<Long, Ranking> built = new ConcurrentHashMap<>();
+            tops.forEach((categoryId, top) -> {
+                long[] bookIds = top.toSortedIds();
+                double[] scores = new double[bookIds.length];
+                for (int i = 0; i < bookIds.length; i++) {
+                    scores[i] = score(bookIds[i]);
+                }
+                built.put(categoryId, new Ranking(bookIds, scores));
+            });
+            rankings = built;
+            log.info("Category popularity rebuilt in {} ms: {} categories, {} recently rented books",
+                    (System.nanoTime() - start) / 1_000_000, built.size(), recentRentals.size());
+        } catch (RuntimeException e) {
+            log.error("Category popularity rebuild failed, keeping previous rankings", e);
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookRented(BookRentedEvent event) {
+        recentRentals.addTo(event.bookId(), 1);
+        rescore(event.bookId(), categoryBookIndex.categoriesOf(event.bookId()));
+    }
+
+    // Średnia czytana z review_aggregate, więc powtórzone zdarzenie daje ten sam wynik
+    @TransactionalEventListener
+    public synchronized void onReviewChanged(ReviewChangedEvent event) {
+        Optional<ReviewAggregate> aggregate = reviewAggregateRepository.findById(event.bookId())
+                .filter(candidate -> candidate.getReviewCount() > 0);
+        if (aggregate.isPresent()) {
+            ratings.put(event.bookId(), rating(aggregate.get()));
+        } else {
+            ratings.remove(event.bookId());
+        }
+        rescore(event.bookId(), categoryBookIndex.categoriesOf(event.bookId()));
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookCreated(BookCreatedEvent event) {
+        rescore(event.bookId(), event.categoryIds().stream().mapToLong(Long::longValue).toArray());
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookUpdated(BookUpdatedEvent event) {
+        removeEverywhere(event.bookId());
+        rescore(event.bookId(), event.categoryIds().stream().mapToLong(Long::longValue).toArray());
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookDeleted(BookDeletedEvent event) {
+        removeEverywhere(event.bookId());
+        recentRentals.remove(event.bookId());
+        ratings.remove(event.bookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryDeleted(CategoryDeletedEvent event) {
+        rankings.remove(event.categoryId());
+    }
+
+    private void rescore(long bookId, long[] categoryIds) {
+        double score = score(bookId);
+        for (long categoryId : categoryIds) {
+            rankings.compute(categoryId, (_, ranking) ->
+                    (ranking == null ? Ranking.EMPTY : ranking).with(bookId, score, size));
+        }
+    }
+
+    private void removeEverywhere(long bookId) {
+        rankings.replaceAll((_, ranking) -> ranking.without(bookId));
+    }
+
+    private double score(long bookId) {
+        return recentRentals.get(bookId, 0.0) + ratingWeight * ratings.get(bookId, globalMean) / MAX_RATING;
+    }
+
+    // Średnia bayesowska jak w TopRatedRanking - pojedyncza piątka nie wyprzedza dobrze ocenianych klasyków
+    private double rating(ReviewAggregate aggregate) {
+        return (priorWeight * globalMean + aggregate.getRatingSum()) / (priorWeight + aggregate.getReviewCount());
+    }
+
+    // Wynik malejąco, przy remisie mniejsze id pierwsze (jak TopK); każda zmiana tworzy nowe tablice
+    private record Ranking(long[] bookIds, double[] scores) {
+
+        static final Ranking EMPTY = new Ranking(new long[0], new double[0]);
+
+        Ranking with(long bookId, double score, int capacity) {
+            Ranking base = without(bookId);
+            int position = base.insertionPoint(bookId, score);
+            if (position >= capacity) {
+                return base;
+            }
+            int kept = Math.min(base.bookIds.length, capacity - 1);
+            long[] ids = new long[kept + 1];
+            double[] newScores = new double[kept + 1];
+            System.arraycopy(base.bookIds, 0, ids, 0, position);
+            System.arraycopy(base.scores, 0, newScores, 0, position);
+            ids[position] = bookId;
+            newScores[position] = score;
+            System.arraycopy(base.bookIds, position, ids, position + 1, kept - position);
+            System.arraycopy(base.scores, position, newScores, position + 1, kept - position);
+            return new Ranking(ids, newScores);
+        }
+
+        Ranking without(long bookId) {
+            int index = -1;
+            for (int i = 0; i < bookIds.length; i++) {
+                if (bookIds[i] == bookId) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return this;
+            }
+            int remaining = bookIds.length - 1;
+            long[] ids = new long[remaining];
+            double[] newScores = new double[remaining];
+            System.arraycopy(bookIds, 0, ids, 0, index);
+            System.arraycopy(scores, 0, newScores, 0, index);
+            System.arraycopy(bookIds, index + 1, ids, index, remaining - index);
+            System.arraycopy(scores, index + 1, newScores, index, remaining - index);
+            return new Ranking(ids, newScores);
+        }
+
+        private int insertionPoint(long bookId, double score) {
+            int low = 0;
+            int high = bookIds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                boolean before = scores[mid] > score || (scores[mid] == score && bookIds[mid] < bookId);
+                if (before) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
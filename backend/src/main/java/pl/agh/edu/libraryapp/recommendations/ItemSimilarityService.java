@@ -0,0 +1,120 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+import pl.agh.edu.libraryapp.recommendations.model.Interactions;
+import pl.agh.edu.libraryapp.recommendations.model.ItemSimilarityBuilder;
+import pl.agh.edu.libraryapp.recommendations.model.ItemSimilarityModel;
+import pl.agh.edu.libraryapp.recommendations.model.Neighbours;
+import pl.agh.edu.libraryapp.rentals.BookRentedEvent;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@Slf4j
+public class ItemSimilarityService {
+
+    private final RentalsRepository rentalsRepository;
+    private final int maxNeighbours;
+    private final int maxUserItems;
+    private final int parallelism;
+
+    private volatile ItemSimilarityModel model;
+    private boolean rebuilding;
+    private List<PendingRental> pendingDuringRebuild = new ArrayList<>();
+
+    public ItemSimilarityService(RentalsRepository rentalsRepository,
+                                 @Value("${recommendations.similarity.neighbours:20}") int maxNeighbours,
+                                 @Value("${recommendations.similarity.max-user-items:500}") int maxUserItems,
+                                 @Value("${recommendations.similarity.parallelism:0}") int parallelism) {
+        this.rentalsRepository = rentalsRepository;
+        this.maxNeighbours = maxNeighbours;
+        this.maxUserItems = maxUserItems;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.model = ItemSimilarityModel.empty(maxNeighbours);
+    }
+
+    public Neighbours neighbours(long bookId) {
+        return model.neighbours(bookId);
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public void buildOnStartup() {
+        Thread.ofVirtual().name("item-similarity-build").start(this::rebuild);
+    }
+
+    @Scheduled(cron = "${recommendations.similarity.rebuild-cron:0 0 2 * * *}")
+    public void rebuild() {
+        synchronized (this) {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+        }
+        try {
+            long start = System.nanoTime();
+            Interactions interactions = loadInteractions();
+            ItemSimilarityModel built = buildModel(interactions);
+
+            // Wypożyczenia zatwierdzone w trakcie budowy mogły nie trafić do zapytania - nakładamy je ponownie
+            // (ewentualne podwójne zliczenie pary koryguje kolejna przebudowa)
+            synchronized (this) {
+                pendingDuringRebuild.forEach(pending -> built.recordRental(pending.bookId(), pending.otherBookIds()));
+                model = built;
+            }
+            log.info("Item similarity model rebuilt in {} ms: {} books, {} pairs, ~{} KB",
+                    (System.nanoTime() - start) / 1_000_000, built.bookCount(), interactions.pairCount(),
+                    built.estimatedBytes() / 1024);
+        } catch (RuntimeException e) {
+            log.error("Item similarity rebuild failed, keeping previous model", e);
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+                pendingDuringRebuild = new ArrayList<>();
+            }
+        }
+    }
+
+    // Model z bieżącymi parametrami, ale bez podmiany produkcyjnego (także dla ewaluacji offline)
+    public ItemSimilarityModel buildModel(Interactions interactions) {
+        return ItemSimilarityBuilder.build(interactions, maxNeighbours, maxUserItems, parallelism);
+    }
+
+    @TransactionalEventListener
+    public void onBookRented(BookRentedEvent event) {
+        List<Long> others = rentalsRepository.findOtherRentedBookIds(event.userId(), event.rentalId());
+        if (others.contains(event.bookId())) {
+            // Ponowne wypożyczenie tej samej książki nie zmienia macierzy współwystąpień
+            return;
+        }
+        long[] otherBookIds = others.stream().mapToLong(Long::longValue).toArray();
+        synchronized (this) {
+            model.recordRental(event.bookId(), otherBookIds);
+            if (rebuilding) {
+                pendingDuringRebuild.add(new PendingRental(event.bookId(), otherBookIds));
+            }
+        }
+    }
+
+    private Interactions loadInteractions() {
+        List<Object[]> pairs = rentalsRepository.findUserBookPairs();
+        long[] users = new long[pairs.size()];
+        long[] books = new long[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            users[i] = (Long) pairs.get(i)[0];
+            books[i] = (Long) pairs.get(i)[1];
+        }
+        return Interactions.fromPairs(users, books);
+    }
+
+    private record PendingRental(long bookId, long[] otherBookIds) {
+    }
+}
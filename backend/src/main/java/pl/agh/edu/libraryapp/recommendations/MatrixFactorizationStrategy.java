@@ -0,0 +1,165 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+import pl.agh.edu.libraryapp.recommendations.model.FactorModel;
+import pl.agh.edu.libraryapp.recommendations.model.ImplicitAlsTrainer;
+import pl.agh.edu.libraryapp.recommendations.model.Interactions;
+import pl.agh.edu.libraryapp.recommendations.model.TrainingData;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+import pl.agh.edu.libraryapp.review.ReviewRepository;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+// Czynniki ukryte z ALS (sprzężenie niejawne) dla czytelników z długą historią; trenowane w procesie, co noc
+@Component
+@Order(1)
+@Slf4j
+public class MatrixFactorizationStrategy implements RecommendationStrategy {
+
+    // Ocena 3 jest neutralna: wyższe wzmacniają zaufanie do pary, niższe je osłabiają
+    private static final float NEUTRAL_RATING = 3.0f;
+    private static final long SEED = 42L;
+
+    private final RentalsRepository rentalsRepository;
+    private final ReviewRepository reviewRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int factors;
+    private final int iterations;
+    private final float regularization;
+    private final float alpha;
+    private final int minHistory;
+    private final int parallelism;
+
+    private volatile FactorModel model = FactorModel.empty();
+    private boolean training;
+
+    public MatrixFactorizationStrategy(RentalsRepository rentalsRepository, ReviewRepository reviewRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${recommendations.als.factors:32}") int factors,
+                                       @Value("${recommendations.als.iterations:10}") int iterations,
+                                       @Value("${recommendations.als.regularization:0.1}") float regularization,
+                                       @Value("${recommendations.als.alpha:10}") float alpha,
+                                       @Value("${recommendations.als.min-history:10}") int minHistory,
+                                       @Value("${recommendations.als.parallelism:0}") int parallelism) {
+        this.rentalsRepository = rentalsRepository;
+        this.reviewRepository = reviewRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.factors = factors;
+        this.iterations = iterations;
+        this.regularization = regularization;
+        this.alpha = alpha;
+        this.minHistory = minHistory;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public String name() {
+        return "als";
+    }
+
+    // Krótkie historie dają słabe czynniki - ci użytkownicy dostają strategię kategorii
+    @Override
+    public boolean supports(long userId) {
+        return model.history(userId) >= minHistory;
+    }
+
+    @Override
+    public List<Long> recommend(long userId, int limit) {
+        // Wypożyczenia po ostatnim treningu też wykluczamy
+        Set<Long> rented = new HashSet<>(rentalsRepository.findRentedBookIds(userId));
+        long[] best = model.recommend(userId, limit, rented::contains);
+        List<Long> result = new ArrayList<>(best.length);
+        for (long bookId : best) {
+            result.add(bookId);
+        }
+        return result;
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public void trainOnStartup() {
+        Thread.ofVirtual().name("als-training").start(this::train);
+    }
+
+    @Scheduled(cron = "${recommendations.als.rebuild-cron:0 30 2 * * *}")
+    public void train() {
+        synchronized (this) {
+            if (training) {
+                return;
+            }
+            training = true;
+        }
+        try {
+            long start = System.nanoTime();
+            Interactions interactions = loadInteractions();
+            long loaded = System.nanoTime();
+            FactorModel trained = ImplicitAlsTrainer.train(interactions, factors, iterations, regularization, alpha,
+                    parallelism, SEED);
+            model = trained;
+            log.info("ALS model trained: {} users, {} books, {} pairs, load {} ms, training {} ms, ~{} MB",
+                    trained.userCount(), trained.bookCount(), interactions.pairCount(),
+                    (loaded - start) / 1_000_000, (System.nanoTime() - loaded) / 1_000_000,
+                    trained.estimatedBytes() / (1024 * 1024));
+        } catch (RuntimeException e) {
+            log.error("ALS training failed, keeping previous model", e);
+        } finally {
+            synchronized (this) {
+                training = false;
+            }
+        }
+    }
+
+    @Override
+    public Replay replay(TrainingData training) {
+        FactorModel replayed = ImplicitAlsTrainer.train(toInteractions(training), factors, iterations, regularization,
+                alpha, parallelism, SEED);
+        return (userId, limit) -> {
+            List<Long> result = new ArrayList<>(limit);
+            for (long bookId : replayed.recommend(userId, limit, _ -> false)) {
+                result.add(bookId);
+            }
+            return result;
+        };
+    }
+
+    // Wiersze trafiają strumieniem wprost do tablic CSR; opinia bez wypożyczenia też jest sygnałem
+    private Interactions loadInteractions() {
+        return readOnlyTransaction.execute(_ -> {
+            try (Stream<Object[]> rentals = rentalsRepository.streamUserBookPairs();
+                 Stream<Object[]> ratings = reviewRepository.streamAllUserBookRatings()) {
+                return toInteractions(rentals, ratings);
+            }
+        });
+    }
+
+    // Wypożyczenie ma wagę 1, opinia (dodawana po wypożyczeniach) zamienia ją na ocena/3.
+    // Ta sama ścieżka co przy treningu z bazy służy benchmarkowi
+    static Interactions toInteractions(Stream<Object[]> rentalPairs, Stream<Object[]> ratings) {
+        Interactions.Builder builder = Interactions.builder(1024);
+        rentalPairs.forEach(row -> builder.add((Long) row[0], (Long) row[1], 1.0f));
+        ratings.forEach(row -> builder.add((Long) row[0], (Long) row[1], weight((Integer) row[2])));
+        return builder.build();
+    }
+
+    private static Interactions toInteractions(TrainingData training) {
+        Interactions.Builder builder = Interactions.builder(training.size());
+        for (int i = 0; i < training.size(); i++) {
+            builder.add(training.users()[i], training.books()[i], weight(training.ratings()[i]));
+        }
+        return builder.build();
+    }
+
+    private static float weight(int rating) {
+        return rating > 0 ? rating / NEUTRAL_RATING : 1.0f;
+    }
+}
@@ -0,0 +1,92 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.book.BookResponseDTO;
+import pl.agh.edu.libraryapp.recommendations.util.SingleFlightCache;
+import pl.agh.edu.libraryapp.rentals.BookRentedEvent;
+import pl.agh.edu.libraryapp.review.ReviewChangedEvent;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Gotowe listy rekomendacji dla strony głównej. Listy użytkownika unieważniane przy jego wypożyczeniu lub opinii
+// (i po TTL), listy globalne przeliczane w tle co interwał - żądania nigdy nie czekają na ich odświeżenie.
+@Component
+@Slf4j
+public class RecommendationCache {
+
+    private enum GlobalList { TRENDING, TOP_RATED }
+
+    private record UserKey(long userId, int limit) {
+    }
+
+    private record GlobalKey(GlobalList list, int limit) {
+    }
+
+    private final RecommendationService recommendationService;
+    private final SingleFlightCache<UserKey, List<BookResponseDTO>> personalized;
+    private final SingleFlightCache<GlobalKey, List<BookResponseDTO>> global;
+
+    public RecommendationCache(RecommendationService recommendationService,
+                               @Value("${recommendations.cache.max-entries:10000}") int maxEntries,
+                               @Value("${recommendations.cache.ttl-minutes:10}") long ttlMinutes) {
+        this.recommendationService = recommendationService;
+        this.personalized = new SingleFlightCache<>(maxEntries, TimeUnit.MINUTES.toNanos(ttlMinutes));
+        // Kilka limitów na listę - wpisy nie wygasają, odświeża je refreshGlobalLists
+        this.global = new SingleFlightCache<>(64, 0);
+    }
+
+    public List<BookResponseDTO> forUser(long userId, int limit) {
+        return personalized.get(new UserKey(userId, limit),
+                () -> List.copyOf(recommendationService.getPersonalizedRecommendations(userId, limit)));
+    }
+
+    public List<BookResponseDTO> trending(int limit) {
+        GlobalKey key = new GlobalKey(GlobalList.TRENDING, limit);
+        return global.get(key, () -> load(key));
+    }
+
+    public List<BookResponseDTO> topRated(int limit) {
+        GlobalKey key = new GlobalKey(GlobalList.TOP_RATED, limit);
+        return global.get(key, () -> load(key));
+    }
+
+    @TransactionalEventListener
+    public void onBookRented(BookRentedEvent event) {
+        invalidateUser(event.userId());
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        invalidateUser(event.userId());
+    }
+
+    public void invalidateUser(long userId) {
+        personalized.invalidateIf(key -> key.userId() == userId);
+    }
+
+    // Nowa lista zastępuje starą dopiero po policzeniu, więc czytelnicy zawsze dostają wynik z cache
+    @Scheduled(fixedDelayString = "${recommendations.cache.global-refresh-interval:PT1M}",
+            initialDelayString = "${recommendations.cache.global-refresh-interval:PT1M}")
+    public void refreshGlobalLists() {
+        for (GlobalKey key : global.keys()) {
+            try {
+                global.put(key, load(key));
+            } catch (RuntimeException e) {
+                log.warn("Refreshing {} recommendations (limit {}) failed", key.list(), key.limit(), e);
+            }
+        }
+    }
+
+    private List<BookResponseDTO> load(GlobalKey key) {
+        List<BookResponseDTO> books = switch (key.list()) {
+            case TRENDING -> recommendationService.getTrending(key.limit());
+            case TOP_RATED -> recommendationService.getTopRated(key.limit());
+        };
+        return List.copyOf(books);
+    }
+}
@@ -12,10 +12,16 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:5173")
 public class RecommendationController {
 
+    // Limit z żądania trafia do alokacji kopców i do kluczy cache - ograniczony jak w StatisticsController
+    private static final int MAX_LIMIT = 100;
+
     private final RecommendationService recommendationService;
+    private final RecommendationCache recommendationCache;
 
-    public RecommendationController(RecommendationService recommendationService) {
+    public RecommendationController(RecommendationService recommendationService,
+                                    RecommendationCache recommendationCache) {
         this.recommendationService = recommendationService;
+        this.recommendationCache = recommendationCache;
     }
 
     @GetMapping("/for-user")
@@ -23,25 +29,36 @@ public class RecommendationController {
     public ResponseEntity<List<BookResponseDTO>> getPersonalizedRecommendations(
             @RequestParam Long userId,
             @RequestParam(defaultValue = "6") int limit) {
-        return ResponseEntity.ok(recommendationService.getPersonalizedRecommendations(userId, limit));
+        return ResponseEntity.ok(recommendationCache.forUser(userId, bounded(limit)));
     }
 
     @GetMapping("/similar/{bookId}")
     public ResponseEntity<List<BookResponseDTO>> getSimilarBooks(
             @PathVariable Long bookId,
             @RequestParam(defaultValue = "4") int limit) {
-        return ResponseEntity.ok(recommendationService.getSimilarBooks(bookId, limit));
+        return ResponseEntity.ok(recommendationService.getSimilarBooks(bookId, bounded(limit)));
     }
 
     @GetMapping("/trending")
     public ResponseEntity<List<BookResponseDTO>> getTrending(
             @RequestParam(defaultValue = "5") int limit) {
-        return ResponseEntity.ok(recommendationService.getTrending(limit));
+        return ResponseEntity.ok(recommendationCache.trending(bounded(limit)));
     }
 
     @GetMapping("/top-rated")
     public ResponseEntity<List<BookResponseDTO>> getTopRated(
             @RequestParam(defaultValue = "5") int limit) {
-        return ResponseEntity.ok(recommendationService.getTopRated(limit));
+        return ResponseEntity.ok(recommendationCache.topRated(bounded(limit)));
+    }
+
+    @GetMapping("/category/{categoryId}/popular")
+    public ResponseEntity<List<BookResponseDTO>> getPopularInCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(recommendationService.getPopularInCategory(categoryId, bounded(limit)));
+    }
+
+    private static int bounded(int limit) {
+        return Math.clamp(limit, 1, MAX_LIMIT);
     }
 }
@@ -3,151 +3,234 @@ package pl.agh.edu.libraryapp.recommendations;
 import org.springframework.stereotype.Service;
 import pl.agh.edu.libraryapp.book.Book;
 import pl.agh.edu.libraryapp.book.BookResponseDTO;
-import pl.agh.edu.libraryapp.book.Category;
+import pl.agh.edu.libraryapp.book.index.CategoryBookIndex;
+import pl.agh.edu.libraryapp.book.index.RoaringBitmap;
 import pl.agh.edu.libraryapp.book.repositories.BookRepository;
+import pl.agh.edu.libraryapp.recommendations.model.Neighbours;
+import pl.agh.edu.libraryapp.recommendations.model.ScoredBooks;
+import pl.agh.edu.libraryapp.recommendations.util.LongDoubleMap;
+import pl.agh.edu.libraryapp.recommendations.util.TopK;
 import pl.agh.edu.libraryapp.rentals.RentalsRepository;
-import pl.agh.edu.libraryapp.review.ReviewRepository;
+import pl.agh.edu.libraryapp.review.ReviewAggregate;
+import pl.agh.edu.libraryapp.review.ReviewAggregateRepository;
 
-import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class RecommendationService {
 
+    private static final double MAX_RATING = 5.0;
+    // Udział oceny w rankingu podobnych książek; reszta to pokrycie kategorii
+    private static final double RATING_SHARE = 0.1;
+    // Górna granica kandydatów z kategorii dla "podobnych" - duże kategorie nie są przechodzone w całości
+    private static final int MAX_CATEGORY_CANDIDATES = 5_000;
+
     private final BookRepository bookRepository;
     private final RentalsRepository rentalsRepository;
-    private final ReviewRepository reviewRepository;
-
-    public RecommendationService(BookRepository bookRepository, RentalsRepository rentalsRepository, ReviewRepository reviewRepository) {
+    private final ReviewAggregateRepository reviewAggregateRepository;
+    private final TopRatedRanking topRatedRanking;
+    private final CategoryBookIndex categoryBookIndex;
+    private final ItemSimilarityService itemSimilarityService;
+    private final TrendingCounters trendingCounters;
+    private final TextSimilarityService textSimilarityService;
+    private final CategoryPopularity categoryPopularity;
+    // W kolejności @Order - pierwsza obsługująca użytkownika wygrywa
+    private final List<RecommendationStrategy> strategies;
+
+    public RecommendationService(BookRepository bookRepository, RentalsRepository rentalsRepository,
+                                 ReviewAggregateRepository reviewAggregateRepository,
+                                 TopRatedRanking topRatedRanking, CategoryBookIndex categoryBookIndex,
+                                 ItemSimilarityService itemSimilarityService, TrendingCounters trendingCounters,
+                                 TextSimilarityService textSimilarityService, CategoryPopularity categoryPopularity,
+                                 List<RecommendationStrategy> strategies) {
         this.bookRepository = bookRepository;
         this.rentalsRepository = rentalsRepository;
-        this.reviewRepository = reviewRepository;
+        this.reviewAggregateRepository = reviewAggregateRepository;
+        this.topRatedRanking = topRatedRanking;
+        this.categoryBookIndex = categoryBookIndex;
+        this.itemSimilarityService = itemSimilarityService;
+        this.trendingCounters = trendingCounters;
+        this.textSimilarityService = textSimilarityService;
+        this.categoryPopularity = categoryPopularity;
+        this.strategies = strategies;
     }
 
     public List<BookResponseDTO> getPersonalizedRecommendations(Long userId, int limit) {
-        Set<Category> userCategories = rentalsRepository.findByUserId(userId).stream()
-                .map(rental -> rental.getBookItem().getBook().getCategories())
-                .flatMap(Set::stream)
-                .collect(Collectors.toSet());
-
-        Set<Long> readBookIds = rentalsRepository.findByUserId(userId).stream()
-                .map(rental -> rental.getBookItem().getBook().getId())
-                .collect(Collectors.toSet());
-
-        List<Book> candidateBooks = new ArrayList<>();
-        
-        if (!userCategories.isEmpty()) {
-            for (Category category : userCategories) {
-                candidateBooks.addAll(bookRepository.findByCategoriesContaining(category));
-            }
-        }
-        
-        List<Book> filteredCandidates = candidateBooks.stream()
-                .distinct()
-                .filter(book -> !readBookIds.contains(book.getId()))
-                .collect(Collectors.toList());
+        RecommendationStrategy strategy = strategies.stream()
+                .filter(candidate -> candidate.supports(userId))
+                .findFirst()
+                .orElseThrow();
+        return toDtosByIds(recommendIds(userId, limit, strategy));
+    }
 
-        if (filteredCandidates.size() < limit) {
-            List<Book> topRated = bookRepository.findAll().stream()
-                    .filter(book -> !readBookIds.contains(book.getId()))
-                    .filter(book -> !filteredCandidates.contains(book))
-                    .collect(Collectors.toList());
-            filteredCandidates.addAll(topRated);
-        }
+    public List<BookResponseDTO> getPersonalizedRecommendations(Long userId, int limit, String strategyName) {
+        RecommendationStrategy strategy = strategies.stream()
+                .filter(candidate -> candidate.name().equals(strategyName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown recommendation strategy: " + strategyName));
+        return toDtosByIds(recommendIds(userId, limit, strategy));
+    }
 
-        return filteredCandidates.stream()
-                .sorted((b1, b2) -> {
-                    Double avg1 = reviewRepository.getAverageRatingByBookId(b1.getId());
-                    Double avg2 = reviewRepository.getAverageRatingByBookId(b2.getId());
-                    Long count1 = reviewRepository.countByBookId(b1.getId());
-                    Long count2 = reviewRepository.countByBookId(b2.getId());
-                    
-                    // (average * 0.7) + (count * 0.3 / 10)
-                    double score1 = (avg1 != null ? avg1 : 0) * 0.7 + (count1 != null ? count1 : 0) * 0.03;
-                    double score2 = (avg2 != null ? avg2 : 0) * 0.7 + (count2 != null ? count2 : 0) * 0.03;
-                    
-                    return Double.compare(score2, score1);
-                })
-                .limit(limit)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public List<String> strategyNames() {
+        return strategies.stream().map(RecommendationStrategy::name).toList();
+    }
+
+    List<Long> recommendIds(long userId, int limit, RecommendationStrategy strategy) {
+        List<Long> result = new ArrayList<>(strategy.recommend(userId, limit));
+        // Za mało kandydatów ze strategii - dopełnienie z globalnego rankingu
+        if (result.size() < limit) {
+            Set<Long> readBookIds = new HashSet<>(rentalsRepository.findRentedBookIds(userId));
+            for (Long bookId : topRatedRanking.top(limit + readBookIds.size() + result.size())) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (!readBookIds.contains(bookId) && !result.contains(bookId)) {
+                    result.add(bookId);
+                }
+            }
+        }
+        return result;
     }
 
     public List<BookResponseDTO> getSimilarBooks(Long bookId, int limit) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new IllegalArgumentException("Book not found"));
+        if (!bookRepository.existsById(bookId)) {
+            throw new IllegalArgumentException("Book not found");
+        }
+
+        // Kosinus współwypożyczeń + kosinus treści (opinie, tytuł), potem dopełnienie z tych samych kategorii
+        LongDoubleMap combined = new LongDoubleMap();
+        Neighbours neighbours = itemSimilarityService.neighbours(bookId);
+        for (int i = 0; i < neighbours.size(); i++) {
+            combined.addTo(neighbours.ids()[i], neighbours.scores()[i]);
+        }
+        ScoredBooks textNeighbours = textSimilarityService.similar(bookId, limit);
+        for (int i = 0; i < textNeighbours.size(); i++) {
+            combined.addTo(textNeighbours.ids()[i], textNeighbours.scores()[i]);
+        }
+        TopK best = new TopK(limit);
+        combined.forEach(best::offer);
+        List<Long> result = new ArrayList<>(limit);
+        for (long candidate : best.toSortedIds()) {
+            result.add(candidate);
+        }
 
-        Set<Category> categories = book.getCategories();
-        
-        if (categories.isEmpty()) {
+        long[] categories = categoryBookIndex.categoriesOf(bookId);
+        if (categories.length == 0 && result.isEmpty()) {
             return getTopRated(limit);
         }
+        if (result.size() < limit) {
+            for (long candidate : similarByCategories(bookId, categories, limit + result.size())) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (!result.contains(candidate)) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return toDtosByIds(result);
+    }
 
-        List<Book> similarBooks = new ArrayList<>();
-        for (Category category : categories) {
-            similarBooks.addAll(bookRepository.findByCategoriesContaining(category));
+    // Ważone podobieństwo Jaccarda po kategoriach (wagi odwrotne do rozmiaru kategorii); ocena rozstrzyga remisy.
+    // Kandydaci zbierani z bitmap kategorii książki od najmniejszej, najwyżej MAX_CATEGORY_CANDIDATES - kategoria,
+    // która przekroczyłaby limit, tylko dopisuje wagę kandydatom już zebranym. Waga liczona raz na kategorię.
+    private long[] similarByCategories(long bookId, long[] categories, int limit) {
+        LongDoubleMap weights = new LongDoubleMap();
+        long[] bySize = Arrays.stream(categories).boxed()
+                .sorted(Comparator.comparingInt((Long categoryId) -> categoryBookIndex.booksIn(categoryId).cardinality()))
+                .mapToLong(Long::longValue)
+                .toArray();
+        LongDoubleMap shared = new LongDoubleMap();
+        double bookWeight = 0;
+        for (long categoryId : bySize) {
+            double weight = categoryWeight(categoryId, weights);
+            bookWeight += weight;
+            RoaringBitmap books = categoryBookIndex.booksIn(categoryId);
+            if (shared.size() + books.cardinality() <= MAX_CATEGORY_CANDIDATES) {
+                books.forEach(candidate -> shared.addTo(candidate, weight));
+            } else if (shared.size() == 0) {
+                for (long candidate : books.head(MAX_CATEGORY_CANDIDATES)) {
+                    shared.addTo(candidate, weight);
+                }
+            } else {
+                LongDoubleMap covered = new LongDoubleMap();
+                shared.forEach((candidate, _) -> {
+                    if (books.contains(candidate)) {
+                        covered.put(candidate, weight);
+                    }
+                });
+                covered.forEach(shared::addTo);
+            }
         }
+        shared.remove(bookId);
+
+        TopK top = new TopK(limit);
+        double targetWeight = bookWeight;
+        shared.forEach((candidate, overlap) -> {
+            double candidateWeight = 0;
+            for (long categoryId : categoryBookIndex.categoriesOf(candidate)) {
+                candidateWeight += categoryWeight(categoryId, weights);
+            }
+            double union = targetWeight + candidateWeight - overlap;
+            double jaccard = union > 0 ? overlap / union : 0.0;
+            double rating = topRatedRanking.rating(candidate) / MAX_RATING;
+            top.offer(candidate, (1 - RATING_SHARE) * jaccard + RATING_SHARE * rating);
+        });
+        return top.toSortedIds();
+    }
 
-        return similarBooks.stream()
-                .distinct()
-                .filter(b -> !b.getId().equals(bookId))
-                .sorted((b1, b2) -> {
-                    Double avg1 = reviewRepository.getAverageRatingByBookId(b1.getId());
-                    Double avg2 = reviewRepository.getAverageRatingByBookId(b2.getId());
-                    return Double.compare(avg2 != null ? avg2 : 0, avg1 != null ? avg1 : 0);
-                })
-                .limit(limit)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    private double categoryWeight(long categoryId, LongDoubleMap weights) {
+        double weight = weights.get(categoryId, -1);
+        if (weight < 0) {
+            weight = categoryBookIndex.categoryWeight(categoryId);
+            weights.put(categoryId, weight);
+        }
+        return weight;
     }
 
     public List<BookResponseDTO> getTopRated(int limit) {
-        return bookRepository.findAll().stream()
-                .sorted((b1, b2) -> {
-                    Double avg1 = reviewRepository.getAverageRatingByBookId(b1.getId());
-                    Double avg2 = reviewRepository.getAverageRatingByBookId(b2.getId());
-                    Long count1 = reviewRepository.countByBookId(b1.getId());
-                    Long count2 = reviewRepository.countByBookId(b2.getId());
-                    
-                    if (count1 == null || count1 == 0) return 1;
-                    if (count2 == null || count2 == 0) return -1;
-                    
-                    return Double.compare(avg2 != null ? avg2 : 0, avg1 != null ? avg1 : 0);
-                })
-                .limit(limit)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return toDtosByIds(topRatedRanking.top(limit));
     }
 
     public List<BookResponseDTO> getTrending(int limit) {
-        LocalDate thirtyDaysAgo = LocalDate.now().minusDays(30);
-        
-        Map<Long, Long> bookRentalCount = rentalsRepository.findAll().stream()
-                .filter(rental -> rental.getStartDate().isAfter(thirtyDaysAgo))
-                .collect(Collectors.groupingBy(
-                        rental -> rental.getBookItem().getBook().getId(),
-                        Collectors.counting()
-                ));
-
-        return bookRentalCount.entrySet().stream()
-                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
-                .limit(limit)
-                .map(entry -> bookRepository.findById(entry.getKey()).orElse(null))
-                .filter(Objects::nonNull)
-                .map(this::convertToDTO)
+        return toDtosByIds(trendingCounters.top(limit));
+    }
+
+    public List<BookResponseDTO> getPopularInCategory(Long categoryId, int limit) {
+        return toDtosByIds(categoryPopularity.top(categoryId, limit));
+    }
+
+    // Kolejność wyniku jak w bookIds; książki usunięte w międzyczasie są pomijane
+    private List<BookResponseDTO> toDtosByIds(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Book> books = bookRepository.findAllWithCategoriesByIdIn(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return toDtos(bookIds.stream().map(books::get).filter(Objects::nonNull).toList());
+    }
+
+    // Oceny dla całej listy jednym zapytaniem do review_aggregate
+    private List<BookResponseDTO> toDtos(List<Book> books) {
+        Map<Long, ReviewAggregate> aggregates = reviewAggregateRepository
+                .findAllById(books.stream().map(Book::getId).toList()).stream()
+                .collect(Collectors.toMap(ReviewAggregate::getBookId, Function.identity()));
+        return books.stream()
+                .map(book -> convertToDTO(book, aggregates.get(book.getId())))
                 .collect(Collectors.toList());
     }
 
-    private BookResponseDTO convertToDTO(Book book) {
+    private BookResponseDTO convertToDTO(Book book, ReviewAggregate aggregate) {
         BookResponseDTO dto = new BookResponseDTO();
         dto.setId(book.getId());
         dto.setTitle(book.getTitle());
         dto.setAuthor(book.getAuthor());
         dto.setCount(book.getCount());
         dto.setCategories(book.getCategories());
-        dto.setAverageRating(reviewRepository.getAverageRatingByBookId(book.getId()));
-        dto.setReviewCount(reviewRepository.countByBookId(book.getId()));
+        dto.setAverageRating(aggregate != null ? aggregate.getAverageRating() : 0.0);
+        dto.setReviewCount(aggregate != null ? aggregate.getReviewCount() : 0L);
         return dto;
     }
 }
@@ -0,0 +1,26 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import pl.agh.edu.libraryapp.recommendations.model.TrainingData;
+
+import java.util.List;
+
+// Sposób wyznaczania rekomendacji dla użytkownika; RecommendationService wybiera pierwszą strategię, która go obsługuje
+public interface RecommendationStrategy {
+
+    String name();
+
+    default boolean supports(long userId) {
+        return true;
+    }
+
+    // Id książek od najtrafniejszej, bez już wypożyczonych; wynik może być krótszy niż limit
+    List<Long> recommend(long userId, int limit);
+
+    // Ta sama strategia zbudowana wyłącznie z podanej historii, bez ruszania modeli produkcyjnych (ewaluacja offline)
+    Replay replay(TrainingData training);
+
+    @FunctionalInterface
+    interface Replay {
+        List<Long> recommend(long userId, int limit);
+    }
+}
@@ -0,0 +1,150 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.book.Book;
+import pl.agh.edu.libraryapp.book.BookCreatedEvent;
+import pl.agh.edu.libraryapp.book.BookDeletedEvent;
+import pl.agh.edu.libraryapp.book.BookUpdatedEvent;
+import pl.agh.edu.libraryapp.book.repositories.BookRepository;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+import pl.agh.edu.libraryapp.recommendations.model.HashedTextVectorizer;
+import pl.agh.edu.libraryapp.recommendations.model.ScoredBooks;
+import pl.agh.edu.libraryapp.recommendations.model.TermCounts;
+import pl.agh.edu.libraryapp.recommendations.model.TextSimilarityIndex;
+import pl.agh.edu.libraryapp.review.ReviewChangedEvent;
+import pl.agh.edu.libraryapp.review.ReviewRepository;
+
+import java.util.*;
+
+// Podobieństwo treści: TF-IDF z tytułu i opinii + LSH; książka przeliczana po każdej zmianie jej opinii
+@Component
+@Slf4j
+public class TextSimilarityService {
+
+    private static final long SEED = 42L;
+
+    private final BookRepository bookRepository;
+    private final ReviewRepository reviewRepository;
+    private final HashedTextVectorizer vectorizer;
+    private final int tables;
+    private final int bits;
+    private final int maxTerms;
+
+    private volatile TextSimilarityIndex index;
+    private boolean rebuilding;
+    private Set<Long> pendingDuringRebuild = new HashSet<>();
+
+    public TextSimilarityService(BookRepository bookRepository, ReviewRepository reviewRepository,
+                                 @Value("${recommendations.text.dimension-bits:18}") int dimensionBits,
+                                 @Value("${recommendations.text.title-weight:3}") int titleWeight,
+                                 @Value("${recommendations.text.max-terms:128}") int maxTerms,
+                                 @Value("${recommendations.text.lsh-tables:10}") int tables,
+                                 @Value("${recommendations.text.lsh-bits:10}") int bits) {
+        this.bookRepository = bookRepository;
+        this.reviewRepository = reviewRepository;
+        this.vectorizer = new HashedTextVectorizer(dimensionBits, titleWeight);
+        this.tables = tables;
+        this.bits = bits;
+        this.maxTerms = maxTerms;
+        this.index = new TextSimilarityIndex(vectorizer.dimensions(), tables, bits, maxTerms, SEED);
+    }
+
+    public ScoredBooks similar(long bookId, int limit) {
+        return index.similar(bookId, limit);
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public void buildOnStartup() {
+        Thread.ofVirtual().name("text-similarity-build").start(this::rebuild);
+    }
+
+    @Scheduled(cron = "${recommendations.text.rebuild-cron:0 15 2 * * *}")
+    public void rebuild() {
+        synchronized (this) {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+        }
+        try {
+            long start = System.nanoTime();
+            Map<Long, String> titles = new HashMap<>();
+            for (Object[] row : bookRepository.findAllIdsAndTitles()) {
+                titles.put((Long) row[0], (String) row[1]);
+            }
+            Map<Long, List<String>> texts = new HashMap<>();
+            for (Object[] row : reviewRepository.findAllBookDescriptions()) {
+                texts.computeIfAbsent((Long) row[0], _ -> new ArrayList<>()).add((String) row[1]);
+            }
+            Map<Long, TermCounts> documents = new HashMap<>();
+            titles.forEach((bookId, title) ->
+                    documents.put(bookId, vectorizer.count(title, texts.getOrDefault(bookId, List.of()))));
+
+            TextSimilarityIndex built = TextSimilarityIndex.build(documents, vectorizer.dimensions(), tables, bits,
+                    maxTerms, SEED);
+            // Zmiany zatwierdzone w trakcie budowy mogły nie trafić do zapytań - przeliczamy te książki ponownie
+            Set<Long> pending;
+            synchronized (this) {
+                index = built;
+                pending = pendingDuringRebuild;
+                pendingDuringRebuild = new HashSet<>();
+                rebuilding = false;
+            }
+            pending.forEach(this::refresh);
+            log.info("Text similarity index rebuilt in {} ms: {} books, ~{} KB",
+                    (System.nanoTime() - start) / 1_000_000, built.bookCount(), built.estimatedBytes() / 1024);
+        } catch (RuntimeException e) {
+            log.error("Text similarity rebuild failed, keeping previous index", e);
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+                pendingDuringRebuild = new HashSet<>();
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        refreshAndTrack(event.bookId());
+    }
+
+    @TransactionalEventListener
+    public void onBookCreated(BookCreatedEvent event) {
+        refreshAndTrack(event.bookId());
+    }
+
+    @TransactionalEventListener
+    public void onBookUpdated(BookUpdatedEvent event) {
+        refreshAndTrack(event.bookId());
+    }
+
+    @TransactionalEventListener
+    public void onBookDeleted(BookDeletedEvent event) {
+        refreshAndTrack(event.bookId());
+    }
+
+    private void refreshAndTrack(long bookId) {
+        synchronized (this) {
+            if (rebuilding) {
+                pendingDuringRebuild.add(bookId);
+            }
+        }
+        refresh(bookId);
+    }
+
+    // Stan książki czytany z bazy, więc powtórzone lub przestawione zdarzenia dają ten sam wynik
+    private void refresh(long bookId) {
+        Optional<String> title = bookRepository.findById(bookId).map(Book::getTitle);
+        if (title.isEmpty()) {
+            index.remove(bookId);
+            return;
+        }
+        index.put(bookId, vectorizer.count(title.get(), reviewRepository.findDescriptionsByBookId(bookId)));
+    }
+}
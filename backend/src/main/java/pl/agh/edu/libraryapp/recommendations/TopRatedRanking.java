@@ -0,0 +1,130 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.book.BookDeletedEvent;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+import pl.agh.edu.libraryapp.review.ReviewAggregate;
+import pl.agh.edu.libraryapp.review.ReviewAggregateRepository;
+import pl.agh.edu.libraryapp.review.ReviewChangedEvent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Globalny ranking "najlepiej oceniane" - posortowana lista z przeskokami i mapa wyników. Zmiana oceny jednej
+// książki to O(log n) pod blokadą zapisu; odczyt bez blokady to pierwsze elementy listy
+@Component
+@Slf4j
+public class TopRatedRanking {
+
+    private final ReviewAggregateRepository reviewAggregateRepository;
+    private final double priorWeight;
+
+    // Podmieniany w całości przy przebudowie, między przebudowami zmieniany w miejscu (pod blokadą obiektu)
+    private volatile Ranking ranking = new Ranking(new ConcurrentSkipListSet<>(RankedBook.ORDER),
+            new ConcurrentHashMap<>(), 0.0);
+
+    public TopRatedRanking(ReviewAggregateRepository reviewAggregateRepository,
+                           @Value("${recommendations.top-rated.prior-weight:5}") double priorWeight) {
+        this.reviewAggregateRepository = reviewAggregateRepository;
+        this.priorWeight = priorWeight;
+    }
+
+    public List<Long> top(int limit) {
+        // Rozmiar z liczby ocenionych książek, nie z samego limitu - wołający może doliczać do limitu historię użytkownika
+        Ranking current = ranking;
+        List<Long> result = new ArrayList<>(Math.clamp(limit, 0, current.scoreById().size()));
+        Iterator<RankedBook> iterator = current.ranked().iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next().bookId());
+        }
+        return result;
+    }
+
+    // Książka bez opinii dostaje samą średnią globalną (prior)
+    public double rating(long bookId) {
+        Ranking current = ranking;
+        Double score = current.scoreById().get(bookId);
+        return score != null ? score : current.globalMean();
+    }
+
+    // Pełne przeliczenie odświeża też średnią globalną, która między przebudowami jest stała
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    @Scheduled(fixedDelayString = "${recommendations.top-rated.rebuild-interval:PT1H}",
+            initialDelayString = "${recommendations.top-rated.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        List<ReviewAggregate> aggregates = reviewAggregateRepository.findAll().stream()
+                .filter(aggregate -> aggregate.getReviewCount() > 0)
+                .toList();
+        long totalCount = aggregates.stream().mapToLong(ReviewAggregate::getReviewCount).sum();
+        long totalSum = aggregates.stream().mapToLong(ReviewAggregate::getRatingSum).sum();
+        double globalMean = totalCount == 0 ? 0.0 : (double) totalSum / totalCount;
+
+        Ranking rebuilt = new Ranking(new ConcurrentSkipListSet<>(RankedBook.ORDER),
+                new ConcurrentHashMap<>(aggregates.size() * 2), globalMean);
+        for (ReviewAggregate aggregate : aggregates) {
+            rebuilt.put(aggregate.getBookId(), score(aggregate.getReviewCount(), aggregate.getRatingSum(), globalMean));
+        }
+        ranking = rebuilt;
+        log.info("Top-rated ranking rebuilt: {} books, global mean {}", aggregates.size(), globalMean);
+    }
+
+    // Stan książki czytany z review_aggregate (a nie z delty zdarzenia), więc powtórzenie jest nieszkodliwe
+    @TransactionalEventListener
+    public synchronized void onReviewChanged(ReviewChangedEvent event) {
+        Ranking current = ranking;
+        reviewAggregateRepository.findById(event.bookId())
+                .filter(aggregate -> aggregate.getReviewCount() > 0)
+                .ifPresentOrElse(aggregate -> current.put(event.bookId(),
+                                score(aggregate.getReviewCount(), aggregate.getRatingSum(), current.globalMean())),
+                        () -> current.remove(event.bookId()));
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookDeleted(BookDeletedEvent event) {
+        ranking.remove(event.bookId());
+    }
+
+    // Średnia bayesowska: mało opinii przyciąga wynik do średniej globalnej
+    private double score(long reviewCount, long ratingSum, double globalMean) {
+        return (priorWeight * globalMean + ratingSum) / (priorWeight + reviewCount);
+    }
+
+    private record RankedBook(long bookId, double score) {
+        static final Comparator<RankedBook> ORDER = Comparator.comparingDouble(RankedBook::score).reversed()
+                .thenComparingLong(RankedBook::bookId);
+    }
+
+    // Zapisy tylko pod blokadą TopRatedRanking; wpis usuwany z listy po starym wyniku z mapy
+    private record Ranking(NavigableSet<RankedBook> ranked, Map<Long, Double> scoreById, double globalMean) {
+
+        void put(long bookId, double score) {
+            Double previous = scoreById.put(bookId, score);
+            if (previous != null) {
+                if (previous == score) {
+                    return;
+                }
+                ranked.remove(new RankedBook(bookId, previous));
+            }
+            ranked.add(new RankedBook(bookId, score));
+        }
+
+        void remove(long bookId) {
+            Double previous = scoreById.remove(bookId);
+            if (previous != null) {
+                ranked.remove(new RankedBook(bookId, previous));
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+import pl.agh.edu.libraryapp.recommendations.util.LongDoubleMap;
+import pl.agh.edu.libraryapp.recommendations.util.TopK;
+import pl.agh.edu.libraryapp.rentals.BookRentedEvent;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+// Liczniki wypożyczeń w przesuwnym oknie: pierścień godzinowych kubełków (rzadkich) + suma w oknie per książka
+@Component
+@Slf4j
+public class TrendingCounters {
+
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    private final RentalsRepository rentalsRepository;
+    private final int windowHours;
+    private final LongDoubleMap[] buckets;
+    private final long[] bucketHours;
+    private final LongDoubleMap totals = new LongDoubleMap();
+
+    public TrendingCounters(RentalsRepository rentalsRepository,
+                            @Value("${recommendations.trending.window-days:30}") int windowDays) {
+        this.rentalsRepository = rentalsRepository;
+        this.windowHours = windowDays * 24;
+        this.buckets = new LongDoubleMap[windowHours];
+        this.bucketHours = new long[windowHours];
+        Arrays.fill(bucketHours, Long.MIN_VALUE);
+    }
+
+    // Wypożyczenia mają tylko datę, więc historia trafia do pierwszej godziny swojego dnia
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public synchronized void seed() {
+        long now = currentHour();
+        LocalDate since = LocalDate.now().minusDays(windowHours / 24);
+        List<Object[]> rows = rentalsRepository.countRentalsPerBookAndDaySince(since);
+        for (Object[] row : rows) {
+            long hour = ((LocalDate) row[1]).atStartOfDay(ZoneId.systemDefault()).toEpochSecond() / 3600;
+            add((Long) row[0], Math.min(hour, now), ((Long) row[2]).intValue(), now);
+        }
+        log.info("Trending counters seeded from {} book/day aggregates", rows.size());
+    }
+
+    @TransactionalEventListener
+    public void onBookRented(BookRentedEvent event) {
+        increment(event.bookId());
+    }
+
+    public synchronized void increment(long bookId) {
+        long now = currentHour();
+        add(bookId, now, 1, now);
+    }
+
+    public synchronized List<Long> top(int limit) {
+        expireOlderThan(currentHour() - windowHours);
+        TopK top = new TopK(limit);
+        totals.forEach(top::offer);
+        return Arrays.stream(top.toSortedIds()).boxed().toList();
+    }
+
+    private void add(long bookId, long hour, int count, long now) {
+        if (hour <= now - windowHours) {
+            return;
+        }
+        expireOlderThan(now - windowHours);
+        int slot = (int) Math.floorMod(hour, (long) windowHours);
+        if (bucketHours[slot] != hour) {
+            expire(slot);
+            bucketHours[slot] = hour;
+        }
+        if (buckets[slot] == null) {
+            buckets[slot] = new LongDoubleMap();
+        }
+        buckets[slot].addTo(bookId, count);
+        totals.addTo(bookId, count);
+    }
+
+    private void expireOlderThan(long cutoffHour) {
+        for (int slot = 0; slot < windowHours; slot++) {
+            if (bucketHours[slot] != Long.MIN_VALUE && bucketHours[slot] <= cutoffHour) {
+                expire(slot);
+            }
+        }
+    }
+
+    private void expire(int slot) {
+        LongDoubleMap bucket = buckets[slot];
+        if (bucket != null) {
+            bucket.forEach((bookId, count) -> {
+                double remaining = totals.get(bookId, 0.0) - count;
+                if (remaining <= 0) {
+                    totals.remove(bookId);
+                } else {
+                    totals.put(bookId, remaining);
+                }
+            });
+            buckets[slot] = null;
+        }
+        bucketHours[slot] = Long.MIN_VALUE;
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / MILLIS_PER_HOUR;
+    }
+}
@@ -0,0 +1,8 @@
+package pl.agh.edu.libraryapp.recommendations.evaluation;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record EvaluationReport(LocalDate cutoff, int k, int trainingPairs, int testUsers, int testPairs,
+                               long catalogSize, List<StrategyEvaluation> strategies) {
+}
@@ -0,0 +1,71 @@
+package pl.agh.edu.libraryapp.recommendations.evaluation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import pl.agh.edu.libraryapp.book.index.CategoryBookIndex;
+import pl.agh.edu.libraryapp.recommendations.TopRatedRanking;
+
+// Uruchomienie bez UI na danych z seedera, np. profile test,evaluation; raport w logu, potem koniec procesu
+@Component
+@Profile("evaluation")
+@Slf4j
+public class EvaluationRunner {
+
+    private final RecommendationEvaluator evaluator;
+    private final CategoryBookIndex categoryBookIndex;
+    private final TopRatedRanking topRatedRanking;
+    private final ConfigurableApplicationContext context;
+    private final double trainFraction;
+    private final int k;
+    private final int maxUsers;
+    private final long seed;
+
+    public EvaluationRunner(RecommendationEvaluator evaluator, CategoryBookIndex categoryBookIndex,
+                            TopRatedRanking topRatedRanking, ConfigurableApplicationContext context,
+                            @Value("${evaluation.train-fraction:0.8}") double trainFraction,
+                            @Value("${evaluation.k:10}") int k,
+                            @Value("${evaluation.max-users:1000}") int maxUsers,
+                            @Value("${evaluation.seed:42}") long seed) {
+        this.evaluator = evaluator;
+        this.categoryBookIndex = categoryBookIndex;
+        this.topRatedRanking = topRatedRanking;
+        this.context = context;
+        this.trainFraction = trainFraction;
+        this.k = k;
+        this.maxUsers = maxUsers;
+        this.seed = seed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        // Zadania startowe są w tym profilu wyłączone (BackgroundJobsConfig) - indeksy, z których korzystają strategie, budujemy sami
+        categoryBookIndex.rebuild();
+        topRatedRanking.rebuild();
+
+        int exitCode = 0;
+        try {
+            EvaluationReport report = evaluator.evaluate(trainFraction, k, maxUsers, seed);
+            log.info("Split at {}: {} training pairs, {} test users, {} held-out pairs, catalog {} books",
+                    report.cutoff(), report.trainingPairs(), report.testUsers(), report.testPairs(), report.catalogSize());
+            log.info(String.format("%-18s %9s %9s %9s %9s %9s %9s %9s %9s", "strategy", "P@" + report.k(),
+                    "R@" + report.k(), "coverage", "build ms", "heap MB", "p50 us", "p95 us", "p99 us"));
+            for (StrategyEvaluation result : report.strategies()) {
+                log.info(String.format("%-18s %9.4f %9.4f %9.4f %9d %9d %9d %9d %9d", result.strategy(),
+                        result.precisionAtK(), result.recallAtK(), result.coverage(), result.buildMillis(),
+                        result.buildHeapBytes() / (1024 * 1024), result.p50Micros(), result.p95Micros(),
+                        result.p99Micros()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Recommendation evaluation failed", e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,163 @@
+package pl.agh.edu.libraryapp.recommendations.evaluation;
+
+import org.springframework.stereotype.Component;
+import pl.agh.edu.libraryapp.book.repositories.BookRepository;
+import pl.agh.edu.libraryapp.notifications.LatencyHistogram;
+import pl.agh.edu.libraryapp.recommendations.RecommendationStrategy;
+import pl.agh.edu.libraryapp.recommendations.RecommendationStrategy.Replay;
+import pl.agh.edu.libraryapp.recommendations.model.TrainingData;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+import pl.agh.edu.libraryapp.review.ReviewRepository;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Supplier;
+
+/*
+ * Ewaluacja offline: wypożyczenia dzielone po dacie (trainFraction najstarszych do treningu), każda strategia
+ * budowana z okna treningowego przez replay(), a jej top-k porównywane z książkami, które użytkownik
+ * wypożyczył po raz pierwszy po dacie podziału. Punkt odniesienia: najpopularniejsze w oknie treningowym.
+ */
+@Component
+public class RecommendationEvaluator {
+
+    static final String BASELINE = "popular-baseline";
+
+    private final RentalsRepository rentalsRepository;
+    private final ReviewRepository reviewRepository;
+    private final BookRepository bookRepository;
+    private final List<RecommendationStrategy> strategies;
+
+    public RecommendationEvaluator(RentalsRepository rentalsRepository, ReviewRepository reviewRepository,
+                                   BookRepository bookRepository, List<RecommendationStrategy> strategies) {
+        this.rentalsRepository = rentalsRepository;
+        this.reviewRepository = reviewRepository;
+        this.bookRepository = bookRepository;
+        this.strategies = strategies;
+    }
+
+    public EvaluationReport evaluate(double trainFraction, int k, int maxUsers, long seed) {
+        List<Object[]> history = rentalsRepository.findRentalHistory();
+        if (history.isEmpty()) {
+            throw new IllegalStateException("No rentals to evaluate on");
+        }
+        LocalDate[] dates = history.stream().map(row -> (LocalDate) row[2]).sorted().toArray(LocalDate[]::new);
+        LocalDate cutoff = dates[Math.min(dates.length - 1, (int) (trainFraction * dates.length))];
+
+        Map<Long, Map<Long, Integer>> training = new HashMap<>();
+        Map<Long, Set<Long>> test = new HashMap<>();
+        for (Object[] row : history) {
+            Long userId = (Long) row[0];
+            Long bookId = (Long) row[1];
+            if (((LocalDate) row[2]).isBefore(cutoff)) {
+                training.computeIfAbsent(userId, _ -> new HashMap<>()).put(bookId, 0);
+            } else {
+                test.computeIfAbsent(userId, _ -> new HashSet<>()).add(bookId);
+            }
+        }
+        // Oceny tylko z opinii wystawionych przed podziałem i tylko dla par z okna treningowego
+        for (Object[] row : reviewRepository.findUserBookRatingsBefore(cutoff.atStartOfDay())) {
+            Map<Long, Integer> books = training.get((Long) row[0]);
+            if (books != null && books.containsKey((Long) row[1])) {
+                books.put((Long) row[1], (Integer) row[2]);
+            }
+        }
+
+        // Liczą się tylko nowe książki użytkownika znanego z okna treningowego
+        List<Long> users = new ArrayList<>();
+        int testPairs = 0;
+        for (Map.Entry<Long, Set<Long>> entry : test.entrySet()) {
+            Map<Long, Integer> seen = training.get(entry.getKey());
+            if (seen == null) {
+                continue;
+            }
+            entry.getValue().removeAll(seen.keySet());
+            if (!entry.getValue().isEmpty()) {
+                users.add(entry.getKey());
+                testPairs += entry.getValue().size();
+            }
+        }
+        Collections.sort(users);
+        if (users.size() > maxUsers) {
+            Collections.shuffle(users, new Random(seed));
+            users = users.subList(0, maxUsers);
+            testPairs = users.stream().mapToInt(userId -> test.get(userId).size()).sum();
+        }
+
+        TrainingData data = toTrainingData(training);
+        long catalogSize = bookRepository.count();
+        List<StrategyEvaluation> results = new ArrayList<>();
+        results.add(evaluate(BASELINE, () -> popularity(data), users, test, k, catalogSize));
+        for (RecommendationStrategy strategy : strategies) {
+            results.add(evaluate(strategy.name(), () -> strategy.replay(data), users, test, k, catalogSize));
+        }
+        return new EvaluationReport(cutoff, k, data.size(), users.size(), testPairs, catalogSize, results);
+    }
+
+    // Pamięć to przyrost sterty po budowie (po GC) - przybliżenie rozmiaru modelu trzymanego przez replay
+    private StrategyEvaluation evaluate(String name, Supplier<Replay> builder, List<Long> users,
+                                        Map<Long, Set<Long>> test, int k, long catalogSize) {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        Replay replay = builder.get();
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        Set<Long> recommended = new HashSet<>();
+        double precision = 0;
+        double recall = 0;
+        for (Long userId : users) {
+            long requestStart = System.nanoTime();
+            List<Long> books = replay.recommend(userId, k);
+            latency.record((System.nanoTime() - requestStart) / 1_000);
+
+            Set<Long> relevant = test.get(userId);
+            long hits = books.stream().filter(relevant::contains).count();
+            precision += (double) hits / k;
+            recall += (double) hits / relevant.size();
+            recommended.addAll(books);
+        }
+        int evaluated = Math.max(1, users.size());
+        return new StrategyEvaluation(name, precision / evaluated, recall / evaluated,
+                catalogSize == 0 ? 0.0 : (double) recommended.size() / catalogSize,
+                buildMillis, Math.max(0, heapAfter - heapBefore),
+                latency.percentile(0.50), latency.percentile(0.95), latency.percentile(0.99));
+    }
+
+    private static Replay popularity(TrainingData data) {
+        Map<Long, Integer> counts = new HashMap<>();
+        Map<Long, Set<Long>> readByUser = new HashMap<>();
+        for (int i = 0; i < data.size(); i++) {
+            counts.merge(data.books()[i], 1, Integer::sum);
+            readByUser.computeIfAbsent(data.users()[i], _ -> new HashSet<>()).add(data.books()[i]);
+        }
+        List<Long> ranking = counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.<Long, Integer>comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        return (userId, limit) -> {
+            Set<Long> read = readByUser.getOrDefault(userId, Set.of());
+            return ranking.stream().filter(bookId -> !read.contains(bookId)).limit(limit).toList();
+        };
+    }
+
+    private static TrainingData toTrainingData(Map<Long, Map<Long, Integer>> training) {
+        int pairs = training.values().stream().mapToInt(Map::size).sum();
+        long[] users = new long[pairs];
+        long[] books = new long[pairs];
+        int[] ratings = new int[pairs];
+        int next = 0;
+        for (Map.Entry<Long, Map<Long, Integer>> user : training.entrySet()) {
+            for (Map.Entry<Long, Integer> book : user.getValue().entrySet()) {
+                users[next] = user.getKey();
+                books[next] = book.getKey();
+                ratings[next++] = book.getValue();
+            }
+        }
+        return new TrainingData(users, books, ratings);
+    }
+}
@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.recommendations.evaluation;
+
+public record StrategyEvaluation(String strategy, double precisionAtK, double recallAtK, double coverage,
+                                 long buildMillis, long buildHeapBytes,
+                                 long p50Micros, long p95Micros, long p99Micros) {
+}
@@ -0,0 +1,81 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import pl.agh.edu.libraryapp.recommendations.util.TopK;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+// Czynniki ukryte użytkowników i książek (wiersz i = factors kolejnych floatów) po treningu ALS
+public final class FactorModel {
+
+    private final Interactions interactions;
+    private final int factors;
+    private final float[] userFactors;
+    private final float[] bookFactors;
+
+    FactorModel(Interactions interactions, int factors, float[] userFactors, float[] bookFactors) {
+        this.interactions = interactions;
+        this.factors = factors;
+        this.userFactors = userFactors;
+        this.bookFactors = bookFactors;
+    }
+
+    public static FactorModel empty() {
+        return new FactorModel(Interactions.fromPairs(new long[0], new long[0]), 0, new float[0], new float[0]);
+    }
+
+    public int factors() {
+        return factors;
+    }
+
+    public int userCount() {
+        return interactions.userCount();
+    }
+
+    public int bookCount() {
+        return interactions.bookCount();
+    }
+
+    // Długość historii użytkownika w danych treningowych (0 - użytkownik nieznany modelowi)
+    public int history(long userId) {
+        int user = interactions.userIndex(userId);
+        return user < 0 ? 0 : interactions.userDegree(user);
+    }
+
+    // Pełne przejście po czynnikach książek; pomija książki z historii treningowej i te wskazane przez exclude
+    public long[] recommend(long userId, int limit, LongPredicate exclude) {
+        int user = interactions.userIndex(userId);
+        if (user < 0 || limit <= 0) {
+            return new long[0];
+        }
+        int[] seen = new int[interactions.userDegree(user)];
+        for (int p = interactions.userStart(user), i = 0; p < interactions.userEnd(user); p++, i++) {
+            seen[i] = interactions.bookAt(p);
+        }
+        Arrays.sort(seen);
+
+        int userOffset = user * factors;
+        TopK top = new TopK(limit);
+        for (int book = 0; book < interactions.bookCount(); book++) {
+            if (Arrays.binarySearch(seen, book) >= 0 || exclude.test(interactions.bookId(book))) {
+                continue;
+            }
+            int bookOffset = book * factors;
+            float score = 0;
+            for (int k = 0; k < factors; k++) {
+                score += userFactors[userOffset + k] * bookFactors[bookOffset + k];
+            }
+            top.offer(book, score);
+        }
+
+        long[] best = top.toSortedIds();
+        for (int i = 0; i < best.length; i++) {
+            best[i] = interactions.bookId((int) best[i]);
+        }
+        return best;
+    }
+
+    public long estimatedBytes() {
+        return interactions.estimatedBytes() + (userFactors.length + bookFactors.length) * 4L;
+    }
+}
@@ -0,0 +1,62 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+// Tokenizacja tytułu i opinii do zahaszowanych cech (hashing trick) - bez słownika, stała pamięć
+public final class HashedTextVectorizer {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "ale", "bardzo", "była", "było", "był", "czy", "dla", "jak", "jego", "jej", "jest", "już", "która",
+            "które", "który", "nie", "oraz", "się", "tak", "też", "tej", "ten", "tego", "tylko", "mnie", "może",
+            "and", "are", "but", "for", "not", "that", "the", "this", "was", "with");
+
+    private final int dimensionMask;
+    private final int titleWeight;
+
+    public HashedTextVectorizer(int dimensionBits, int titleWeight) {
+        this.dimensionMask = (1 << dimensionBits) - 1;
+        this.titleWeight = titleWeight;
+    }
+
+    public int dimensions() {
+        return dimensionMask + 1;
+    }
+
+    // Termy tytułu liczone titleWeight razy - tytuł jest krótki, ale zawsze obecny
+    public TermCounts count(String title, Collection<String> texts) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        addTokens(title, titleWeight, counts);
+        for (String text : texts) {
+            addTokens(text, 1, counts);
+        }
+        if (counts.isEmpty()) {
+            return TermCounts.EMPTY;
+        }
+
+        int[] features = counts.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] values = new int[features.length];
+        for (int i = 0; i < features.length; i++) {
+            values[i] = counts.get(features[i]);
+        }
+        return new TermCounts(features, values);
+    }
+
+    private void addTokens(String text, int weight, Map<Integer, Integer> counts) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.length() >= MIN_TOKEN_LENGTH && !STOP_WORDS.contains(token)) {
+                counts.merge(feature(token), weight, Integer::sum);
+            }
+        }
+    }
+
+    private int feature(String token) {
+        int hash = token.hashCode() * 0x9E3779B1;
+        return (hash ^ (hash >>> 16)) & dimensionMask;
+    }
+}
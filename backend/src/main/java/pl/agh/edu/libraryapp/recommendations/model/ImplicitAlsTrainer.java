@@ -0,0 +1,207 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * ALS dla sprzężenia niejawnego (Hu, Koren, Volinsky): preferencja 1 dla każdej pary z macierzy,
+ * zaufanie c = 1 + alpha * waga pary. Naprzemiennie rozwiązujemy układy f x f dla każdego użytkownika
+ * przy stałych czynnikach książek i odwrotnie:
+ *   (YtY + Yt(C_u - I)Y + lambda*I) x_u = Yt C_u p_u
+ * YtY liczone raz na półkrok, więc koszt wiersza to O(n_u * f^2 + f^3) zamiast O(liczba_książek * f^2).
+ */
+public final class ImplicitAlsTrainer {
+
+    private static final int LEAF_SIZE = 512;
+
+    private ImplicitAlsTrainer() {
+    }
+
+    public static FactorModel train(Interactions interactions, int factors, int iterations, float regularization,
+                                    float alpha, int parallelism, long seed) {
+        int users = interactions.userCount();
+        int books = interactions.bookCount();
+        float[] userFactors = new float[users * factors];
+        float[] bookFactors = new float[books * factors];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < bookFactors.length; i++) {
+            bookFactors[i] = (float) (random.nextDouble() * 0.1 / Math.sqrt(factors));
+        }
+
+        ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(factors));
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                double[] bookGram = pool.invoke(new Gram(bookFactors, factors, 0, books));
+                pool.invoke(new SolveRows(interactions, true, 0, users, factors, regularization, alpha,
+                        bookFactors, bookGram, userFactors, scratch));
+                double[] userGram = pool.invoke(new Gram(userFactors, factors, 0, users));
+                pool.invoke(new SolveRows(interactions, false, 0, books, factors, regularization, alpha,
+                        userFactors, userGram, bookFactors, scratch));
+            }
+        }
+        return new FactorModel(interactions, factors, userFactors, bookFactors);
+    }
+
+    private static final class Scratch {
+        final double[] matrix;
+        final double[] vector;
+
+        Scratch(int factors) {
+            matrix = new double[factors * factors];
+            vector = new double[factors];
+        }
+    }
+
+    // Macierz Grama VtV (dolny trójkąt) sumowana z przedziałów wierszy
+    private static final class Gram extends RecursiveTask<double[]> {
+        private final float[] vectors;
+        private final int factors;
+        private final int from;
+        private final int to;
+
+        Gram(float[] vectors, int factors, int from, int to) {
+            this.vectors = vectors;
+            this.factors = factors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > LEAF_SIZE * 8) {
+                int middle = (from + to) >>> 1;
+                Gram left = new Gram(vectors, factors, from, middle);
+                left.fork();
+                double[] result = new Gram(vectors, factors, middle, to).compute();
+                double[] other = left.join();
+                for (int i = 0; i < result.length; i++) {
+                    result[i] += other[i];
+                }
+                return result;
+            }
+            double[] result = new double[factors * factors];
+            for (int row = from; row < to; row++) {
+                int offset = row * factors;
+                for (int a = 0; a < factors; a++) {
+                    double va = vectors[offset + a];
+                    for (int b = 0; b <= a; b++) {
+                        result[a * factors + b] += va * vectors[offset + b];
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    // Półkrok ALS: users == true rozwiązuje wiersze użytkowników przy stałych czynnikach książek, false - odwrotnie
+    private static final class SolveRows extends RecursiveAction {
+        private final Interactions interactions;
+        private final boolean users;
+        private final int from;
+        private final int to;
+        private final int factors;
+        private final float regularization;
+        private final float alpha;
+        private final float[] fixed;
+        private final double[] gram;
+        private final float[] target;
+        private final ThreadLocal<Scratch> scratch;
+
+        SolveRows(Interactions interactions, boolean users, int from, int to, int factors, float regularization,
+                  float alpha, float[] fixed, double[] gram, float[] target, ThreadLocal<Scratch> scratch) {
+            this.interactions = interactions;
+            this.users = users;
+            this.from = from;
+            this.to = to;
+            this.factors = factors;
+            this.regularization = regularization;
+            this.alpha = alpha;
+            this.fixed = fixed;
+            this.gram = gram;
+            this.target = target;
+            this.scratch = scratch;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SolveRows(interactions, users, from, middle, factors, regularization, alpha,
+                                fixed, gram, target, scratch),
+                        new SolveRows(interactions, users, middle, to, factors, regularization, alpha,
+                                fixed, gram, target, scratch));
+                return;
+            }
+            Scratch local = scratch.get();
+            for (int row = from; row < to; row++) {
+                solveRow(row, local.matrix, local.vector);
+            }
+        }
+
+        private void solveRow(int row, double[] matrix, double[] vector) {
+            System.arraycopy(gram, 0, matrix, 0, matrix.length);
+            for (int a = 0; a < factors; a++) {
+                matrix[a * factors + a] += regularization;
+                vector[a] = 0;
+            }
+
+            int start = users ? interactions.userStart(row) : interactions.bookStart(row);
+            int end = users ? interactions.userEnd(row) : interactions.bookEnd(row);
+            for (int p = start; p < end; p++) {
+                int column = users ? interactions.bookAt(p) : interactions.userAt(p);
+                float weight = users ? interactions.userWeightAt(p) : interactions.bookWeightAt(p);
+                double confidence = 1.0 + alpha * weight;
+                int offset = column * factors;
+                for (int a = 0; a < factors; a++) {
+                    double va = fixed[offset + a];
+                    vector[a] += confidence * va;
+                    double scaled = (confidence - 1.0) * va;
+                    for (int b = 0; b <= a; b++) {
+                        matrix[a * factors + b] += scaled * fixed[offset + b];
+                    }
+                }
+            }
+
+            choleskySolve(matrix, vector, factors);
+            int offset = row * factors;
+            for (int a = 0; a < factors; a++) {
+                target[offset + a] = (float) vector[a];
+            }
+        }
+    }
+
+    // Rozkład Cholesky'ego w miejscu (dolny trójkąt) i rozwiązanie L Lt x = b; wynik w b
+    static void choleskySolve(double[] matrix, double[] b, int n) {
+        for (int j = 0; j < n; j++) {
+            double diagonal = matrix[j * n + j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= matrix[j * n + k] * matrix[j * n + k];
+            }
+            diagonal = Math.sqrt(Math.max(diagonal, 1e-12));
+            matrix[j * n + j] = diagonal;
+            for (int i = j + 1; i < n; i++) {
+                double value = matrix[i * n + j];
+                for (int k = 0; k < j; k++) {
+                    value -= matrix[i * n + k] * matrix[j * n + k];
+                }
+                matrix[i * n + j] = value / diagonal;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            double value = b[i];
+            for (int k = 0; k < i; k++) {
+                value -= matrix[i * n + k] * b[k];
+            }
+            b[i] = value / matrix[i * n + i];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double value = b[i];
+            for (int k = i + 1; k < n; k++) {
+                value -= matrix[k * n + i] * b[k];
+            }
+            b[i] = value / matrix[i * n + i];
+        }
+    }
+}
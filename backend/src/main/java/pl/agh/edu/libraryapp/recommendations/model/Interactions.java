@@ -0,0 +1,250 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import java.util.Arrays;
+
+// Macierz użytkownik x książka w postaci CSR w obie strony; id zamienione na gęste indeksy
+public final class Interactions {
+
+    private final long[] userIds;
+    private final long[] bookIds;
+    private final int[] userOffsets;
+    private final int[] userBooks;
+    private final int[] bookOffsets;
+    private final int[] bookUsers;
+    // Wagi par w kolejności obu układów CSR; null - wszystkie pary mają wagę 1
+    private final float[] userWeights;
+    private final float[] bookWeights;
+
+    private Interactions(long[] userIds, long[] bookIds, int[] userOffsets, int[] userBooks,
+                         int[] bookOffsets, int[] bookUsers, float[] userWeights, float[] bookWeights) {
+        this.userIds = userIds;
+        this.bookIds = bookIds;
+        this.userOffsets = userOffsets;
+        this.userBooks = userBooks;
+        this.bookOffsets = bookOffsets;
+        this.bookUsers = bookUsers;
+        this.userWeights = userWeights;
+        this.bookWeights = bookWeights;
+    }
+
+    // Pary (users[i], books[i]) muszą być unikalne
+    public static Interactions fromPairs(long[] users, long[] books) {
+        return fromPairs(users, books, null);
+    }
+
+    public static Interactions fromPairs(long[] users, long[] books, float[] weights) {
+        long[] userIds = Arrays.stream(users).distinct().sorted().toArray();
+        long[] bookIds = Arrays.stream(books).distinct().sorted().toArray();
+        int pairs = users.length;
+
+        int[] userIndex = new int[pairs];
+        int[] bookIndex = new int[pairs];
+        int[] userOffsets = new int[userIds.length + 1];
+        int[] bookOffsets = new int[bookIds.length + 1];
+        for (int i = 0; i < pairs; i++) {
+            userIndex[i] = Arrays.binarySearch(userIds, users[i]);
+            bookIndex[i] = Arrays.binarySearch(bookIds, books[i]);
+            userOffsets[userIndex[i] + 1]++;
+            bookOffsets[bookIndex[i] + 1]++;
+        }
+        Arrays.parallelPrefix(userOffsets, Integer::sum);
+        Arrays.parallelPrefix(bookOffsets, Integer::sum);
+
+        int[] userBooks = new int[pairs];
+        int[] bookUsers = new int[pairs];
+        int[] userFill = Arrays.copyOf(userOffsets, userIds.length);
+        int[] bookFill = Arrays.copyOf(bookOffsets, bookIds.length);
+        float[] userWeights = weights != null ? new float[pairs] : null;
+        float[] bookWeights = weights != null ? new float[pairs] : null;
+        for (int i = 0; i < pairs; i++) {
+            int userPosition = userFill[userIndex[i]]++;
+            int bookPosition = bookFill[bookIndex[i]]++;
+            userBooks[userPosition] = bookIndex[i];
+            bookUsers[bookPosition] = userIndex[i];
+            if (weights != null) {
+                userWeights[userPosition] = weights[i];
+                bookWeights[bookPosition] = weights[i];
+            }
+        }
+        return new Interactions(userIds, bookIds, userOffsets, userBooks, bookOffsets, bookUsers,
+                userWeights, bookWeights);
+    }
+
+    // Budowa wprost z kolejnych wierszy zapytania, bez pośrednich map; pary nie muszą być unikalne
+    public static Builder builder(int expectedPairs) {
+        return new Builder(expectedPairs);
+    }
+
+    // Powtórzona para (użytkownik, książka) zostaje raz, z wagą dodaną jako ostatnia
+    public static final class Builder {
+
+        private long[] users;
+        private long[] books;
+        private float[] weights;
+        private int size;
+
+        private Builder(int expectedPairs) {
+            int capacity = Math.max(16, expectedPairs);
+            users = new long[capacity];
+            books = new long[capacity];
+            weights = new float[capacity];
+        }
+
+        public Builder add(long user, long book, float weight) {
+            if (size == users.length) {
+                int capacity = size + (size >> 1);
+                users = Arrays.copyOf(users, capacity);
+                books = Arrays.copyOf(books, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            users[size] = user;
+            books[size] = book;
+            weights[size++] = weight;
+            return this;
+        }
+
+        public Interactions build() {
+            long[] userIds = distinctSorted(users, size);
+            long[] bookIds = distinctSorted(books, size);
+            int[] userIndex = new int[size];
+            int[] userOffsets = new int[userIds.length + 1];
+            for (int i = 0; i < size; i++) {
+                userIndex[i] = Arrays.binarySearch(userIds, users[i]);
+                userOffsets[userIndex[i] + 1]++;
+            }
+            Arrays.parallelPrefix(userOffsets, Integer::sum);
+
+            // Klucz (indeks książki, numer wiersza) - po sortowaniu w obrębie użytkownika duplikaty stoją obok siebie,
+            // ostatni dodany na końcu
+            long[] keys = new long[size];
+            int[] fill = Arrays.copyOf(userOffsets, userIds.length);
+            for (int i = 0; i < size; i++) {
+                keys[fill[userIndex[i]]++] = (long) Arrays.binarySearch(bookIds, books[i]) << 32 | i;
+            }
+
+            int[] userBooks = new int[size];
+            float[] userWeights = new float[size];
+            int[] bookOffsets = new int[bookIds.length + 1];
+            int pairs = 0;
+            for (int user = 0; user < userIds.length; user++) {
+                int start = userOffsets[user];
+                int end = userOffsets[user + 1];
+                Arrays.sort(keys, start, end);
+                userOffsets[user] = pairs;
+                for (int k = start; k < end; k++) {
+                    int book = (int) (keys[k] >>> 32);
+                    if (k + 1 < end && (int) (keys[k + 1] >>> 32) == book) {
+                        continue;
+                    }
+                    userBooks[pairs] = book;
+                    userWeights[pairs++] = weights[(int) keys[k]];
+                    bookOffsets[book + 1]++;
+                }
+            }
+            userOffsets[userIds.length] = pairs;
+            userBooks = Arrays.copyOf(userBooks, pairs);
+            userWeights = Arrays.copyOf(userWeights, pairs);
+            Arrays.parallelPrefix(bookOffsets, Integer::sum);
+
+            int[] bookUsers = new int[pairs];
+            float[] bookWeights = new float[pairs];
+            int[] bookFill = Arrays.copyOf(bookOffsets, bookIds.length);
+            for (int user = 0; user < userIds.length; user++) {
+                for (int position = userOffsets[user]; position < userOffsets[user + 1]; position++) {
+                    int bookPosition = bookFill[userBooks[position]]++;
+                    bookUsers[bookPosition] = user;
+                    bookWeights[bookPosition] = userWeights[position];
+                }
+            }
+            return new Interactions(userIds, bookIds, userOffsets, userBooks, bookOffsets, bookUsers,
+                    userWeights, bookWeights);
+        }
+
+        private static long[] distinctSorted(long[] values, int size) {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, distinct);
+        }
+    }
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    public int bookCount() {
+        return bookIds.length;
+    }
+
+    public int pairCount() {
+        return userBooks.length;
+    }
+
+    public long userId(int userIndex) {
+        return userIds[userIndex];
+    }
+
+    public long bookId(int bookIndex) {
+        return bookIds[bookIndex];
+    }
+
+    public int userIndex(long userId) {
+        return Arrays.binarySearch(userIds, userId);
+    }
+
+    public int bookIndex(long bookId) {
+        return Arrays.binarySearch(bookIds, bookId);
+    }
+
+    public int userDegree(int userIndex) {
+        return userOffsets[userIndex + 1] - userOffsets[userIndex];
+    }
+
+    public int bookDegree(int bookIndex) {
+        return bookOffsets[bookIndex + 1] - bookOffsets[bookIndex];
+    }
+
+    // Dostęp do surowych tablic CSR bez kopiowania - tylko do odczytu
+    public int userStart(int userIndex) {
+        return userOffsets[userIndex];
+    }
+
+    public int userEnd(int userIndex) {
+        return userOffsets[userIndex + 1];
+    }
+
+    public int bookAt(int position) {
+        return userBooks[position];
+    }
+
+    public float userWeightAt(int position) {
+        return userWeights != null ? userWeights[position] : 1.0f;
+    }
+
+    public int bookStart(int bookIndex) {
+        return bookOffsets[bookIndex];
+    }
+
+    public int bookEnd(int bookIndex) {
+        return bookOffsets[bookIndex + 1];
+    }
+
+    public int userAt(int position) {
+        return bookUsers[position];
+    }
+
+    public float bookWeightAt(int position) {
+        return bookWeights != null ? bookWeights[position] : 1.0f;
+    }
+
+    public long estimatedBytes() {
+        return (userIds.length + bookIds.length) * 8L
+                + (userOffsets.length + bookOffsets.length + userBooks.length + bookUsers.length) * 4L
+                + (userWeights != null ? userWeights.length + bookWeights.length : 0) * 4L;
+    }
+}
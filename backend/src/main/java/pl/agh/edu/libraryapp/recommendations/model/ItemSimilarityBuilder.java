@@ -0,0 +1,145 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import pl.agh.edu.libraryapp.recommendations.util.TopK;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Podobieństwo kosinusowe książek po współwystąpieniach w historii wypożyczeń, liczone równolegle (fork/join)
+public final class ItemSimilarityBuilder {
+
+    private static final int LEAF_SIZE = 256;
+
+    private ItemSimilarityBuilder() {
+    }
+
+    /*
+     * maxUserItems pomija użytkowników z bardzo długą historią przy liczeniu par - ich wkład jest kwadratowy,
+     * a sygnał słaby. Stopnie książek (mianownik kosinusa) liczą wszystkich użytkowników.
+     */
+    public static ItemSimilarityModel build(Interactions interactions, int maxNeighbours, int maxUserItems,
+                                            int parallelism) {
+        int books = interactions.bookCount();
+        long[][] ids = new long[books][];
+        float[][] scores = new float[books][];
+        int[][] coCounts = new int[books][];
+
+        ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(books));
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            pool.invoke(new BookRange(interactions, 0, books, maxNeighbours, maxUserItems, scratch, ids, scores, coCounts));
+        }
+
+        long[] bookIds = new long[books];
+        int[] degrees = new int[books];
+        int[] offsets = new int[books + 1];
+        for (int i = 0; i < books; i++) {
+            bookIds[i] = interactions.bookId(i);
+            degrees[i] = interactions.bookDegree(i);
+            offsets[i + 1] = offsets[i] + ids[i].length;
+        }
+        long[] neighbourIds = new long[offsets[books]];
+        float[] neighbourScores = new float[offsets[books]];
+        int[] neighbourCoCounts = new int[offsets[books]];
+        for (int i = 0; i < books; i++) {
+            System.arraycopy(ids[i], 0, neighbourIds, offsets[i], ids[i].length);
+            System.arraycopy(scores[i], 0, neighbourScores, offsets[i], scores[i].length);
+            System.arraycopy(coCounts[i], 0, neighbourCoCounts, offsets[i], coCounts[i].length);
+        }
+        return new ItemSimilarityModel(bookIds, degrees, offsets, neighbourIds, neighbourScores, neighbourCoCounts,
+                maxNeighbours);
+    }
+
+    // Licznik współwystąpień na wątek: gęsta tablica + lista dotkniętych indeksów do szybkiego zerowania
+    private static final class Scratch {
+        final int[] counts;
+        final int[] touched;
+
+        Scratch(int books) {
+            counts = new int[books];
+            touched = new int[books];
+        }
+    }
+
+    private static final class BookRange extends RecursiveAction {
+        private final Interactions interactions;
+        private final int from;
+        private final int to;
+        private final int maxNeighbours;
+        private final int maxUserItems;
+        private final ThreadLocal<Scratch> scratch;
+        private final long[][] ids;
+        private final float[][] scores;
+        private final int[][] coCounts;
+
+        BookRange(Interactions interactions, int from, int to, int maxNeighbours, int maxUserItems,
+                  ThreadLocal<Scratch> scratch, long[][] ids, float[][] scores, int[][] coCounts) {
+            this.interactions = interactions;
+            this.from = from;
+            this.to = to;
+            this.maxNeighbours = maxNeighbours;
+            this.maxUserItems = maxUserItems;
+            this.scratch = scratch;
+            this.ids = ids;
+            this.scores = scores;
+            this.coCounts = coCounts;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BookRange(interactions, from, middle, maxNeighbours, maxUserItems, scratch, ids, scores, coCounts),
+                        new BookRange(interactions, middle, to, maxNeighbours, maxUserItems, scratch, ids, scores, coCounts));
+                return;
+            }
+            Scratch local = scratch.get();
+            for (int book = from; book < to; book++) {
+                computeBook(book, local);
+            }
+        }
+
+        private void computeBook(int book, Scratch local) {
+            int[] counts = local.counts;
+            int[] touched = local.touched;
+            int touchedCount = 0;
+
+            for (int p = interactions.bookStart(book); p < interactions.bookEnd(book); p++) {
+                int user = interactions.userAt(p);
+                if (interactions.userDegree(user) > maxUserItems) {
+                    continue;
+                }
+                for (int q = interactions.userStart(user); q < interactions.userEnd(user); q++) {
+                    int other = interactions.bookAt(q);
+                    if (other != book && counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+
+            int degree = interactions.bookDegree(book);
+            TopK top = new TopK(maxNeighbours);
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                top.offer(other, ItemSimilarityModel.cosine(counts[other], degree, interactions.bookDegree(other)));
+            }
+
+            long[] best = top.toSortedIds();
+            long[] neighbourIds = new long[best.length];
+            float[] neighbourScores = new float[best.length];
+            int[] neighbourCoCounts = new int[best.length];
+            for (int i = 0; i < best.length; i++) {
+                int other = (int) best[i];
+                neighbourIds[i] = interactions.bookId(other);
+                neighbourCoCounts[i] = counts[other];
+                neighbourScores[i] = ItemSimilarityModel.cosine(counts[other], degree, interactions.bookDegree(other));
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                counts[touched[t]] = 0;
+            }
+
+            ids[book] = neighbourIds;
+            scores[book] = neighbourScores;
+            coCounts[book] = neighbourCoCounts;
+        }
+    }
+}
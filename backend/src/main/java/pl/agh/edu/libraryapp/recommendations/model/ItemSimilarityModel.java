@@ -0,0 +1,100 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Model item-item: bazowe listy sąsiadów w CSR (z nocnej przebudowy) + nakładka z przyrostowych zmian
+public final class ItemSimilarityModel {
+
+    private final long[] bookIds;
+    private final int[] degrees;
+    private final int[] offsets;
+    private final long[] neighbourIds;
+    private final float[] neighbourScores;
+    private final int[] neighbourCoCounts;
+    private final int maxNeighbours;
+
+    private final Map<Long, Neighbours> overlay = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> degreeOverlay = new ConcurrentHashMap<>();
+
+    ItemSimilarityModel(long[] bookIds, int[] degrees, int[] offsets, long[] neighbourIds, float[] neighbourScores,
+                        int[] neighbourCoCounts, int maxNeighbours) {
+        this.bookIds = bookIds;
+        this.degrees = degrees;
+        this.offsets = offsets;
+        this.neighbourIds = neighbourIds;
+        this.neighbourScores = neighbourScores;
+        this.neighbourCoCounts = neighbourCoCounts;
+        this.maxNeighbours = maxNeighbours;
+    }
+
+    public static ItemSimilarityModel empty(int maxNeighbours) {
+        return new ItemSimilarityModel(new long[0], new int[0], new int[1], new long[0], new float[0], new int[0],
+                maxNeighbours);
+    }
+
+    public int bookCount() {
+        return bookIds.length;
+    }
+
+    public Neighbours neighbours(long bookId) {
+        Neighbours updated = overlay.get(bookId);
+        if (updated != null) {
+            return updated;
+        }
+        int index = Arrays.binarySearch(bookIds, bookId);
+        if (index < 0) {
+            return Neighbours.EMPTY;
+        }
+        int from = offsets[index];
+        int to = offsets[index + 1];
+        return new Neighbours(Arrays.copyOfRange(neighbourIds, from, to), Arrays.copyOfRange(neighbourScores, from, to),
+                Arrays.copyOfRange(neighbourCoCounts, from, to));
+    }
+
+    public int degree(long bookId) {
+        Integer updated = degreeOverlay.get(bookId);
+        if (updated != null) {
+            return updated;
+        }
+        int index = Arrays.binarySearch(bookIds, bookId);
+        return index < 0 ? 0 : degrees[index];
+    }
+
+    /*
+     * Użytkownik, który miał już otherBookIds, pierwszy raz wypożyczył bookId. Współwystąpienia liczone są tylko
+     * dla par obecnych w listach sąsiadów (spoza listy startują od 1), a stare wyniki nie są przeskalowywane
+     * po zmianie stopnia - to przybliżenie, które nocna przebudowa koryguje. Wywołujący zapewnia wyłączność zapisu.
+     */
+    public void recordRental(long bookId, long[] otherBookIds) {
+        int bookDegree = degree(bookId) + 1;
+        degreeOverlay.put(bookId, bookDegree);
+
+        Neighbours bookNeighbours = neighbours(bookId);
+        for (long otherId : otherBookIds) {
+            if (otherId == bookId) {
+                continue;
+            }
+            int otherDegree = Math.max(1, degree(otherId));
+
+            int coCount = bookNeighbours.coCount(otherId) + 1;
+            bookNeighbours = bookNeighbours.with(otherId, cosine(coCount, bookDegree, otherDegree), coCount, maxNeighbours);
+
+            Neighbours otherNeighbours = neighbours(otherId);
+            int reverseCoCount = otherNeighbours.coCount(bookId) + 1;
+            overlay.put(otherId, otherNeighbours.with(bookId, cosine(reverseCoCount, otherDegree, bookDegree),
+                    reverseCoCount, maxNeighbours));
+        }
+        overlay.put(bookId, bookNeighbours);
+    }
+
+    public long estimatedBytes() {
+        return bookIds.length * 8L + (degrees.length + offsets.length) * 4L
+                + neighbourIds.length * (8L + 4L + 4L);
+    }
+
+    static float cosine(int coCount, int degreeA, int degreeB) {
+        return (float) (coCount / Math.sqrt((double) degreeA * degreeB));
+    }
+}
@@ -0,0 +1,54 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import java.util.Arrays;
+
+// Najbliżsi sąsiedzi książki posortowani po podobieństwie malejąco; niezmienne
+public record Neighbours(long[] ids, float[] scores, int[] coCounts) {
+
+    public static final Neighbours EMPTY = new Neighbours(new long[0], new float[0], new int[0]);
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int coCount(long bookId) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == bookId) {
+                return coCounts[i];
+            }
+        }
+        return 0;
+    }
+
+    // Nowa lista z podmienionym/dodanym sąsiadem, przycięta do limit
+    Neighbours with(long bookId, float score, int coCount, int limit) {
+        int size = ids.length;
+        long[] newIds = new long[size + 1];
+        float[] newScores = new float[size + 1];
+        int[] newCounts = new int[size + 1];
+        int count = 0;
+        boolean inserted = false;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == bookId) {
+                continue;
+            }
+            if (!inserted && score > scores[i]) {
+                newIds[count] = bookId;
+                newScores[count] = score;
+                newCounts[count++] = coCount;
+                inserted = true;
+            }
+            newIds[count] = ids[i];
+            newScores[count] = scores[i];
+            newCounts[count++] = coCounts[i];
+        }
+        if (!inserted) {
+            newIds[count] = bookId;
+            newScores[count] = score;
+            newCounts[count++] = coCount;
+        }
+        int length = Math.min(count, limit);
+        return new Neighbours(Arrays.copyOf(newIds, length), Arrays.copyOf(newScores, length),
+                Arrays.copyOf(newCounts, length));
+    }
+}
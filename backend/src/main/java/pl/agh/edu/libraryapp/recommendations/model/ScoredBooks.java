@@ -0,0 +1,11 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+// Książki z wynikiem podobieństwa, od najwyższego
+public record ScoredBooks(long[] ids, float[] scores) {
+
+    public static final ScoredBooks EMPTY = new ScoredBooks(new long[0], new float[0]);
+
+    public int size() {
+        return ids.length;
+    }
+}
@@ -0,0 +1,27 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+// Wektor rzadki: rosnące indeksy cech i ich wagi
+public record SparseVector(int[] indices, float[] values) {
+
+    public static final SparseVector EMPTY = new SparseVector(new int[0], new float[0]);
+
+    public int size() {
+        return indices.length;
+    }
+
+    public float dot(SparseVector other) {
+        float result = 0;
+        int i = 0;
+        int j = 0;
+        while (i < indices.length && j < other.indices.length) {
+            if (indices[i] < other.indices[j]) {
+                i++;
+            } else if (indices[i] > other.indices[j]) {
+                j++;
+            } else {
+                result += values[i++] * other.values[j++];
+            }
+        }
+        return result;
+    }
+}
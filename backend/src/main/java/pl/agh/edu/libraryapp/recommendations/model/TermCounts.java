@@ -0,0 +1,11 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+// Liczności zahaszowanych termów dokumentu (książki); features rosnąco
+public record TermCounts(int[] features, int[] counts) {
+
+    public static final TermCounts EMPTY = new TermCounts(new int[0], new int[0]);
+
+    public int size() {
+        return features.length;
+    }
+}
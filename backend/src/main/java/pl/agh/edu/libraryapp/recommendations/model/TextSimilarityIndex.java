@@ -0,0 +1,221 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import pl.agh.edu.libraryapp.recommendations.util.TopK;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Wektory TF-IDF książek (znormalizowane L2, najwyżej maxTerms najcięższych cech) i indeks LSH
+ * z losowymi hiperpłaszczyznami: w każdej z `tables` tablic książka trafia do kubełka o sygnaturze
+ * z `bits` znaków rzutów. Kosinus liczony dokładnie tylko dla kandydatów ze wspólnych kubełków.
+ * Współrzędne hiperpłaszczyzn wyznacza hash (cecha, płaszczyzna), więc nie trzymamy ich w pamięci.
+ *
+ * Zapisy (put/remove) są synchronizowane; odczyty (similar) idą po mapach współbieżnych bez blokady.
+ * Po zapisie IDF pozostałych książek jest lekko nieaktualne - wyrównuje to pełna przebudowa.
+ */
+public final class TextSimilarityIndex {
+
+    private final int tables;
+    private final int bits;
+    private final int maxTerms;
+    private final long seed;
+
+    private final int[] documentFrequency;
+    private int documents;
+    private final Map<Long, TermCounts> counts = new HashMap<>();
+    private final Map<Long, SparseVector> vectors = new ConcurrentHashMap<>();
+    private final Map<Long, int[]> signatures = new ConcurrentHashMap<>();
+    private final List<Map<Integer, Set<Long>>> buckets;
+
+    public TextSimilarityIndex(int dimensions, int tables, int bits, int maxTerms, long seed) {
+        this.tables = tables;
+        this.bits = bits;
+        this.maxTerms = maxTerms;
+        this.seed = seed;
+        this.documentFrequency = new int[dimensions];
+        this.buckets = new ArrayList<>(tables);
+        for (int t = 0; t < tables; t++) {
+            buckets.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    // Pełna budowa: najpierw częstości dokumentowe ze wszystkich książek, potem wektory z ostatecznym IDF
+    public static TextSimilarityIndex build(Map<Long, TermCounts> documents, int dimensions, int tables, int bits,
+                                            int maxTerms, long seed) {
+        TextSimilarityIndex index = new TextSimilarityIndex(dimensions, tables, bits, maxTerms, seed);
+        synchronized (index) {
+            documents.forEach((bookId, terms) -> {
+                if (terms.size() > 0) {
+                    index.counts.put(bookId, terms);
+                    index.addFrequencies(terms, 1);
+                }
+            });
+            index.counts.keySet().forEach(index::addToIndex);
+        }
+        return index;
+    }
+
+    public int bookCount() {
+        return vectors.size();
+    }
+
+    public synchronized void put(long bookId, TermCounts terms) {
+        TermCounts previous = counts.remove(bookId);
+        if (previous != null) {
+            addFrequencies(previous, -1);
+            removeFromIndex(bookId);
+        }
+        if (terms.size() > 0) {
+            counts.put(bookId, terms);
+            addFrequencies(terms, 1);
+            addToIndex(bookId);
+        }
+    }
+
+    public void remove(long bookId) {
+        put(bookId, TermCounts.EMPTY);
+    }
+
+    public ScoredBooks similar(long bookId, int limit) {
+        SparseVector vector = vectors.get(bookId);
+        int[] signature = signatures.get(bookId);
+        if (vector == null || signature == null) {
+            return ScoredBooks.EMPTY;
+        }
+
+        Set<Long> candidates = new HashSet<>();
+        for (int t = 0; t < tables; t++) {
+            candidates.addAll(buckets.get(t).getOrDefault(signature[t], Set.of()));
+        }
+        // Za mało kolizji - sprawdzamy też kubełki różniące się jednym bitem (multi-probe)
+        if (candidates.size() <= limit) {
+            for (int t = 0; t < tables; t++) {
+                for (int b = 0; b < bits; b++) {
+                    candidates.addAll(buckets.get(t).getOrDefault(signature[t] ^ (1 << b), Set.of()));
+                }
+            }
+        }
+        candidates.remove(bookId);
+
+        TopK top = new TopK(limit);
+        for (Long candidate : candidates) {
+            SparseVector other = vectors.get(candidate);
+            if (other != null) {
+                float score = vector.dot(other);
+                if (score > 0) {
+                    top.offer(candidate, score);
+                }
+            }
+        }
+        long[] ids = top.toSortedIds();
+        float[] scores = new float[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            SparseVector other = vectors.get(ids[i]);
+            scores[i] = other != null ? vector.dot(other) : 0f;
+        }
+        return new ScoredBooks(ids, scores);
+    }
+
+    public long estimatedBytes() {
+        long bytes = documentFrequency.length * 4L;
+        for (TermCounts terms : counts.values()) {
+            bytes += terms.size() * 8L;
+        }
+        for (SparseVector vector : vectors.values()) {
+            bytes += vector.size() * 8L;
+        }
+        return bytes + signatures.size() * (tables * 4L + tables * 16L);
+    }
+
+    private void addFrequencies(TermCounts terms, int delta) {
+        for (int feature : terms.features()) {
+            documentFrequency[feature] += delta;
+        }
+        documents += delta;
+    }
+
+    private void addToIndex(long bookId) {
+        SparseVector vector = weigh(counts.get(bookId));
+        int[] signature = signature(vector);
+        vectors.put(bookId, vector);
+        signatures.put(bookId, signature);
+        for (int t = 0; t < tables; t++) {
+            buckets.get(t).computeIfAbsent(signature[t], _ -> ConcurrentHashMap.newKeySet()).add(bookId);
+        }
+    }
+
+    private void removeFromIndex(long bookId) {
+        int[] signature = signatures.remove(bookId);
+        vectors.remove(bookId);
+        if (signature == null) {
+            return;
+        }
+        for (int t = 0; t < tables; t++) {
+            buckets.get(t).computeIfPresent(signature[t], (_, books) -> {
+                books.remove(bookId);
+                return books.isEmpty() ? null : books;
+            });
+        }
+    }
+
+    // (1 + ln tf) * (ln((N + 1) / (df + 1)) + 1), przycięte do maxTerms największych wag i znormalizowane
+    private SparseVector weigh(TermCounts terms) {
+        int size = terms.size();
+        float[] weights = new float[size];
+        for (int i = 0; i < size; i++) {
+            double idf = Math.log((documents + 1.0) / (documentFrequency[terms.features()[i]] + 1.0)) + 1.0;
+            weights[i] = (float) ((1.0 + Math.log(terms.counts()[i])) * idf);
+        }
+
+        float threshold = Float.NEGATIVE_INFINITY;
+        if (size > maxTerms) {
+            float[] sorted = weights.clone();
+            Arrays.sort(sorted);
+            threshold = sorted[size - maxTerms];
+        }
+        int[] indices = new int[Math.min(size, maxTerms)];
+        float[] values = new float[indices.length];
+        int kept = 0;
+        double norm = 0;
+        for (int i = 0; i < size && kept < indices.length; i++) {
+            if (weights[i] >= threshold) {
+                indices[kept] = terms.features()[i];
+                values[kept++] = weights[i];
+                norm += weights[i] * weights[i];
+            }
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < kept; i++) {
+            values[i] *= scale;
+        }
+        return new SparseVector(Arrays.copyOf(indices, kept), Arrays.copyOf(values, kept));
+    }
+
+    private int[] signature(SparseVector vector) {
+        int[] signature = new int[tables];
+        for (int t = 0; t < tables; t++) {
+            int bucket = 0;
+            for (int b = 0; b < bits; b++) {
+                long plane = (long) t * bits + b;
+                double projection = 0;
+                for (int i = 0; i < vector.size(); i++) {
+                    projection += planeSign(vector.indices()[i], plane) ? vector.values()[i] : -vector.values()[i];
+                }
+                if (projection >= 0) {
+                    bucket |= 1 << b;
+                }
+            }
+            signature[t] = bucket;
+        }
+        return signature;
+    }
+
+    // Współrzędna hiperpłaszczyzny +-1 z miksera splitmix64
+    private boolean planeSign(int feature, long plane) {
+        long z = seed ^ (feature * 0x9E3779B97F4A7C15L) ^ (plane * 0xC2B2AE3D27D4EB4FL);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) >= 0;
+    }
+}
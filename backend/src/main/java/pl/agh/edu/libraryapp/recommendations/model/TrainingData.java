@@ -0,0 +1,13 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+// Historia do trenowania modelu: unikalne pary (użytkownik, książka) i ocena z opinii (0 - bez opinii)
+public record TrainingData(long[] users, long[] books, int[] ratings) {
+
+    public int size() {
+        return users.length;
+    }
+
+    public Interactions toInteractions() {
+        return Interactions.fromPairs(users, books);
+    }
+}
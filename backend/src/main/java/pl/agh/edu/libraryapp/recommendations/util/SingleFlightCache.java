@@ -0,0 +1,97 @@
+package pl.agh.edu.libraryapp.recommendations.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Ograniczony cache LRU z ładowaniem single-flight: przy równoczesnych chybieniach ten sam klucz
+// liczy tylko pierwszy wątek, pozostałe czekają na jego wynik. Samo ładowanie odbywa się poza blokadą.
+public final class SingleFlightCache<K, V> {
+
+    private record Entry<V>(CompletableFuture<V> value, long loadedAtNanos) {
+    }
+
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries;
+
+    // ttlNanos = 0 - wpisy nie wygasają (odświeżane z zewnątrz przez put)
+    public SingleFlightCache(int maxSize, long ttlNanos) {
+        this.ttlNanos = ttlNanos;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        CompletableFuture<V> future;
+        boolean owner = false;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null || expired(entry)) {
+                future = new CompletableFuture<>();
+                entries.put(key, new Entry<>(future, System.nanoTime()));
+                owner = true;
+            } else {
+                future = entry.value();
+            }
+        }
+
+        if (owner) {
+            try {
+                future.complete(loader.get());
+            } catch (RuntimeException e) {
+                // Błąd nie zostaje w cache - następne wywołanie spróbuje ponownie
+                synchronized (this) {
+                    Entry<V> current = entries.get(key);
+                    if (current != null && current.value() == future) {
+                        entries.remove(key);
+                    }
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(CompletableFuture.completedFuture(value), System.nanoTime()));
+    }
+
+    // Ładowanie w toku dla usuniętego klucza dokończy się dla już czekających, ale nie trafi z powrotem do cache
+    public synchronized void invalidateIf(Predicate<K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized List<K> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean expired(Entry<V> entry) {
+        return ttlNanos > 0 && entry.value().isDone() && System.nanoTime() - entry.loadedAtNanos() > ttlNanos;
+    }
+}
@@ -0,0 +1,104 @@
+package pl.agh.edu.libraryapp.recommendations.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Ograniczony kopiec minimalny: trzyma K najlepszych (id, wynik) w O(n log K), bez sortowania wszystkich kandydatów
+public final class TopK {
+
+    private final int capacity;
+    private final long[] ids;
+    private final double[] scores;
+    private int size;
+
+    public TopK(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.ids = new long[this.capacity];
+        this.scores = new double[this.capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    // Najsłabszy wynik w kopcu - kandydaci poniżej mogą zostać pominięci bez liczenia reszty
+    public double threshold() {
+        return isFull() && capacity > 0 ? scores[0] : Double.NEGATIVE_INFINITY;
+    }
+
+    public void offer(long id, double score) {
+        if (capacity == 0) {
+            return;
+        }
+        if (size < capacity) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (better(score, id, scores[0], ids[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    // Wynik malejąco, przy remisie mniejsze id pierwsze
+    public long[] toSortedIds() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparingLong(i -> ids[i]));
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = ids[order[i]];
+        }
+        return result;
+    }
+
+    private static boolean better(double score, long id, double otherScore, long otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(scores[parent], ids[parent], scores[index], ids[index])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better(scores[left], ids[left], scores[right], ids[right])) {
+                worst = right;
+            }
+            if (!better(scores[index], ids[index], scores[worst], ids[worst])) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
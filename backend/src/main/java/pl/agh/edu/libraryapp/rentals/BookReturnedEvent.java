@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.rentals;
+
+import java.time.LocalDate;
+
+public record BookReturnedEvent(Long rentalId, Long userId, Long bookId, LocalDate returnDate) {
+}
@@ -8,11 +8,14 @@ import pl.agh.edu.libraryapp.bookItem.BookItem;
 import pl.agh.edu.libraryapp.user.User;
 
 @Entity
-@Table(name = "rentals")
+@Table(name = "rentals", indexes = {
+        @Index(name = "idx_rentals_start_date", columnList = "start_date")
+})
 public class Rentals {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rentals_seq")
+    @SequenceGenerator(name = "rentals_seq", sequenceName = "rentals_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
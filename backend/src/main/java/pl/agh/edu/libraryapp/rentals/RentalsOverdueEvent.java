@@ -0,0 +1,8 @@
+package pl.agh.edu.libraryapp.rentals;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Jedno zdarzenie na nocny przebieg - id książek wypożyczeń, które właśnie stały się przeterminowane
+public record RentalsOverdueEvent(LocalDate day, List<Long> bookIds) {
+}
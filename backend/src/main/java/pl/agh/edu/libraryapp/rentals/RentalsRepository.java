@@ -1,14 +1,17 @@
 package pl.agh.edu.libraryapp.rentals;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
-import pl.agh.edu.libraryapp.stats.BookRentalsDTO;
-import pl.agh.edu.libraryapp.stats.BooksBorrowedByUserDTO;
 import pl.agh.edu.libraryapp.user.User;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface RentalsRepository extends JpaRepository<Rentals, Long> {
     @Query("SELECT r FROM Rentals r JOIN FETCH r.bookItem bi JOIN FETCH bi.book WHERE r.user = :user")
@@ -24,32 +27,70 @@ public interface RentalsRepository extends JpaRepository<Rentals, Long> {
 
     List<Rentals> findByStatusAndEndDate(String status ,LocalDate soon);
 
-    @Query(
-            """
-            SELECT new pl.agh.edu.libraryapp.stats.BooksBorrowedByUserDTO(u, COUNT(r))
-            FROM User u
-            JOIN Rentals r ON u = r.user
-            GROUP BY u.id
-            ORDER BY COUNT(r) DESC
+    @Query("SELECT r FROM Rentals r JOIN FETCH r.user JOIN FETCH r.bookItem bi JOIN FETCH bi.book WHERE r.status = 'ACTIVE' AND r.endDate < :currentDate")
+    List<Rentals> findOverdueRentalsWithDetails(@Param("currentDate") LocalDate currentDate);
+
+    @Query("SELECT r FROM Rentals r JOIN FETCH r.user JOIN FETCH r.bookItem bi JOIN FETCH bi.book WHERE r.status = :status AND r.endDate = :endDate")
+    List<Rentals> findByStatusAndEndDateWithDetails(@Param("status") String status, @Param("endDate") LocalDate endDate);
+
+    // Jeden wiersz na (wypożyczenie, kategoria) - przeczytane książki i wagi kategorii użytkownika naraz
+    @Query("""
+            SELECT b.id, c.id FROM Rentals r
+            JOIN r.bookItem bi JOIN bi.book b LEFT JOIN b.categories c
+            WHERE r.user.id = :userId
             """)
-    List<BooksBorrowedByUserDTO> getBooksBorrowedPerUser();
+    List<Object[]> findReadBookCategories(@Param("userId") Long userId);
+
+    // Unikalne pary (użytkownik, książka) dla modelu podobieństwa
+    @Query("SELECT DISTINCT r.user.id, bi.book.id FROM Rentals r JOIN r.bookItem bi")
+    List<Object[]> findUserBookPairs();
+
+    @Query("SELECT DISTINCT r.user.id, bi.book.id FROM Rentals r JOIN r.bookItem bi")
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    Stream<Object[]> streamUserBookPairs();
 
+    @Query("SELECT r.user.id, bi.book.id, r.startDate FROM Rentals r JOIN r.bookItem bi")
+    List<Object[]> findRentalHistory();
+
+    @Query("SELECT DISTINCT bi.book.id FROM Rentals r JOIN r.bookItem bi WHERE r.user.id = :userId")
+    List<Long> findRentedBookIds(@Param("userId") Long userId);
+
+    @Query("SELECT DISTINCT bi.book.id FROM Rentals r JOIN r.bookItem bi WHERE r.user.id = :userId AND r.id <> :rentalId")
+    List<Long> findOtherRentedBookIds(@Param("userId") Long userId, @Param("rentalId") Long rentalId);
 
     @Query("""
-SELECT new pl.agh.edu.libraryapp.stats.BookRentalsDTO(b, COUNT(r))
-FROM Book b
-JOIN Rentals r ON b.id = r.bookItem.book.id
-GROUP BY b.id
-ORDER BY COUNT(r) DESC
-""")
-    List<BookRentalsDTO> getTimesRentedPerBook();
+            SELECT bi.book.id, r.startDate, COUNT(r) FROM Rentals r JOIN r.bookItem bi
+            WHERE r.startDate >= :since
+            GROUP BY bi.book.id, r.startDate
+            """)
+    List<Object[]> countRentalsPerBookAndDaySince(@Param("since") LocalDate since);
 
     @Query("""
-SELECT new pl.agh.edu.libraryapp.stats.BookRentalsDTO(b, COUNT(r))
-FROM Book b
-JOIN Rentals r ON b.id = r.bookItem.book.id AND r.startDate BETWEEN :start AND :end
-GROUP BY b.id
-ORDER BY COUNT(r) DESC
-""")
-    List<BookRentalsDTO> getTimesRentedPerBookBetweenDates(LocalDate start, LocalDate end);
+            SELECT bi.book.id, r.startDate, COUNT(r) FROM Rentals r JOIN r.bookItem bi
+            WHERE r.startDate >= :from AND r.startDate < :to
+            GROUP BY bi.book.id, r.startDate
+            """)
+    List<Object[]> countRentalsPerBookAndDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Przy zwrocie endDate jest ustawiane na dzień zwrotu
+    @Query("""
+            SELECT bi.book.id, r.endDate, COUNT(r) FROM Rentals r JOIN r.bookItem bi
+            WHERE r.status = 'RETURNED' AND r.endDate >= :from AND r.endDate < :to
+            GROUP BY bi.book.id, r.endDate
+            """)
+    List<Object[]> countReturnsPerBookAndDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    long countByStatusIn(Collection<String> statuses);
+
+    long countByStartDate(LocalDate startDate);
+
+    long countByStatusAndEndDate(String status, LocalDate endDate);
+
+    @Query("SELECT MIN(r.startDate) FROM Rentals r")
+    LocalDate findEarliestStartDate();
+
+    @Modifying
+    @Query("UPDATE Rentals r SET r.status = 'OVERDUE' WHERE r.status = 'ACTIVE' AND r.endDate < :currentDate")
+    int markOverdue(@Param("currentDate") LocalDate currentDate);
 }
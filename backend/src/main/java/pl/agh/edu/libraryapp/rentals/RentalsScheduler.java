@@ -2,6 +2,7 @@ package pl.agh.edu.libraryapp.rentals;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,27 +18,26 @@ public class RentalsScheduler {
 
     private final RentalsRepository rentalRepository;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Scheduled(cron = "0 0 0 * * *")
     public void checkOverdueRentals() {
-        List<Rentals> overdueRentals = rentalRepository.findOverdueRentals(LocalDate.now());
+        LocalDate today = LocalDate.now();
+        List<Rentals> overdueRentals = rentalRepository.findOverdueRentalsWithDetails(today);
 
-        for (Rentals rental : overdueRentals) {
-            notificationService.addBookOverdueNotification(rental);
-            rental.setStatus("OVERDUE");
-            rentalRepository.save(rental);
-        }
+        notificationService.addBookOverdueNotifications(overdueRentals);
+        rentalRepository.markOverdue(today);
+        eventPublisher.publishEvent(new RentalsOverdueEvent(today,
+                overdueRentals.stream().map(rental -> rental.getBookItem().getBook().getId()).toList()));
     }
 
     @Transactional
     @Scheduled(cron = "0 0 0 * * *")
     public void checkSoonOverdueRentals() {
         LocalDate soon = LocalDate.now().plusDays(3);
-        List<Rentals> overdueRentals = rentalRepository.findByStatusAndEndDate("ACTIVE" ,soon);
+        List<Rentals> overdueRentals = rentalRepository.findByStatusAndEndDateWithDetails("ACTIVE", soon);
 
-        for (Rentals rental : overdueRentals) {
-            notificationService.addUpcomingReturnReminder(rental);
-        }
+        notificationService.addUpcomingReturnReminders(overdueRentals);
     }
 }
\ No newline at end of file
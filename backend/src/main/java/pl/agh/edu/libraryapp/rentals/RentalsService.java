@@ -1,22 +1,21 @@
 package pl.agh.edu.libraryapp.rentals;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.agh.edu.libraryapp.book.Book;
 import pl.agh.edu.libraryapp.bookItem.BookItem;
 import pl.agh.edu.libraryapp.bookItem.BookItemService;
 import pl.agh.edu.libraryapp.bookQueue.BookQueueService;
+import pl.agh.edu.libraryapp.bookQueue.QueueState;
 import pl.agh.edu.libraryapp.book.services.BookService;
 import pl.agh.edu.libraryapp.bookItem.BookItemNotAvailableException;
 import pl.agh.edu.libraryapp.notifications.NotificationService;
-import pl.agh.edu.libraryapp.stats.BookRentalsDTO;
-import pl.agh.edu.libraryapp.stats.BooksBorrowedByUserDTO;
+import pl.agh.edu.libraryapp.stats.RentalRollupService;
 import pl.agh.edu.libraryapp.user.User;
 import pl.agh.edu.libraryapp.user.UserRepository;
 
-import java.sql.Date;
 import java.time.LocalDate;
-import java.time.Year;
 import java.util.List;
 import java.util.Objects;
 
@@ -30,15 +29,20 @@ public class RentalsService {
     private final UserRepository userRepository;
     private final BookQueueService bookQueueService;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RentalRollupService rentalRollupService;
 
     public RentalsService(RentalsRepository rentalRepository, BookItemService bookItemService,
-                          BookService bookService, UserRepository userRepository, BookQueueService bookQueueService, NotificationService notificationService) {
+                          BookService bookService, UserRepository userRepository, BookQueueService bookQueueService, NotificationService notificationService,
+                          ApplicationEventPublisher eventPublisher, RentalRollupService rentalRollupService) {
         this.rentalRepository = rentalRepository;
         this.bookItemService = bookItemService;
         this.bookService = bookService;
         this.userRepository = userRepository;
         this.bookQueueService = bookQueueService;
         this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
+        this.rentalRollupService = rentalRollupService;
     }
 
     public Rentals rentBook(Long userId, Long bookItemId) {
@@ -53,11 +57,12 @@ public class RentalsService {
         BookItem bookItem = bookItemService.getBookItemById(bookItemId);
         Long bookId = bookItem.getBook().getId();
 
-        if (!bookQueueService.canUserBorrowBook(userId, bookId)) {
+        QueueState queueState = bookQueueService.getQueueState(bookId);
+        if (!queueState.canBorrow(userId)) {
             throw new BookItemNotAvailableException("Książka jest zarezerwowana dla pierwszej osoby w kolejce. Musisz zaczekać w kolejce.");
         }
 
-        bookQueueService.removeUserFromNotifiedQueue(userId, bookId);
+        bookQueueService.removeUserFromNotifiedQueue(userId, queueState);
 
         // Create rental record
         Rentals rental = new Rentals();
@@ -70,7 +75,10 @@ public class RentalsService {
 
         bookItemService.markAsRented(bookItemId);
 
-        return rentalRepository.save(rental);
+        Rentals savedRental = rentalRepository.save(rental);
+        rentalRollupService.recordRental(bookId, userId, savedRental.getStartDate());
+        eventPublisher.publishEvent(new BookRentedEvent(savedRental.getId(), userId, bookId, savedRental.getStartDate()));
+        return savedRental;
     }
 
     @Transactional // 1. Zapewnia atomowość operacji
@@ -78,7 +86,8 @@ public class RentalsService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (!bookQueueService.canUserBorrowBook(userId, bookId)) {
+        QueueState queueState = bookQueueService.getQueueState(bookId);
+        if (!queueState.canBorrow(userId)) {
             throw new BookItemNotAvailableException("Książka jest zarezerwowana...");
         }
 
@@ -87,7 +96,7 @@ public class RentalsService {
                 .findFirst()
                 .orElseThrow(() -> new BookItemNotAvailableException("Brak dostępnych egzemplarzy"));
 
-        bookQueueService.removeUserFromNotifiedQueue(userId, bookId);
+        bookQueueService.removeUserFromNotifiedQueue(userId, queueState);
 
         Rentals rental = new Rentals();
         rental.setUser(user);
@@ -98,6 +107,8 @@ public class RentalsService {
 
         bookItemService.markAsRented(bookItem.getId());
         Rentals savedRental = rentalRepository.save(rental);
+        rentalRollupService.recordRental(bookId, userId, savedRental.getStartDate());
+        eventPublisher.publishEvent(new BookRentedEvent(savedRental.getId(), userId, bookId, savedRental.getStartDate()));
 
         return savedRental;
     }
@@ -112,6 +123,8 @@ public class RentalsService {
         rental.setStatus("RETURNED");
         rental.setEndDate(LocalDate.now());
         rentalRepository.save(rental);
+        eventPublisher.publishEvent(new BookReturnedEvent(rental.getId(), rental.getUser().getId(), bookId,
+                rental.getEndDate()));
 
         bookItemService.markAsAvailable(rental.getBookItem().getId());
 
@@ -159,8 +172,6 @@ public class RentalsService {
 
     @Transactional
     public void prolongBookReservation(User user, Long bookId) {
-        Book book = bookService.getBookById(bookId);
-
         Rentals bookRental = rentalRepository.findByUserAndStatus(user, "ACTIVE").stream()
                 .filter(rental -> Objects.equals(rental.getBookItem().getBook().getId(), bookId))
                 .findAny()
@@ -170,25 +181,11 @@ public class RentalsService {
             throw new RentalCantBeProlongedException("Nie można przedłużyć rezerwacji. Ta rezerwacja już była przedłużona.");
         }
 
-        if (bookQueueService.isQueueEmpty(book)) {
+        if (!bookQueueService.getQueueState(bookId).hasWaiting()) {
             extendRental(bookRental.getId(), 14);
             bookRental.setHasBeenProlonged(true);
         } else {
             throw new RentalCantBeProlongedException("Nie można przedłużyć rezerwacji. Ktoś czeka na ten egzemplarz.");
         }
     }
-
-    public List<BooksBorrowedByUserDTO> getBooksBorrowedPerUser() {
-        return rentalRepository.getBooksBorrowedPerUser();
-    }
-
-    public List<BookRentalsDTO> getTimesRentedPerBook() {
-        return rentalRepository.getTimesRentedPerBook();
-    }
-
-    public List<BookRentalsDTO> getTimesRentedPerBookThisYear() {
-        LocalDate start = LocalDate.now().withDayOfYear(1);
-        LocalDate end = LocalDate.now().withDayOfYear(356);
-        return rentalRepository.getTimesRentedPerBookBetweenDates(start, end);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package pl.agh.edu.libraryapp.reports;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import pl.agh.edu.libraryapp.user.User;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// Zlecenie -> 202 ze statusem, potem polling GET /reports/{id} aż state=DONE i pobranie /reports/{id}/download
+@RestController
+@RequestMapping("/reports")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReportController {
+
+    private final ReportService reportService;
+
+    public ReportController(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestBody ReportRequest request, @AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportService.submit(request, user.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ReportQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public List<ReportStatus> getAll() {
+        return reportService.getAll();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getStatus(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(reportService.getStatus(id));
+        } catch (ReportNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<?> download(@PathVariable String id) {
+        try {
+            ReportStatus status = reportService.getStatus(id);
+            Path file = reportService.getFile(id);
+            String filename = status.type().name().toLowerCase() + "-" + id + "." + status.format().extension();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(status.format().contentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                    .body(new FileSystemResource(file));
+        } catch (ReportNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancel(@PathVariable String id) {
+        try {
+            reportService.cancel(id);
+            return ResponseEntity.noContent().build();
+        } catch (ReportNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+}
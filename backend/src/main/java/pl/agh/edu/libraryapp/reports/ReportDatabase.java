@@ -0,0 +1,76 @@
+package pl.agh.edu.libraryapp.reports;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/*
+ * Własna, mała pula połączeń raportów - długie zapytania kursorem nie zajmują połączeń puli obsługującej żądania.
+ * Bez reports.datasource.url łączy się z tą samą bazą co aplikacja. Celowo nie jest beanem DataSource,
+ * żeby nie wyłączyć autokonfiguracji głównego źródła danych; połączenia otwierane dopiero przy pierwszym raporcie.
+ */
+@Component
+class ReportDatabase {
+
+    private final HikariDataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    ReportDatabase(@Value("${reports.datasource.url:${spring.datasource.url}}") String url,
+                   @Value("${reports.datasource.username:${spring.datasource.username:}}") String username,
+                   @Value("${reports.datasource.password:${spring.datasource.password:}}") String password,
+                   @Value("${reports.datasource.maximum-pool-size:${reports.max-concurrent:2}}") int maximumPoolSize,
+                   @Value("${reports.fetch-size:1000}") int fetchSize,
+                   @Value("${reports.query-timeout:PT10M}") Duration queryTimeout) {
+        this.dataSource = new HikariDataSource();
+        dataSource.setPoolName("reports");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setMinimumIdle(0);
+        dataSource.setReadOnly(true);
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.setFetchSize(fetchSize);
+        jdbc.setQueryTimeout((int) queryTimeout.toSeconds());
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbc);
+        // Kursor z fetch-size działa w PostgreSQL tylko w transakcji (bez autocommit)
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout((int) queryTimeout.toSeconds());
+    }
+
+    void inTransaction(Runnable work) {
+        transactionTemplate.executeWithoutResult(_ -> work.run());
+    }
+
+    // Strumień trzeba zamknąć; wiersz to wartości kolumn w kolejności z SELECT
+    Stream<Object[]> stream(String sql, Map<String, ?> parameters) {
+        return jdbcTemplate.queryForStream(sql, parameters, ReportDatabase::toRow);
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+
+    private static Object[] toRow(ResultSet resultSet, int rowNumber) throws SQLException {
+        Object[] row = new Object[resultSet.getMetaData().getColumnCount()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = resultSet.getObject(i + 1);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,105 @@
+package pl.agh.edu.libraryapp.reports;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Zapis wiersz po wierszu do pliku - żaden format nie wymaga trzymania całego raportu w pamięci
+public enum ReportFormat {
+
+    CSV("text/csv", "csv") {
+        @Override
+        void writeHeader(Writer out, String[] columns) throws IOException {
+            out.write(String.join(",", columns));
+            out.write('\n');
+        }
+
+        @Override
+        void writeRow(Writer out, String[] columns, Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                if (values[i] != null) {
+                    out.write(csv(values[i].toString()));
+                }
+            }
+            out.write('\n');
+        }
+    },
+
+    // Jeden obiekt JSON na linię, klucze = nazwy kolumn
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        void writeHeader(Writer out, String[] columns) {
+        }
+
+        @Override
+        void writeRow(Writer out, String[] columns, Object[] values) throws IOException {
+            out.write('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(json(columns[i]));
+                out.write(':');
+                if (values[i] == null) {
+                    out.write("null");
+                } else if (values[i] instanceof Number) {
+                    out.write(values[i].toString());
+                } else {
+                    out.write(json(values[i].toString()));
+                }
+            }
+            out.write("}\n");
+        }
+    };
+
+    private final String contentType;
+    private final String extension;
+
+    ReportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    abstract void writeHeader(Writer out, String[] columns) throws IOException;
+
+    abstract void writeRow(Writer out, String[] columns, Object[] values) throws IOException;
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.append('"').toString();
+    }
+}
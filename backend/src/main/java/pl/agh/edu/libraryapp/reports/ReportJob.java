@@ -0,0 +1,38 @@
+package pl.agh.edu.libraryapp.reports;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+
+// Stan jednego zlecenia; pisze tylko wątek raportu, odczyty (polling) widzą pola przez volatile
+class ReportJob {
+
+    final String id;
+    final ReportRequest request;
+    final Long requestedBy;
+    final LocalDateTime submittedAt = LocalDateTime.now();
+
+    volatile ReportState state = ReportState.QUEUED;
+    volatile Future<?> future;
+    volatile Path file;
+    volatile long rows;
+    volatile long bytes;
+    volatile LocalDateTime startedAt;
+    volatile LocalDateTime finishedAt;
+    volatile String error;
+
+    ReportJob(String id, ReportRequest request, Long requestedBy) {
+        this.id = id;
+        this.request = request;
+        this.requestedBy = requestedBy;
+    }
+
+    boolean finished() {
+        return state == ReportState.DONE || state == ReportState.FAILED || state == ReportState.CANCELLED;
+    }
+
+    ReportStatus status() {
+        return new ReportStatus(id, request.type(), request.format(), state, requestedBy, rows, bytes,
+                submittedAt, startedAt, finishedAt, error);
+    }
+}
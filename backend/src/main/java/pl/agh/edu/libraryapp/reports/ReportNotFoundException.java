@@ -0,0 +1,7 @@
+package pl.agh.edu.libraryapp.reports;
+
+public class ReportNotFoundException extends RuntimeException {
+    public ReportNotFoundException(String message) {
+        super(message);
+    }
+}
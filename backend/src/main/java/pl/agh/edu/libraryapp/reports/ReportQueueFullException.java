@@ -0,0 +1,7 @@
+package pl.agh.edu.libraryapp.reports;
+
+public class ReportQueueFullException extends RuntimeException {
+    public ReportQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package pl.agh.edu.libraryapp.reports;
+
+import java.time.LocalDate;
+
+// categoryId tylko dla CIRCULATION_BY_CATEGORY; brak dat = cała historia (utilization: ostatni rok)
+public record ReportRequest(ReportType type, ReportFormat format, Long categoryId, LocalDate from, LocalDate to) {
+}
@@ -0,0 +1,309 @@
+package pl.agh.edu.libraryapp.reports;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/*
+ * Raporty w tle: zlecenie trafia do własnej, ograniczonej puli (max-concurrent naraz, queue-capacity w kolejce,
+ * nadmiar odrzucany), wynik jest strumieniowany z bazy kursorem (fetch-size) prosto do pliku tymczasowego,
+ * a klient odpytuje status i pobiera plik. Zapytania idą przez własną pulę połączeń (ReportDatabase),
+ * w transakcji tylko do odczytu z limitem czasu, więc raporty nie zabierają połączeń ruchowi interaktywnemu.
+ */
+@Service
+@Slf4j
+public class ReportService {
+
+    private static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+    private static final int PROGRESS_EVERY = 1000;
+
+    private static final String[] CIRCULATION_COLUMNS = {"category_id", "category", "rental_id", "book_id", "title",
+            "book_item_id", "user_id", "start_date", "end_date", "status"};
+    private static final String CIRCULATION_SQL = """
+            SELECT bc.category_id, c.name, r.id, b.id, b.title, r.book_item_id, r.user_id, r.start_date, r.end_date, r.status
+            FROM rentals r
+            JOIN book_item bi ON bi.id = r.book_item_id
+            JOIN book b ON b.id = bi.book_id
+            JOIN book_category bc ON bc.book_id = b.id
+            JOIN category c ON c.id = bc.category_id
+            WHERE r.start_date BETWEEN :from AND :to %s
+            ORDER BY bc.category_id, r.start_date, r.id
+            """;
+
+    private static final String[] UTILIZATION_COLUMNS = {"book_item_id", "book_id", "title", "isbn", "rentals",
+            "rented_days", "window_days", "utilization"};
+    // Wypożyczenia nachodzące na okno; egzemplarz bez nich też trafia do raportu (LEFT JOIN) z zerowym wykorzystaniem
+    private static final String UTILIZATION_SQL = """
+            SELECT bi.id, b.id, b.title, bi.isbn, r.start_date, r.end_date, r.status
+            FROM book_item bi
+            JOIN book b ON b.id = bi.book_id
+            LEFT JOIN rentals r ON r.book_item_id = bi.id AND r.start_date <= :to AND r.end_date >= :from
+            ORDER BY bi.id, r.start_date
+            """;
+
+    private final ReportDatabase database;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final Duration retention;
+
+    public ReportService(ReportDatabase database,
+                         @Value("${reports.max-concurrent:2}") int maxConcurrent,
+                         @Value("${reports.queue-capacity:10}") int queueCapacity,
+                         @Value("${reports.directory:${java.io.tmpdir}/libraryapp-reports}") Path directory,
+                         @Value("${reports.retention:PT24H}") Duration retention) {
+        this.database = database;
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofVirtual().name("report-job-", 0).factory());
+        this.directory = directory;
+        this.retention = retention;
+    }
+
+    public ReportStatus submit(ReportRequest request, Long requestedBy) {
+        if (request.type() == null) {
+            throw new IllegalArgumentException("Report type is required");
+        }
+        if (request.from() != null && request.to() != null && request.from().isAfter(request.to())) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (request.categoryId() != null && request.type() != ReportType.CIRCULATION_BY_CATEGORY) {
+            throw new IllegalArgumentException("categoryId applies only to " + ReportType.CIRCULATION_BY_CATEGORY);
+        }
+        ReportRequest normalized = new ReportRequest(request.type(),
+                request.format() == null ? ReportFormat.CSV : request.format(),
+                request.categoryId(), request.from(), request.to());
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), normalized, requestedBy);
+        jobs.put(job.id, job);
+        try {
+            job.future = executor.submit(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ReportQueueFullException("Too many reports in progress, try again later");
+        }
+        log.info("Report {} ({}, {}) queued by user {}", job.id, normalized.type(), normalized.format(), requestedBy);
+        return job.status();
+    }
+
+    public ReportStatus getStatus(String id) {
+        return find(id).status();
+    }
+
+    public List<ReportStatus> getAll() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((ReportJob job) -> job.submittedAt).reversed())
+                .map(ReportJob::status)
+                .toList();
+    }
+
+    // Plik gotowego raportu; IllegalStateException dopóki raport się nie zakończył powodzeniem
+    public Path getFile(String id) {
+        ReportJob job = find(id);
+        if (job.state != ReportState.DONE) {
+            throw new IllegalStateException("Report " + id + " is " + job.state);
+        }
+        return job.file;
+    }
+
+    public void cancel(String id) {
+        ReportJob job = find(id);
+        synchronized (job) {
+            if (!job.finished()) {
+                job.state = ReportState.CANCELLED;
+                job.finishedAt = LocalDateTime.now();
+            }
+        }
+        if (job.future != null) {
+            job.future.cancel(true);
+        }
+        jobs.remove(id);
+        deleteFile(job);
+    }
+
+    @Scheduled(fixedDelayString = "${reports.cleanup-interval:PT10M}")
+    public void removeExpired() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        for (ReportJob job : jobs.values()) {
+            if (job.finished() && job.finishedAt != null && job.finishedAt.isBefore(threshold)) {
+                jobs.remove(job.id);
+                deleteFile(job);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        jobs.values().forEach(this::deleteFile);
+    }
+
+    void run(ReportJob job) {
+        synchronized (job) {
+            if (job.state != ReportState.QUEUED) {
+                return;
+            }
+            job.state = ReportState.RUNNING;
+            job.startedAt = LocalDateTime.now();
+        }
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            job.file = Files.createTempFile(directory, "report-", "." + job.request.format().extension());
+            try (Writer out = Files.newBufferedWriter(job.file, StandardCharsets.UTF_8)) {
+                database.inTransaction(() -> write(job, out));
+            }
+            job.bytes = Files.size(job.file);
+            synchronized (job) {
+                if (job.state == ReportState.RUNNING) {
+                    job.state = ReportState.DONE;
+                    job.finishedAt = LocalDateTime.now();
+                }
+            }
+            log.info("Report {} finished in {} ms: {} rows, {} bytes", job.id,
+                    (System.nanoTime() - start) / 1_000_000, job.rows, job.bytes);
+        } catch (IOException | RuntimeException e) {
+            synchronized (job) {
+                if (job.state == ReportState.RUNNING) {
+                    job.state = ReportState.FAILED;
+                    job.error = e.getMessage();
+                    job.finishedAt = LocalDateTime.now();
+                }
+            }
+            if (job.state != ReportState.CANCELLED) {
+                log.error("Report {} failed after {} rows", job.id, job.rows, e);
+            }
+            deleteFile(job);
+        }
+    }
+
+    private void write(ReportJob job, Writer out) {
+        try {
+            switch (job.request.type()) {
+                case CIRCULATION_BY_CATEGORY -> writeCirculation(job, out);
+                case COPY_UTILIZATION -> writeUtilization(job, out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCirculation(ReportJob job, Writer out) throws IOException {
+        ReportRequest request = job.request;
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("from", request.from() == null ? MIN_DATE : request.from());
+        parameters.put("to", request.to() == null ? MAX_DATE : request.to());
+        if (request.categoryId() != null) {
+            parameters.put("categoryId", request.categoryId());
+        }
+        ReportFormat format = request.format();
+        format.writeHeader(out, CIRCULATION_COLUMNS);
+        try (Stream<Object[]> rows = database.stream(CIRCULATION_SQL.formatted(
+                request.categoryId() == null ? "" : "AND bc.category_id = :categoryId"), parameters)) {
+            for (Iterator<Object[]> iterator = rows.iterator(); iterator.hasNext(); ) {
+                Object[] row = iterator.next();
+                row[7] = toLocalDate(row[7]);
+                row[8] = toLocalDate(row[8]);
+                format.writeRow(out, CIRCULATION_COLUMNS, row);
+                progress(job);
+            }
+        }
+    }
+
+    // Wiersze posortowane po egzemplarzu, więc agregat to tylko bieżący egzemplarz - pamięć stała niezależnie od historii
+    private void writeUtilization(ReportJob job, Writer out) throws IOException {
+        ReportRequest request = job.request;
+        LocalDate today = LocalDate.now();
+        LocalDate to = request.to() == null ? today : request.to();
+        LocalDate from = request.from() == null ? to.minusYears(1).plusDays(1) : request.from();
+        long windowDays = ChronoUnit.DAYS.between(from, to) + 1;
+        ReportFormat format = request.format();
+        format.writeHeader(out, UTILIZATION_COLUMNS);
+        Object[] copy = null;
+        long rentals = 0;
+        long rentedDays = 0;
+        try (Stream<Object[]> rows = database.stream(UTILIZATION_SQL, Map.of("from", from, "to", to))) {
+            for (Iterator<Object[]> iterator = rows.iterator(); iterator.hasNext(); ) {
+                Object[] row = iterator.next();
+                if (copy == null || !copy[0].equals(row[0])) {
+                    if (copy != null) {
+                        writeUtilizationRow(format, out, copy, rentals, rentedDays, windowDays);
+                        progress(job);
+                    }
+                    copy = row;
+                    rentals = 0;
+                    rentedDays = 0;
+                }
+                LocalDate startDate = toLocalDate(row[4]);
+                if (startDate == null) {
+                    continue;
+                }
+                // end_date aktywnego wypożyczenia to termin zwrotu - egzemplarz jest zajęty do dziś
+                LocalDate held = "RETURNED".equals(row[6]) && row[5] != null ? toLocalDate(row[5]) : today;
+                LocalDate first = startDate.isBefore(from) ? from : startDate;
+                LocalDate last = held.isAfter(to) ? to : held;
+                rentals++;
+                rentedDays += Math.max(0, ChronoUnit.DAYS.between(first, last) + 1);
+            }
+        }
+        if (copy != null) {
+            writeUtilizationRow(format, out, copy, rentals, rentedDays, windowDays);
+            progress(job);
+        }
+    }
+
+    private static void writeUtilizationRow(ReportFormat format, Writer out, Object[] copy, long rentals,
+                                            long rentedDays, long windowDays) throws IOException {
+        long days = Math.min(rentedDays, windowDays);
+        format.writeRow(out, UTILIZATION_COLUMNS, new Object[]{copy[0], copy[1], copy[2], copy[3], rentals, days,
+                windowDays, Math.round(10_000.0 * days / windowDays) / 10_000.0});
+    }
+
+    private static void progress(ReportJob job) {
+        if (++job.rows % PROGRESS_EVERY == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Report " + job.id + " cancelled");
+        }
+    }
+
+    private ReportJob find(String id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ReportNotFoundException("Report " + id + " not found");
+        }
+        return job;
+    }
+
+    private void deleteFile(ReportJob job) {
+        if (job.file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(job.file);
+        } catch (IOException e) {
+            log.warn("Could not delete report file {}", job.file, e);
+        }
+    }
+
+    // Sterownik zwraca DATE jako java.sql.Date albo LocalDate zależnie od bazy
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+}
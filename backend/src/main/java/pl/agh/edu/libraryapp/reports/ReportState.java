@@ -0,0 +1,9 @@
+package pl.agh.edu.libraryapp.reports;
+
+public enum ReportState {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,8 @@
+package pl.agh.edu.libraryapp.reports;
+
+import java.time.LocalDateTime;
+
+public record ReportStatus(String id, ReportType type, ReportFormat format, ReportState state, Long requestedBy,
+                           long rows, long bytes, LocalDateTime submittedAt, LocalDateTime startedAt,
+                           LocalDateTime finishedAt, String error) {
+}
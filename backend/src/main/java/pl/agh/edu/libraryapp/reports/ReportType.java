@@ -0,0 +1,8 @@
+package pl.agh.edu.libraryapp.reports;
+
+public enum ReportType {
+    // Pełna historia wypożyczeń w podziale na kategorie (książka w kilku kategoriach pojawia się w każdej z nich)
+    CIRCULATION_BY_CATEGORY,
+    // Wykorzystanie każdego egzemplarza: dni wypożyczenia w oknie from..to
+    COPY_UTILIZATION
+}
@@ -0,0 +1,36 @@
+package pl.agh.edu.libraryapp.review;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// Zagregowane oceny książki utrzymywane przy zapisie opinii - bez AVG/COUNT przy każdym odczycie
+@Entity
+@Table(name = "review_aggregate")
+@Getter
+@NoArgsConstructor
+public class ReviewAggregate {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(nullable = false)
+    private long reviewCount;
+
+    @Column(nullable = false)
+    private long ratingSum;
+
+    public ReviewAggregate(Long bookId, long reviewCount, long ratingSum) {
+        this.bookId = bookId;
+        this.reviewCount = reviewCount;
+        this.ratingSum = ratingSum;
+    }
+
+    public double getAverageRating() {
+        return reviewCount == 0 ? 0.0 : (double) ratingSum / reviewCount;
+    }
+}
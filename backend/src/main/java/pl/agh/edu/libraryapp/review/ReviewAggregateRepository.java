@@ -0,0 +1,38 @@
+package pl.agh.edu.libraryapp.review;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ReviewAggregateRepository extends JpaRepository<ReviewAggregate, Long> {
+
+    @Modifying
+    @Query("""
+            UPDATE ReviewAggregate a
+            SET a.reviewCount = a.reviewCount + :countDelta, a.ratingSum = a.ratingSum + :ratingDelta
+            WHERE a.bookId = :bookId
+            """)
+    int applyDelta(@Param("bookId") Long bookId, @Param("countDelta") long countDelta, @Param("ratingDelta") long ratingDelta);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            INSERT INTO ReviewAggregate (bookId, reviewCount, ratingSum)
+            SELECT r.book.id, COUNT(r), SUM(r.rating) FROM Review r
+            WHERE NOT EXISTS (SELECT 1 FROM ReviewAggregate a WHERE a.bookId = r.book.id)
+            GROUP BY r.book.id
+            ON CONFLICT DO NOTHING
+            """)
+    int insertMissing();
+
+    // Wiersz jednej książki liczony z review (z bieżącą zmianą po flushu); 0, gdy inna transakcja wstawiła go pierwsza
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            INSERT INTO ReviewAggregate (bookId, reviewCount, ratingSum)
+            SELECT r.book.id, COUNT(r), SUM(r.rating) FROM Review r
+            WHERE r.book.id = :bookId
+            GROUP BY r.book.id
+            ON CONFLICT DO NOTHING
+            """)
+    int insertForBook(@Param("bookId") Long bookId);
+}
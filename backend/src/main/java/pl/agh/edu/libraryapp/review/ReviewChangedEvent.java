@@ -0,0 +1,5 @@
+package pl.agh.edu.libraryapp.review;
+
+// oldRating == null - nowa opinia, newRating == null - opinia usunięta
+public record ReviewChangedEvent(Long bookId, Long userId, Integer oldRating, Integer newRating) {
+}
@@ -1,14 +1,13 @@
 package pl.agh.edu.libraryapp.review;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import pl.agh.edu.libraryapp.user.User;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/book/{bookId}/reviews")
@@ -21,17 +20,17 @@ public class ReviewController {
     }
 
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getReviewsByBook(@PathVariable Long bookId) {
-        List<Review> reviews = reviewService.getReviewsByBookId(bookId);
-        Double averageRating = reviewService.getAverageRating(bookId);
-        Long reviewCount = reviewService.getReviewCount(bookId);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("reviews", reviews);
-        response.put("averageRating", averageRating);
-        response.put("reviewCount", reviewCount);
+    public ResponseEntity<ReviewPage> getReviewsByBook(
+            @PathVariable Long bookId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(reviewService.getReviewPage(bookId, before, beforeId, size));
+    }
 
-        return ResponseEntity.ok(response);
+    @GetMapping("/summary")
+    public ResponseEntity<ReviewSummary> getReviewSummary(@PathVariable Long bookId) {
+        return ResponseEntity.ok(reviewService.getSummary(bookId));
     }
 
     @PostMapping
@@ -0,0 +1,7 @@
+package pl.agh.edu.libraryapp.review;
+
+import java.time.LocalDateTime;
+
+public record ReviewDto(Long id, Long userId, String reviewerName, Integer rating, String description,
+                        LocalDateTime createdAt) {
+}
@@ -0,0 +1,8 @@
+package pl.agh.edu.libraryapp.review;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ReviewPage(List<ReviewDto> reviews, double averageRating, long reviewCount,
+                         LocalDateTime nextBefore, Long nextBeforeId) {
+}
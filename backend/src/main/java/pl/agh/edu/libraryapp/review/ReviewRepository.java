@@ -1,12 +1,17 @@
 package pl.agh.edu.libraryapp.review;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
@@ -18,4 +23,59 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     Double getAverageRatingByBookId(@Param("bookId") Long bookId);
     
     Long countByBookId(Long bookId);
+
+    // Strumień - trening ALS przepisuje wiersze wprost do tablic, bez listy wszystkich opinii w pamięci
+    @Query("SELECT r.user.id, r.book.id, r.rating FROM Review r")
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    Stream<Object[]> streamAllUserBookRatings();
+
+    @Query("SELECT r.user.id, r.book.id, r.rating FROM Review r WHERE r.createdAt < :before")
+    List<Object[]> findUserBookRatingsBefore(@Param("before") LocalDateTime before);
+
+    @Query("""
+            SELECT r.book.id, CAST(r.createdAt AS LocalDate), COUNT(r) FROM Review r
+            WHERE r.createdAt >= :from AND r.createdAt < :to
+            GROUP BY r.book.id, CAST(r.createdAt AS LocalDate)
+            """)
+    List<Object[]> countReviewsPerBookAndDayBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(r.createdAt) FROM Review r")
+    LocalDateTime findEarliestCreatedAt();
+
+    @Query("SELECT r.book.id, r.description FROM Review r WHERE r.description IS NOT NULL")
+    List<Object[]> findAllBookDescriptions();
+
+    @Query("SELECT r.description FROM Review r WHERE r.book.id = :bookId AND r.description IS NOT NULL")
+    List<String> findDescriptionsByBookId(@Param("bookId") Long bookId);
+
+    @Query("""
+            SELECT new pl.agh.edu.libraryapp.review.ReviewDto(r.id, u.id, CONCAT(u.firstName, ' ', u.lastName),
+                   r.rating, r.description, r.createdAt)
+            FROM Review r JOIN r.user u
+            WHERE r.book.id = :bookId
+            ORDER BY r.createdAt DESC, r.id DESC
+            """)
+    List<ReviewDto> findPage(@Param("bookId") Long bookId, Pageable pageable);
+
+    @Query("""
+            SELECT new pl.agh.edu.libraryapp.review.ReviewDto(r.id, u.id, CONCAT(u.firstName, ' ', u.lastName),
+                   r.rating, r.description, r.createdAt)
+            FROM Review r JOIN r.user u
+            WHERE r.book.id = :bookId
+              AND (r.createdAt < :before OR (r.createdAt = :before AND r.id < :beforeId))
+            ORDER BY r.createdAt DESC, r.id DESC
+            """)
+    List<ReviewDto> findPageBefore(@Param("bookId") Long bookId,
+                                   @Param("before") LocalDateTime before,
+                                   @Param("beforeId") Long beforeId,
+                                   Pageable pageable);
+
+    @Query("""
+            SELECT new pl.agh.edu.libraryapp.review.ReviewDto(r.id, u.id, CONCAT(u.firstName, ' ', u.lastName),
+                   r.rating, r.description, r.createdAt)
+            FROM Review r JOIN r.user u
+            WHERE r.book.id = :bookId AND u.id = :userId
+            """)
+    Optional<ReviewDto> findDtoByBookIdAndUserId(@Param("bookId") Long bookId, @Param("userId") Long userId);
 }
@@ -1,5 +1,8 @@
 package pl.agh.edu.libraryapp.review;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.agh.edu.libraryapp.book.Book;
@@ -9,6 +12,7 @@ import pl.agh.edu.libraryapp.user.User;
 import pl.agh.edu.libraryapp.user.UserNotFoundException;
 import pl.agh.edu.libraryapp.user.UserRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,14 +20,22 @@ import java.util.Optional;
 @Transactional
 public class ReviewService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ReviewRepository reviewRepository;
+    private final ReviewAggregateRepository reviewAggregateRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ReviewService(ReviewRepository reviewRepository, BookRepository bookRepository, UserRepository userRepository) {
+    public ReviewService(ReviewRepository reviewRepository, ReviewAggregateRepository reviewAggregateRepository,
+                         BookRepository bookRepository, UserRepository userRepository,
+                         ApplicationEventPublisher eventPublisher) {
         this.reviewRepository = reviewRepository;
+        this.reviewAggregateRepository = reviewAggregateRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public Review createReview(Long bookId, Long userId, Integer rating, String description) {
@@ -39,25 +51,58 @@ public class ReviewService {
             throw new IllegalStateException("User has already reviewed this book");
         }
 
-        Review review = new Review(rating, description, book, user);
-        return reviewRepository.save(review);
+        Review review = reviewRepository.save(new Review(rating, description, book, user));
+        applyToAggregate(bookId, 1, rating);
+        eventPublisher.publishEvent(new ReviewChangedEvent(bookId, userId, null, rating));
+        return review;
+    }
+
+    @Transactional(readOnly = true)
+    public ReviewPage getReviewPage(Long bookId, LocalDateTime before, Long beforeId, int size) {
+        Pageable page = PageRequest.of(0, Math.clamp(size, 1, MAX_PAGE_SIZE));
+        List<ReviewDto> reviews = before == null || beforeId == null
+                ? reviewRepository.findPage(bookId, page)
+                : reviewRepository.findPageBefore(bookId, before, beforeId, page);
+
+        ReviewSummary summary = getSummary(bookId);
+        if (reviews.size() < page.getPageSize()) {
+            return new ReviewPage(reviews, summary.averageRating(), summary.reviewCount(), null, null);
+        }
+        ReviewDto last = reviews.getLast();
+        return new ReviewPage(reviews, summary.averageRating(), summary.reviewCount(), last.createdAt(), last.id());
     }
 
-    public List<Review> getReviewsByBookId(Long bookId) {
-        return reviewRepository.findByBookIdOrderByCreatedAtDesc(bookId);
+    @Transactional(readOnly = true)
+    public ReviewSummary getSummary(Long bookId) {
+        return reviewAggregateRepository.findById(bookId)
+                .map(aggregate -> new ReviewSummary(aggregate.getAverageRating(), aggregate.getReviewCount()))
+                .orElse(ReviewSummary.EMPTY);
     }
 
     public Double getAverageRating(Long bookId) {
-        Double average = reviewRepository.getAverageRatingByBookId(bookId);
-        return average != null ? average : 0.0;
+        return getSummary(bookId).averageRating();
     }
 
     public Long getReviewCount(Long bookId) {
-        return reviewRepository.countByBookId(bookId);
+        return getSummary(bookId).reviewCount();
     }
 
-    public Optional<Review> getUserReviewForBook(Long bookId, Long userId) {
-        return reviewRepository.findByBookIdAndUserId(bookId, userId);
+    @Transactional(readOnly = true)
+    public Optional<ReviewDto> getUserReviewForBook(Long bookId, Long userId) {
+        return reviewRepository.findDtoByBookIdAndUserId(bookId, userId);
+    }
+
+    // Uzupełnia agregaty dla książek, które mają opinie, a nie mają jeszcze wiersza (np. po seedowaniu)
+    public int initMissingAggregates() {
+        return reviewAggregateRepository.insertMissing();
+    }
+
+    private void applyToAggregate(Long bookId, long countDelta, long ratingDelta) {
+        if (reviewAggregateRepository.applyDelta(bookId, countDelta, ratingDelta) == 0
+                && reviewAggregateRepository.insertForBook(bookId) == 0) {
+            // Wiersz wstawiła równoległa transakcja bez naszej zmiany - dokładamy ją
+            reviewAggregateRepository.applyDelta(bookId, countDelta, ratingDelta);
+        }
     }
 
     public void deleteReview(Long reviewId, Long userId, boolean isAdmin) {
@@ -69,7 +114,10 @@ public class ReviewService {
             throw new IllegalStateException("You can only delete your own reviews");
         }
         
-        reviewRepository.deleteById(reviewId);
+        reviewRepository.delete(review);
+        applyToAggregate(review.getBook().getId(), -1, -review.getRating());
+        eventPublisher.publishEvent(new ReviewChangedEvent(review.getBook().getId(), review.getUser().getId(),
+                review.getRating(), null));
     }
 
     public Review updateReview(Long reviewId, Long userId, boolean isAdmin, Integer rating, String description) {
@@ -81,9 +129,14 @@ public class ReviewService {
             throw new IllegalStateException("You can only update your own reviews");
         }
         
+        int oldRating = review.getRating();
         review.setRating(rating);
         review.setDescription(description);
         
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        applyToAggregate(saved.getBook().getId(), 0, rating - oldRating);
+        eventPublisher.publishEvent(new ReviewChangedEvent(saved.getBook().getId(), saved.getUser().getId(),
+                oldRating, rating));
+        return saved;
     }
 }
@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.review;
+
+public record ReviewSummary(double averageRating, long reviewCount) {
+
+    static final ReviewSummary EMPTY = new ReviewSummary(0.0, 0);
+}
@@ -0,0 +1,106 @@
+package pl.agh.edu.libraryapp.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import pl.agh.edu.libraryapp.book.repositories.BookRepository;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+import pl.agh.edu.libraryapp.review.ReviewRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/*
+ * Uzupełnia activity_daily dla dni sprzed startu z danych źródłowych: wypożyczenia, zwroty i opinie.
+ * Przeterminowania i wejścia do kolejki nie zostawiają daty w bazie, więc liczą się od wdrożenia.
+ * Tylko dni przed dzisiejszym - dzisiejsze liczniki zapisuje ActivityRecorder, więc backfill nigdy się z nim nie ściga.
+ * Każdy start przelicza te metryki od nowa, więc dzień wdrożenia i dzień restartu są poprawiane przy następnym starcie.
+ */
+@Component
+@Slf4j
+public class ActivityBackfill {
+
+    // Metryki, które da się odtworzyć z danych źródłowych
+    private static final Set<ActivityMetric> DERIVED = EnumSet.of(ActivityMetric.RENTALS, ActivityMetric.RETURNS,
+            ActivityMetric.REVIEWS);
+
+    private final ActivityRollupService activityRollupService;
+    private final RentalsRepository rentalsRepository;
+    private final ReviewRepository reviewRepository;
+    private final BookRepository bookRepository;
+    private final int chunkDays;
+
+    public ActivityBackfill(ActivityRollupService activityRollupService, RentalsRepository rentalsRepository,
+                            ReviewRepository reviewRepository, BookRepository bookRepository,
+                            @Value("${stats.rollup.backfill-chunk-days:31}") int chunkDays) {
+        this.activityRollupService = activityRollupService;
+        this.rentalsRepository = rentalsRepository;
+        this.reviewRepository = reviewRepository;
+        this.bookRepository = bookRepository;
+        this.chunkDays = chunkDays;
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public void backfillOnStartup() {
+        Thread.ofVirtual().name("activity-backfill").start(this::backfill);
+    }
+
+    public void backfill() {
+        LocalDate earliest = earliestActivity();
+        if (earliest == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        int written = 0;
+        try {
+            // Kategorie z bazy, a nie z CategoryBookIndex - ten może się jeszcze budować
+            Map<Long, List<Long>> categoriesByBook = new HashMap<>();
+            for (Object[] row : bookRepository.findAllCategoryBookPairs()) {
+                categoriesByBook.computeIfAbsent((Long) row[1], _ -> new ArrayList<>()).add((Long) row[0]);
+            }
+            for (LocalDate from = earliest; from.isBefore(today); from = from.plusDays(chunkDays)) {
+                LocalDate to = from.plusDays(chunkDays).isAfter(today) ? today : from.plusDays(chunkDays);
+                Map<ActivityDaily.Key, Long> counts = new HashMap<>();
+                addCounts(counts, ActivityMetric.RENTALS, rentalsRepository.countRentalsPerBookAndDayBetween(from, to),
+                        categoriesByBook);
+                addCounts(counts, ActivityMetric.RETURNS, rentalsRepository.countReturnsPerBookAndDayBetween(from, to),
+                        categoriesByBook);
+                addCounts(counts, ActivityMetric.REVIEWS,
+                        reviewRepository.countReviewsPerBookAndDayBetween(from.atStartOfDay(), to.atStartOfDay()),
+                        categoriesByBook);
+                written += activityRollupService.replaceCounts(from, to, DERIVED, counts);
+            }
+            log.info("Activity rollups backfilled from {} in {} ms: {} rows written",
+                    earliest, (System.nanoTime() - start) / 1_000_000, written);
+        } catch (RuntimeException e) {
+            log.error("Activity rollup backfill failed after {} rows", written, e);
+        }
+    }
+
+    private LocalDate earliestActivity() {
+        LocalDate rentals = rentalsRepository.findEarliestStartDate();
+        LocalDateTime reviews = reviewRepository.findEarliestCreatedAt();
+        if (reviews == null) {
+            return rentals;
+        }
+        return rentals == null || reviews.toLocalDate().isBefore(rentals) ? reviews.toLocalDate() : rentals;
+    }
+
+    // Wiersze (książka, dzień, liczba) -> liczniki dla całego katalogu i dla każdej kategorii książki
+    private static void addCounts(Map<ActivityDaily.Key, Long> counts, ActivityMetric metric, List<Object[]> rows,
+                                  Map<Long, List<Long>> categoriesByBook) {
+        for (Object[] row : rows) {
+            LocalDate day = (LocalDate) row[1];
+            long count = (Long) row[2];
+            counts.merge(new ActivityDaily.Key(metric, ActivityDaily.ALL_CATEGORIES, day), count, Long::sum);
+            for (Long categoryId : categoriesByBook.getOrDefault((Long) row[0], List.of())) {
+                counts.merge(new ActivityDaily.Key(metric, categoryId, day), count, Long::sum);
+            }
+        }
+    }
+}
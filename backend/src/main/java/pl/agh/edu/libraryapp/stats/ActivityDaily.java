@@ -0,0 +1,51 @@
+package pl.agh.edu.libraryapp.stats;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Dzienny licznik zdarzeń: (metryka, kategoria, dzień); categoryId = ALL_CATEGORIES to suma po całym katalogu.
+// Szereg dla jednej metryki i kategorii to jeden ciągły zakres indeksu.
+@Entity
+@Table(name = "activity_daily", indexes = {
+        @Index(name = "idx_activity_daily_series", columnList = "metric, category_id, activity_date", unique = true)
+})
+@IdClass(ActivityDaily.Key.class)
+@Getter
+@NoArgsConstructor
+public class ActivityDaily {
+
+    public static final long ALL_CATEGORIES = 0L;
+
+    public record Key(ActivityMetric metric, Long categoryId, LocalDate activityDate) {
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private ActivityMetric metric;
+
+    @Id
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Id
+    @Column(name = "activity_date")
+    private LocalDate activityDate;
+
+    @Column(nullable = false)
+    private long events;
+
+    public ActivityDaily(Key key, long events) {
+        this.metric = key.metric();
+        this.categoryId = key.categoryId();
+        this.activityDate = key.activityDate();
+        this.events = events;
+    }
+
+    public Key key() {
+        return new Key(metric, categoryId, activityDate);
+    }
+}
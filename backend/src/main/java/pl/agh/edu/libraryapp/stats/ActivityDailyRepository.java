@@ -0,0 +1,31 @@
+package pl.agh.edu.libraryapp.stats;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ActivityDailyRepository extends JpaRepository<ActivityDaily, ActivityDaily.Key> {
+
+    @Modifying
+    @Query("""
+            UPDATE ActivityDaily d SET d.events = d.events + :delta
+            WHERE d.metric = :metric AND d.categoryId = :categoryId AND d.activityDate = :activityDate
+            """)
+    int applyDelta(@Param("metric") ActivityMetric metric, @Param("categoryId") Long categoryId,
+                   @Param("activityDate") LocalDate activityDate, @Param("delta") long delta);
+
+    @Query("""
+            SELECT d FROM ActivityDaily d
+            WHERE d.metric = :metric AND d.categoryId = :categoryId AND d.activityDate BETWEEN :start AND :end
+            ORDER BY d.activityDate
+            """)
+    List<ActivityDaily> findSeries(@Param("metric") ActivityMetric metric, @Param("categoryId") Long categoryId,
+                                   @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("SELECT d FROM ActivityDaily d WHERE d.activityDate >= :from AND d.activityDate < :to")
+    List<ActivityDaily> findAllBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,9 @@
+package pl.agh.edu.libraryapp.stats;
+
+public enum ActivityMetric {
+    RENTALS,
+    RETURNS,
+    OVERDUES,
+    QUEUE_ENTRIES,
+    REVIEWS
+}
@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.stats;
+
+import java.time.LocalDate;
+
+public record ActivityPoint(LocalDate start, long count) {
+}
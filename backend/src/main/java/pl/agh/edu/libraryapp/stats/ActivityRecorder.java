@@ -0,0 +1,100 @@
+package pl.agh.edu.libraryapp.stats;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.book.index.CategoryBookIndex;
+import pl.agh.edu.libraryapp.bookQueue.QueueEntryEvent;
+import pl.agh.edu.libraryapp.rentals.BookRentedEvent;
+import pl.agh.edu.libraryapp.rentals.BookReturnedEvent;
+import pl.agh.edu.libraryapp.rentals.RentalsOverdueEvent;
+import pl.agh.edu.libraryapp.review.ReviewChangedEvent;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+// Liczniki activity_daily zbierane w pamięci po zatwierdzeniu zdarzeń i zapisywane paczką co flush-interval -
+// zapis biznesowy nie czeka na gorące wiersze liczników. Po awarii procesu ginie najwyżej ostatni interwał;
+// przy zamknięciu liczniki są zapisywane.
+@Component
+@Slf4j
+public class ActivityRecorder {
+
+    private final ActivityRollupService activityRollupService;
+    private final CategoryBookIndex categoryBookIndex;
+
+    private Map<ActivityDaily.Key, Long> pending = new HashMap<>();
+    private final Object flushLock = new Object();
+
+    public ActivityRecorder(ActivityRollupService activityRollupService, CategoryBookIndex categoryBookIndex) {
+        this.activityRollupService = activityRollupService;
+        this.categoryBookIndex = categoryBookIndex;
+    }
+
+    @TransactionalEventListener
+    public void onBookRented(BookRentedEvent event) {
+        record(ActivityMetric.RENTALS, event.bookId(), event.startDate());
+    }
+
+    @TransactionalEventListener
+    public void onBookReturned(BookReturnedEvent event) {
+        record(ActivityMetric.RETURNS, event.bookId(), event.returnDate());
+    }
+
+    @TransactionalEventListener
+    public void onRentalsOverdue(RentalsOverdueEvent event) {
+        event.bookIds().forEach(bookId -> record(ActivityMetric.OVERDUES, bookId, event.day()));
+    }
+
+    @TransactionalEventListener
+    public void onQueueEntry(QueueEntryEvent event) {
+        if (event.kind() == QueueEntryEvent.Kind.ENQUEUED) {
+            record(ActivityMetric.QUEUE_ENTRIES, event.bookId(), LocalDate.now());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (event.oldRating() == null && event.newRating() != null) {
+            record(ActivityMetric.REVIEWS, event.bookId(), LocalDate.now());
+        }
+    }
+
+    public synchronized void record(ActivityMetric metric, long bookId, LocalDate day) {
+        pending.merge(new ActivityDaily.Key(metric, ActivityDaily.ALL_CATEGORIES, day), 1L, Long::sum);
+        for (long categoryId : categoryBookIndex.categoriesOf(bookId)) {
+            pending.merge(new ActivityDaily.Key(metric, categoryId, day), 1L, Long::sum);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Jeden zapisujący naraz, więc INSERT nowego dnia nie ściga się sam ze sobą
+    @Scheduled(fixedDelayString = "${stats.activity.flush-interval:PT10S}")
+    public void flush() {
+        synchronized (flushLock) {
+            Map<ActivityDaily.Key, Long> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+            }
+            try {
+                activityRollupService.apply(batch);
+            } catch (RuntimeException e) {
+                log.warn("Flushing {} activity counters failed, retrying with the next flush", batch.size(), e);
+                synchronized (this) {
+                    batch.forEach((key, delta) -> pending.merge(key, delta, Long::sum));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package pl.agh.edu.libraryapp.stats;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+@Service
+@Transactional
+public class ActivityRollupService {
+
+    private static final int MAX_RANGE_YEARS = 50;
+    private static final int MAX_POINTS = 5000;
+
+    private final ActivityDailyRepository activityDailyRepository;
+
+    public ActivityRollupService(ActivityDailyRepository activityDailyRepository) {
+        this.activityDailyRepository = activityDailyRepository;
+    }
+
+    // Paczka przyrostów z ActivityRecorder - jeden UPDATE na licznik, INSERT tylko dla nowego dnia
+    public void apply(Map<ActivityDaily.Key, Long> deltas) {
+        deltas.forEach((key, delta) -> {
+            if (activityDailyRepository.applyDelta(key.metric(), key.categoryId(), key.activityDate(), delta) == 0) {
+                activityDailyRepository.save(new ActivityDaily(key, delta));
+            }
+        });
+    }
+
+    // Dla backfillu dni [from, to): liczniki podanych metryk dostają dokładne wartości z danych źródłowych - także dzień
+    // wdrożenia i dni restartów, które ActivityRecorder zna tylko częściowo. Korekta idzie przyrostem (UPDATE events +
+    // różnica), więc nie gubi przyrostu zapisanego w międzyczasie; liczniki pozostałych metryk zostają bez zmian
+    public int replaceCounts(LocalDate from, LocalDate to, Set<ActivityMetric> metrics,
+                             Map<ActivityDaily.Key, Long> counts) {
+        Map<ActivityDaily.Key, Long> missing = new HashMap<>(counts);
+        List<ActivityDaily> stale = new ArrayList<>();
+        int corrected = 0;
+        for (ActivityDaily day : activityDailyRepository.findAllBetween(from, to)) {
+            if (!metrics.contains(day.getMetric())) {
+                continue;
+            }
+            Long count = missing.remove(day.key());
+            if (count == null) {
+                stale.add(day);
+            } else if (count != day.getEvents()) {
+                activityDailyRepository.applyDelta(day.getMetric(), day.getCategoryId(), day.getActivityDate(),
+                        count - day.getEvents());
+                corrected++;
+            }
+        }
+        activityDailyRepository.deleteAllInBatch(stale);
+        activityDailyRepository.saveAll(missing.entrySet().stream()
+                .map(entry -> new ActivityDaily(entry.getKey(), entry.getValue()))
+                .toList());
+        return corrected + stale.size() + missing.size();
+    }
+
+    // Jeden skan zakresu indeksu (metryka, kategoria, dzień), reszta w pamięci: kubełki, zera, zagęszczanie
+    @Transactional(readOnly = true)
+    public ActivitySeries series(ActivityMetric metric, Long categoryId, LocalDate start, LocalDate end,
+                                 ActivityGranularity granularity, boolean zeroFill, int maxPoints) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("end must not be before start");
+        }
+        if (ChronoUnit.YEARS.between(start, end) >= MAX_RANGE_YEARS) {
+            throw new IllegalArgumentException("Range must be shorter than " + MAX_RANGE_YEARS + " years");
+        }
+        long category = categoryId != null ? categoryId : ActivityDaily.ALL_CATEGORIES;
+
+        Map<LocalDate, Long> byBucket = new HashMap<>();
+        for (ActivityDaily day : activityDailyRepository.findSeries(metric, category, start, end)) {
+            byBucket.merge(granularity.bucketStart(day.getActivityDate()), day.getEvents(), Long::sum);
+        }
+
+        List<LocalDate> buckets = new ArrayList<>();
+        for (LocalDate bucket = granularity.bucketStart(start); !bucket.isAfter(end); bucket = granularity.next(bucket)) {
+            buckets.add(bucket);
+        }
+        // Zagęszczanie łączy po równo kolejnych kubełków, więc punkty pozostają równoodległe
+        int points = Math.clamp(maxPoints, 1, MAX_POINTS);
+        int bucketsPerPoint = Math.max(1, (buckets.size() + points - 1) / points);
+
+        List<ActivityPoint> result = new ArrayList<>();
+        for (int first = 0; first < buckets.size(); first += bucketsPerPoint) {
+            long count = 0;
+            for (int i = first; i < Math.min(buckets.size(), first + bucketsPerPoint); i++) {
+                count += byBucket.getOrDefault(buckets.get(i), 0L);
+            }
+            if (zeroFill || count > 0) {
+                result.add(new ActivityPoint(buckets.get(first), count));
+            }
+        }
+        return new ActivitySeries(metric, categoryId, granularity, bucketsPerPoint, result);
+    }
+}
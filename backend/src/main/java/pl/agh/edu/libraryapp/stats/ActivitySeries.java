@@ -0,0 +1,8 @@
+package pl.agh.edu.libraryapp.stats;
+
+import java.util.List;
+
+// bucketsPerPoint > 1, gdy szereg został zagęszczony do maxPoints punktów
+public record ActivitySeries(ActivityMetric metric, Long categoryId, ActivityGranularity granularity,
+                             int bucketsPerPoint, List<ActivityPoint> points) {
+}
@@ -0,0 +1,4 @@
+package pl.agh.edu.libraryapp.stats;
+
+public record BookRentalCount(Long bookId, String title, String author, Long rentals) {
+}
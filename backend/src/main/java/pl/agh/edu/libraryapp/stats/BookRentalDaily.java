@@ -0,0 +1,32 @@
+package pl.agh.edu.libraryapp.stats;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Dzienna liczba wypożyczeń książki utrzymywana przy wypożyczeniu - statystyki sumują dni, a nie wiersze rentals
+@Entity
+@Table(name = "book_rental_daily", indexes = {
+        @Index(name = "idx_book_rental_daily_date", columnList = "rental_date")
+})
+@IdClass(BookRentalDaily.Key.class)
+@Getter
+@NoArgsConstructor
+public class BookRentalDaily {
+
+    public record Key(Long bookId, LocalDate rentalDate) {
+    }
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Id
+    @Column(name = "rental_date")
+    private LocalDate rentalDate;
+
+    @Column(nullable = false)
+    private long rentals;
+}
@@ -0,0 +1,75 @@
+package pl.agh.edu.libraryapp.stats;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BookRentalDailyRepository extends JpaRepository<BookRentalDaily, BookRentalDaily.Key> {
+
+    @Modifying
+    @Query("""
+            UPDATE BookRentalDaily d SET d.rentals = d.rentals + :delta
+            WHERE d.bookId = :bookId AND d.rentalDate = :rentalDate
+            """)
+    int applyDelta(@Param("bookId") Long bookId, @Param("rentalDate") LocalDate rentalDate, @Param("delta") long delta);
+
+    // Pierwsze wypożyczenie dnia: wstawia tylko ten jeden wiersz; przy wyścigu z drugą transakcją albo backfillem
+    // nic nie wstawia (0), a wołający ponawia applyDelta
+    @Modifying
+    @Query("""
+            INSERT INTO BookRentalDaily (bookId, rentalDate, rentals) VALUES (:bookId, :rentalDate, :delta)
+            ON CONFLICT DO NOTHING
+            """)
+    int insertIfAbsent(@Param("bookId") Long bookId, @Param("rentalDate") LocalDate rentalDate, @Param("delta") long delta);
+
+    // Backfill przelicza dni [from, to) od nowa: usunięcie, a potem insertCounts w tej samej transakcji
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM BookRentalDaily d WHERE d.rentalDate >= :from AND d.rentalDate < :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Nowa instrukcja widzi wypożyczenia zatwierdzone do jej startu; wiersz wstawiony w międzyczasie przez recordRental
+    // liczy wypożyczenie spoza tego odczytu, więc przy konflikcie liczby się sumują
+    @Modifying
+    @Query("""
+            INSERT INTO BookRentalDaily (bookId, rentalDate, rentals)
+            SELECT bi.book.id, r.startDate, COUNT(r) FROM Rentals r JOIN r.bookItem bi
+            WHERE r.startDate >= :from AND r.startDate < :to
+            GROUP BY bi.book.id, r.startDate
+            ON CONFLICT (bookId, rentalDate) DO UPDATE SET rentals = rentals + excluded.rentals
+            """)
+    int insertCounts(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Ranking po sumie z zakresu dni: liczba wypożyczeń malejąco, id rosnąco; tylko id, tytuł, autor i suma
+    @Query("""
+            SELECT new pl.agh.edu.libraryapp.stats.BookRentalCount(b.id, b.title, b.author, SUM(d.rentals))
+            FROM BookRentalDaily d JOIN Book b ON b.id = d.bookId
+            WHERE d.rentalDate BETWEEN :start AND :end
+            GROUP BY b.id, b.title, b.author
+            ORDER BY SUM(d.rentals) DESC, b.id
+            """)
+    List<BookRentalCount> findTopPage(@Param("start") LocalDate start, @Param("end") LocalDate end,
+                                      Pageable pageable);
+
+    @Query("""
+            SELECT new pl.agh.edu.libraryapp.stats.BookRentalCount(b.id, b.title, b.author, SUM(d.rentals))
+            FROM BookRentalDaily d JOIN Book b ON b.id = d.bookId
+            WHERE d.rentalDate BETWEEN :start AND :end
+            GROUP BY b.id, b.title, b.author
+            HAVING SUM(d.rentals) < :afterRentals OR (SUM(d.rentals) = :afterRentals AND b.id > :afterId)
+            ORDER BY SUM(d.rentals) DESC, b.id
+            """)
+    List<BookRentalCount> findTopPageAfter(@Param("start") LocalDate start, @Param("end") LocalDate end,
+                                           @Param("afterRentals") Long afterRentals, @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    @Query("SELECT COUNT(DISTINCT d.bookId) FROM BookRentalDaily d WHERE d.rentalDate BETWEEN :start AND :end")
+    long countBooks(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("SELECT COALESCE(SUM(d.rentals), 0) FROM BookRentalDaily d WHERE d.rentalDate BETWEEN :start AND :end")
+    long sumRentals(@Param("start") LocalDate start, @Param("end") LocalDate end);
+}
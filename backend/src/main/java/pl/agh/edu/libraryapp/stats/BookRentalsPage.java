@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.stats;
+
+import java.util.List;
+
+public record BookRentalsPage(List<BookRentalCount> books, Long nextAfterRentals, Long nextAfterId) {
+}
@@ -0,0 +1,213 @@
+package pl.agh.edu.libraryapp.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.book.BookDeletedEvent;
+import pl.agh.edu.libraryapp.book.repositories.BookRepository;
+import pl.agh.edu.libraryapp.bookQueue.BookQueueRepository;
+import pl.agh.edu.libraryapp.bookQueue.QueueEntryEvent;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+import pl.agh.edu.libraryapp.rentals.BookRentedEvent;
+import pl.agh.edu.libraryapp.rentals.BookReturnedEvent;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Liczniki na żywo dla panelu: wypożyczone egzemplarze, dzisiejsze wypożyczenia/zwroty/zapisy do kolejek,
+ * długości kolejek i najczęściej żądane tytuły (wypożyczenie lub zapis do kolejki) ze szkicu Space-Saving.
+ * Zasilane zdarzeniami po commicie, więc odczyt nie dotyka bazy poza tytułami kilkunastu książek.
+ * Stan początkowy z bazy przy starcie; drobny dryf (np. zdarzenie w trakcie startu) wyrównuje nocne uzgodnienie.
+ */
+@Component
+@Slf4j
+public class LiveMetrics {
+
+    private static final List<String> ON_LOAN = List.of("ACTIVE", "OVERDUE");
+
+    private final RentalsRepository rentalsRepository;
+    private final BookQueueRepository bookQueueRepository;
+    private final BookRepository bookRepository;
+    private final SpaceSaving hotTitles;
+    private final double decayFactor;
+
+    private final LongAdder activeLoans = new LongAdder();
+    private final LongAdder queuedEntries = new LongAdder();
+    private final Map<Long, LongAdder> queueLengths = new ConcurrentHashMap<>();
+    private volatile Day today = new Day(LocalDate.now());
+
+    public LiveMetrics(RentalsRepository rentalsRepository, BookQueueRepository bookQueueRepository,
+                       BookRepository bookRepository,
+                       @Value("${stats.live.hot-titles.counters:1000}") int counters,
+                       @Value("${stats.live.hot-titles.decay-factor:0.5}") double decayFactor) {
+        this.rentalsRepository = rentalsRepository;
+        this.bookQueueRepository = bookQueueRepository;
+        this.bookRepository = bookRepository;
+        this.hotTitles = new SpaceSaving(counters);
+        this.decayFactor = decayFactor;
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public void reconcileOnStartup() {
+        Thread.ofVirtual().name("live-metrics-reconcile").start(this::reconcile);
+    }
+
+    // Dzisiejszych zapisów do kolejek nie da się odtworzyć (book_queue nie ma dat), więc liczą się od startu
+    @Scheduled(cron = "${stats.live.reconcile-cron:0 5 0 * * *}")
+    public void reconcile() {
+        try {
+            LocalDate date = LocalDate.now();
+            long loans = rentalsRepository.countByStatusIn(ON_LOAN);
+            long checkouts = rentalsRepository.countByStartDate(date);
+            long returns = rentalsRepository.countByStatusAndEndDate("RETURNED", date);
+            Map<Long, LongAdder> lengths = new HashMap<>();
+            long queued = 0;
+            for (Object[] row : bookQueueRepository.countActiveEntriesPerBook()) {
+                LongAdder length = new LongAdder();
+                length.add((Long) row[1]);
+                lengths.put((Long) row[0], length);
+                queued += (Long) row[1];
+            }
+
+            synchronized (this) {
+                reset(activeLoans, loans);
+                reset(queuedEntries, queued);
+                queueLengths.clear();
+                queueLengths.putAll(lengths);
+                Day day = day();
+                if (day.date.equals(date)) {
+                    reset(day.checkouts, checkouts);
+                    reset(day.returns, returns);
+                }
+            }
+            log.info("Live metrics reconciled: {} on loan, {} queue entries in {} queues", loans, queued, lengths.size());
+        } catch (RuntimeException e) {
+            log.error("Live metrics reconciliation failed, keeping current counters", e);
+        }
+    }
+
+    // Wygaszanie sprawia, że ranking pokazuje to, co jest żądane teraz, a nie od startu procesu
+    @Scheduled(fixedRateString = "${stats.live.hot-titles.decay-interval:PT1H}")
+    public void decayHotTitles() {
+        hotTitles.decay(decayFactor);
+    }
+
+    @TransactionalEventListener
+    public void onBookRented(BookRentedEvent event) {
+        activeLoans.increment();
+        day().checkouts.increment();
+        hotTitles.offer(event.bookId());
+    }
+
+    @TransactionalEventListener
+    public void onBookReturned(BookReturnedEvent event) {
+        activeLoans.decrement();
+        day().returns.increment();
+    }
+
+    @TransactionalEventListener
+    public void onQueueEntry(QueueEntryEvent event) {
+        switch (event.kind()) {
+            case ENQUEUED -> {
+                queuedEntries.increment();
+                queueLengths.computeIfAbsent(event.bookId(), _ -> new LongAdder()).increment();
+                day().enqueued.increment();
+                hotTitles.offer(event.bookId());
+            }
+            case FULFILLED, ABANDONED -> {
+                queuedEntries.decrement();
+                LongAdder length = queueLengths.get(event.bookId());
+                if (length != null) {
+                    length.decrement();
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookDeleted(BookDeletedEvent event) {
+        LongAdder length = queueLengths.remove(event.bookId());
+        if (length != null) {
+            queuedEntries.add(-length.sum());
+        }
+        hotTitles.remove(event.bookId());
+    }
+
+    public LiveMetricsSnapshot snapshot(int limit) {
+        Day day = day();
+        List<QueueLength> longestQueues = queueLengths.entrySet().stream()
+                .map(entry -> new QueueLength(entry.getKey(), null, entry.getValue().sum()))
+                .filter(queue -> queue.length() > 0)
+                .sorted(Comparator.comparingLong(QueueLength::length).reversed().thenComparing(QueueLength::bookId))
+                .limit(limit)
+                .toList();
+        List<SpaceSaving.Entry> hot = hotTitles.top(limit);
+
+        Set<Long> bookIds = new HashSet<>();
+        longestQueues.forEach(queue -> bookIds.add(queue.bookId()));
+        hot.forEach(entry -> bookIds.add(entry.id()));
+        Map<Long, String> titles = new HashMap<>();
+        if (!bookIds.isEmpty()) {
+            for (Object[] row : bookRepository.findIdsAndTitlesByIdIn(bookIds)) {
+                titles.put((Long) row[0], (String) row[1]);
+            }
+        }
+
+        return new LiveMetricsSnapshot(LocalDateTime.now(), activeLoans.sum(), day.checkouts.sum(), day.returns.sum(),
+                day.enqueued.sum(), queuedEntries.sum(),
+                longestQueues.stream()
+                        .map(queue -> new QueueLength(queue.bookId(), titles.get(queue.bookId()), queue.length()))
+                        .toList(),
+                hot.stream()
+                        .map(entry -> new HotTitle(entry.id(), titles.get(entry.id()), Math.round(entry.count()),
+                                Math.round(entry.count() - entry.error())))
+                        .toList());
+    }
+
+    // Liczniki dzienne podmieniane przy pierwszym zdarzeniu/odczycie nowego dnia
+    private Day day() {
+        Day current = today;
+        LocalDate date = LocalDate.now();
+        if (current.date.equals(date)) {
+            return current;
+        }
+        synchronized (this) {
+            if (!today.date.equals(date)) {
+                today = new Day(date);
+            }
+            return today;
+        }
+    }
+
+    private static void reset(LongAdder adder, long value) {
+        adder.reset();
+        adder.add(value);
+    }
+
+    private static final class Day {
+        final LocalDate date;
+        final LongAdder checkouts = new LongAdder();
+        final LongAdder returns = new LongAdder();
+        final LongAdder enqueued = new LongAdder();
+
+        Day(LocalDate date) {
+            this.date = date;
+        }
+    }
+
+    public record QueueLength(Long bookId, String title, long length) {
+    }
+
+    // requests to oszacowanie z górnym błędem, guaranteedRequests to pewne minimum (oba po wygaszaniu co decay-interval)
+    public record HotTitle(Long bookId, String title, long requests, long guaranteedRequests) {
+    }
+}
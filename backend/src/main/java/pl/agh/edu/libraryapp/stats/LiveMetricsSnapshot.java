@@ -0,0 +1,10 @@
+package pl.agh.edu.libraryapp.stats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record LiveMetricsSnapshot(LocalDateTime at, long activeLoans, long checkoutsToday, long returnsToday,
+                                  long enqueuedToday, long queuedEntries,
+                                  List<LiveMetrics.QueueLength> longestQueues,
+                                  List<LiveMetrics.HotTitle> hotTitles) {
+}
@@ -0,0 +1,115 @@
+package pl.agh.edu.libraryapp.stats;
+
+/*
+ * Szkic kwantyli z gwarancją błędu względnego (jak DDSketch): wartość v trafia do kubełka ceil(log_gamma v),
+ * a każdy kwantyl jest odtwarzany z dokładnością relativeAccuracy niezależnie od rozkładu i liczby próbek.
+ * Pamięć to jeden long na zajęty zakres kubełków (sekundy od minut do roku to kilkaset kubełków);
+ * powyżej maxBuckets najniższe kubełki są zwijane, więc tracą dokładność tylko najkrótsze wartości.
+ * Bez synchronizacji - właściciel pilnuje dostępu.
+ */
+final class QuantileSketch {
+
+    private static final int INITIAL_BUCKETS = 16;
+
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBuckets;
+
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double max;
+
+    QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = Math.max(INITIAL_BUCKETS, maxBuckets);
+    }
+
+    // Wartości poniżej 1 (np. zero sekund) liczone osobno - logarytm nie ma dla nich sensu
+    void add(double value) {
+        count++;
+        max = Math.max(max, value);
+        if (value < 1) {
+            zeroCount++;
+            return;
+        }
+        increment((int) Math.ceil(Math.log(value) / logGamma));
+    }
+
+    long count() {
+        return count;
+    }
+
+    double max() {
+        return max;
+    }
+
+    double quantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return Math.min(max, 2 * Math.pow(gamma, offset + i) / (gamma + 1));
+            }
+        }
+        return max;
+    }
+
+    private void increment(int index) {
+        if (counts.length == 0) {
+            counts = new long[INITIAL_BUCKETS];
+            offset = index - INITIAL_BUCKETS / 2;
+        }
+        if (index < offset || index >= offset + counts.length) {
+            // Zakres liczony z zajętych kubełków, nie z długości tablicy - inaczej zapas z poprzednich powiększeń
+            // po przeciwnej stronie zjadałby limit i zwijał kubełki, które się jeszcze mieszczą
+            int low = Math.min(index, offset + firstOccupied());
+            int high = Math.max(index, offset + lastOccupied());
+            int length = Math.min(maxBuckets, Math.max(high - low + 1, 2 * counts.length));
+            // Zapas po stronie, w którą rośnie zakres; ponad maxBuckets zwijane są najniższe kubełki
+            resize(index < offset || high - low + 1 > length ? high - length + 1 : low, length);
+        }
+        counts[Math.max(index, offset) - offset]++;
+    }
+
+    // Nowa tablica length kubełków od low; kubełki poniżej low sumują się w pierwszym
+    private void resize(int low, int length) {
+        // Pełny szkic i wartość poniżej zwiniętego zakresu - nic do przesunięcia
+        if (low == offset && length == counts.length) {
+            return;
+        }
+        long[] resized = new long[length];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                resized[Math.max(offset + i, low) - low] += counts[i];
+            }
+        }
+        counts = resized;
+        offset = low;
+    }
+
+    private int firstOccupied() {
+        int i = 0;
+        while (counts[i] == 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private int lastOccupied() {
+        int i = counts.length - 1;
+        while (counts[i] == 0) {
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,241 @@
+package pl.agh.edu.libraryapp.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.agh.edu.libraryapp.book.BookDeletedEvent;
+import pl.agh.edu.libraryapp.book.index.CategoryBookIndex;
+import pl.agh.edu.libraryapp.book.repositories.BookRepository;
+import pl.agh.edu.libraryapp.bookQueue.QueueEntryEvent;
+import pl.agh.edu.libraryapp.bookQueue.QueueEventRepository;
+import pl.agh.edu.libraryapp.bookQueue.QueueWaitEvent;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/*
+ * Czasy oczekiwania w kolejkach per tytuł, per kategoria i dla całego katalogu ze szkiców kwantyli -
+ * odczyt nie dotyka dziennika queue_event. Oczekiwanie na egzemplarz to czas od zapisu do powiadomienia
+ * (albo do wypożyczenia, gdy egzemplarz był od razu wolny), odbiór to czas od powiadomienia do wypożyczenia.
+ * Szkice budowane z ostatnich window-days dni dziennika przy starcie i co noc, w ciągu dnia dopisywane ze zdarzeń.
+ */
+@Component
+@Slf4j
+public class QueueWaitAnalytics {
+
+    private final QueueEventRepository queueEventRepository;
+    private final BookRepository bookRepository;
+    private final CategoryBookIndex categoryBookIndex;
+    private final int windowDays;
+    private final double relativeAccuracy;
+    private final int maxBuckets;
+
+    private State state;
+    // Zdarzenia zatwierdzone w trakcie przebudowy - null, gdy przebudowa nie trwa
+    private List<QueueWaitEvent> waitsDuringRebuild;
+    private List<Long> deletedDuringRebuild;
+
+    public QueueWaitAnalytics(QueueEventRepository queueEventRepository, BookRepository bookRepository,
+                              CategoryBookIndex categoryBookIndex,
+                              @Value("${stats.queue-wait.window-days:365}") int windowDays,
+                              @Value("${stats.queue-wait.relative-accuracy:0.02}") double relativeAccuracy,
+                              @Value("${stats.queue-wait.max-buckets:512}") int maxBuckets) {
+        this.queueEventRepository = queueEventRepository;
+        this.bookRepository = bookRepository;
+        this.categoryBookIndex = categoryBookIndex;
+        this.windowDays = windowDays;
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+        this.state = new State();
+    }
+
+    // Odczyt z bazy i budowa nowych szkiców bez blokady; pod blokadą tylko podmiana. Zdarzenia zatwierdzone
+    // w trakcie trafiają do nowego stanu, o ile ich wpisu nie było już w odczytanym dzienniku.
+    // Przynależność do kategorii czytana z bazy, a nie z CategoryBookIndex - kolejność słuchaczy startowych nie jest ustalona
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("queue-wait-rebuild").start(this::rebuild);
+    }
+
+    @Scheduled(cron = "${stats.queue-wait.rebuild-cron:0 50 2 * * *}")
+    public void rebuild() {
+        synchronized (this) {
+            if (waitsDuringRebuild != null) {
+                return;
+            }
+            waitsDuringRebuild = new ArrayList<>();
+            deletedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            Map<Long, List<Long>> categoriesByBook = new HashMap<>();
+            for (Object[] row : bookRepository.findAllCategoryBookPairs()) {
+                categoriesByBook.computeIfAbsent((Long) row[1], _ -> new ArrayList<>()).add((Long) row[0]);
+            }
+            State rebuilt = new State();
+            List<Object[]> events = queueEventRepository.findWaitsSince(LocalDateTime.now().minusDays(windowDays));
+            long[] eventIds = new long[events.size()];
+            for (int i = 0; i < eventIds.length; i++) {
+                Object[] row = events.get(i);
+                eventIds[i] = (Long) row[0];
+                Long bookId = (Long) row[1];
+                rebuilt.record(bookId, categoriesByBook.getOrDefault(bookId, List.of()).stream().mapToLong(Long::longValue).toArray(),
+                        (QueueEntryEvent.Kind) row[2], (Long) row[3], (Long) row[4]);
+            }
+            Arrays.sort(eventIds);
+
+            int replayed = 0;
+            synchronized (this) {
+                for (QueueWaitEvent event : waitsDuringRebuild) {
+                    if (Arrays.binarySearch(eventIds, event.eventId()) < 0) {
+                        rebuilt.record(event);
+                        replayed++;
+                    }
+                }
+                deletedDuringRebuild.forEach(rebuilt.byBook::remove);
+                state = rebuilt;
+            }
+            log.info("Queue wait analytics rebuilt in {} ms: {} events (+{} during rebuild), {} titles, {} categories",
+                    (System.nanoTime() - start) / 1_000_000, events.size(), replayed, rebuilt.byBook.size(),
+                    rebuilt.byCategory.size());
+        } catch (RuntimeException e) {
+            log.error("Queue wait analytics rebuild failed, keeping previous sketches", e);
+        } finally {
+            synchronized (this) {
+                waitsDuringRebuild = null;
+                deletedDuringRebuild = null;
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void onQueueWait(QueueWaitEvent event) {
+        state.record(event);
+        if (waitsDuringRebuild != null) {
+            waitsDuringRebuild.add(event);
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookDeleted(BookDeletedEvent event) {
+        state.byBook.remove(event.bookId());
+        if (deletedDuringRebuild != null) {
+            deletedDuringRebuild.add(event.bookId());
+        }
+    }
+
+    public synchronized QueueWaitStats forBook(long bookId) {
+        return state.byBook.getOrDefault(bookId, new Scope()).stats(bookId, null, null);
+    }
+
+    public synchronized QueueWaitStats forCategory(long categoryId) {
+        return state.byCategory.getOrDefault(categoryId, new Scope()).stats(null, categoryId, null);
+    }
+
+    public synchronized QueueWaitStats forCatalog() {
+        return state.catalog.stats(null, null, null);
+    }
+
+    // Tytuły z najdłuższym p90 oczekiwania na egzemplarz - kandydaci do dokupienia egzemplarzy
+    public List<QueueWaitStats> longestWaits(int limit, int minSamples) {
+        List<QueueWaitStats> ranked;
+        synchronized (this) {
+            ranked = state.byBook.entrySet().stream()
+                    .filter(entry -> entry.getValue().waitForCopy.count() >= Math.max(1, minSamples))
+                    .map(entry -> entry.getValue().stats(entry.getKey(), null, null))
+                    .sorted(Comparator.comparingLong((QueueWaitStats stats) -> stats.waitForCopy().p90Seconds()).reversed()
+                            .thenComparing(QueueWaitStats::bookId))
+                    .limit(limit)
+                    .toList();
+        }
+        if (ranked.isEmpty()) {
+            return ranked;
+        }
+        Map<Long, String> titles = new HashMap<>();
+        for (Object[] row : bookRepository.findIdsAndTitlesByIdIn(ranked.stream().map(QueueWaitStats::bookId).toList())) {
+            titles.put((Long) row[0], (String) row[1]);
+        }
+        return ranked.stream()
+                .map(stats -> new QueueWaitStats(stats.bookId(), null, titles.get(stats.bookId()), stats.enqueued(),
+                        stats.notified(), stats.fulfilled(), stats.abandonedWaiting(), stats.abandonedAfterNotice(),
+                        stats.pickupRate(), stats.waitForCopy(), stats.pickup()))
+                .toList();
+    }
+
+    private static QueueWaitStats.Quantiles quantiles(QuantileSketch sketch) {
+        return new QueueWaitStats.Quantiles(sketch.count(), Math.round(sketch.quantile(0.5)),
+                Math.round(sketch.quantile(0.75)), Math.round(sketch.quantile(0.9)),
+                Math.round(sketch.quantile(0.95)), Math.round(sketch.max()));
+    }
+
+    private final class State {
+
+        final Map<Long, Scope> byBook = new HashMap<>();
+        final Map<Long, Scope> byCategory = new HashMap<>();
+        final Scope catalog = new Scope();
+
+        void record(QueueWaitEvent event) {
+            record(event.bookId(), categoryBookIndex.categoriesOf(event.bookId()), event.kind(), event.waitSeconds(),
+                    event.holdSeconds());
+        }
+
+        void record(long bookId, long[] categoryIds, QueueEntryEvent.Kind kind, Long waitSeconds, Long holdSeconds) {
+            byBook.computeIfAbsent(bookId, _ -> new Scope()).record(kind, waitSeconds, holdSeconds);
+            for (long categoryId : categoryIds) {
+                byCategory.computeIfAbsent(categoryId, _ -> new Scope()).record(kind, waitSeconds, holdSeconds);
+            }
+            catalog.record(kind, waitSeconds, holdSeconds);
+        }
+    }
+
+    private final class Scope {
+
+        final QuantileSketch waitForCopy = new QuantileSketch(relativeAccuracy, maxBuckets);
+        final QuantileSketch pickup = new QuantileSketch(relativeAccuracy, maxBuckets);
+        long enqueued;
+        long notified;
+        long fulfilled;
+        long abandonedWaiting;
+        long abandonedAfterNotice;
+
+        // Wpisy sprzed dziennika nie mają czasu zapisu - liczą się do liczników, ale nie do szkiców
+        void record(QueueEntryEvent.Kind kind, Long waitSeconds, Long holdSeconds) {
+            switch (kind) {
+                case ENQUEUED -> enqueued++;
+                case NOTIFIED -> {
+                    notified++;
+                    if (waitSeconds != null) {
+                        waitForCopy.add(waitSeconds);
+                    }
+                }
+                case FULFILLED -> {
+                    fulfilled++;
+                    if (holdSeconds != null) {
+                        pickup.add(holdSeconds);
+                    } else if (waitSeconds != null) {
+                        waitForCopy.add(waitSeconds);
+                    }
+                }
+                case ABANDONED -> {
+                    if (holdSeconds != null) {
+                        abandonedAfterNotice++;
+                    } else {
+                        abandonedWaiting++;
+                    }
+                }
+            }
+        }
+
+        QueueWaitStats stats(Long bookId, Long categoryId, String title) {
+            long decided = pickup.count() + abandonedAfterNotice;
+            return new QueueWaitStats(bookId, categoryId, title, enqueued, notified, fulfilled, abandonedWaiting,
+                    abandonedAfterNotice, decided == 0 ? 0.0 : (double) pickup.count() / decided,
+                    quantiles(waitForCopy), quantiles(pickup));
+        }
+    }
+}
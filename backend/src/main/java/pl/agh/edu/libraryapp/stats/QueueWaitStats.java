@@ -0,0 +1,11 @@
+package pl.agh.edu.libraryapp.stats;
+
+// Czasy w sekundach. pickupRate - jaka część powiadomionych odebrała książkę (wypożyczyła zamiast zrezygnować)
+public record QueueWaitStats(Long bookId, Long categoryId, String title, long enqueued, long notified, long fulfilled,
+                             long abandonedWaiting, long abandonedAfterNotice, double pickupRate,
+                             Quantiles waitForCopy, Quantiles pickup) {
+
+    public record Quantiles(long samples, long p50Seconds, long p75Seconds, long p90Seconds, long p95Seconds,
+                            long maxSeconds) {
+    }
+}
@@ -0,0 +1,55 @@
+package pl.agh.edu.libraryapp.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import pl.agh.edu.libraryapp.config.BackgroundJobsConfig;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+
+import java.time.LocalDate;
+
+// Wypożyczenia zapisane poza RentalsService (seeder, dane sprzed wdrożenia agregatów) trafiają do nich tutaj;
+// każdy start przelicza agregaty do dzisiaj włącznie, więc niedoliczone dni nie zostają na stałe
+@Component
+@Slf4j
+public class RentalRollupBackfill {
+
+    private final RentalRollupService rentalRollupService;
+    private final RentalsRepository rentalsRepository;
+    private final int chunkDays;
+
+    public RentalRollupBackfill(RentalRollupService rentalRollupService, RentalsRepository rentalsRepository,
+                                @Value("${stats.rollup.backfill-chunk-days:31}") int chunkDays) {
+        this.rentalRollupService = rentalRollupService;
+        this.rentalsRepository = rentalsRepository;
+        this.chunkDays = chunkDays;
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = BackgroundJobsConfig.STARTUP_JOBS_ENABLED)
+    public void backfillOnStartup() {
+        Thread.ofVirtual().name("rental-rollup-backfill").start(this::backfill);
+    }
+
+    // Krótkie transakcje po chunkDays dni zamiast jednego INSERT ... SELECT po całej tabeli rentals
+    public void backfill() {
+        LocalDate earliest = rentalsRepository.findEarliestStartDate();
+        if (earliest == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        LocalDate end = LocalDate.now().plusDays(1);
+        int written = 0;
+        try {
+            for (LocalDate from = earliest; from.isBefore(end); from = from.plusDays(chunkDays)) {
+                LocalDate to = from.plusDays(chunkDays);
+                written += rentalRollupService.backfill(from, to.isAfter(end) ? end : to);
+            }
+            log.info("Rental rollups backfilled from {} in {} ms: {} rows written",
+                    earliest, (System.nanoTime() - start) / 1_000_000, written);
+        } catch (RuntimeException e) {
+            log.error("Rental rollup backfill failed after {} rows", written, e);
+        }
+    }
+}
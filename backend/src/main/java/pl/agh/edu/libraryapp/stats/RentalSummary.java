@@ -0,0 +1,4 @@
+package pl.agh.edu.libraryapp.stats;
+
+public record RentalSummary(long users, long books, long rentals) {
+}
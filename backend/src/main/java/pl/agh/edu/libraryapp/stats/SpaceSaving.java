@@ -0,0 +1,129 @@
+package pl.agh.edu.libraryapp.stats;
+
+import java.util.*;
+
+/*
+ * Space-Saving (Metwally i in.): przybliżone najczęstsze elementy strumienia w stałej pamięci `capacity` liczników.
+ * Nowy element spoza listy zastępuje najmniejszy licznik i dziedziczy jego wartość jako błąd, więc
+ * count - error <= prawdziwa liczba <= count, a każdy element z częstością > N / capacity jest na liście.
+ * Liczniki w kopcu minimalnym, żeby zastąpienie najmniejszego było O(log capacity).
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+    private final long[] ids;
+    private final double[] counts;
+    private final double[] errors;
+    private final Map<Long, Integer> positions;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.ids = new long[this.capacity];
+        this.counts = new double[this.capacity];
+        this.errors = new double[this.capacity];
+        this.positions = new HashMap<>(this.capacity * 2);
+    }
+
+    synchronized void offer(long id) {
+        Integer position = positions.get(id);
+        if (position != null) {
+            counts[position] += 1;
+            siftDown(position);
+        } else if (size < capacity) {
+            ids[size] = id;
+            counts[size] = 1;
+            errors[size] = 0;
+            positions.put(id, size);
+            siftUp(size++);
+        } else {
+            positions.remove(ids[0]);
+            ids[0] = id;
+            errors[0] = counts[0];
+            counts[0] += 1;
+            positions.put(id, 0);
+            siftDown(0);
+        }
+    }
+
+    // Mnożenie wszystkich liczników przez ten sam czynnik nie zmienia kolejności, więc kopiec zostaje poprawny
+    synchronized void decay(double factor) {
+        for (int i = 0; i < size; i++) {
+            counts[i] *= factor;
+            errors[i] *= factor;
+        }
+    }
+
+    synchronized List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(ids[i], counts[i], errors[i]));
+        }
+        entries.sort(Comparator.comparingDouble(Entry::count).reversed().thenComparingLong(Entry::id));
+        return entries.subList(0, Math.clamp(limit, 0, entries.size()));
+    }
+
+    synchronized void remove(long id) {
+        Integer position = positions.remove(id);
+        if (position == null) {
+            return;
+        }
+        int last = --size;
+        if (position != last) {
+            move(last, position);
+            siftDown(position);
+            siftUp(position);
+        }
+    }
+
+    record Entry(long id, double count, double error) {
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (counts[parent] <= counts[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        double count = counts[a];
+        double error = errors[a];
+        move(b, a);
+        ids[b] = id;
+        counts[b] = count;
+        errors[b] = error;
+        positions.put(id, b);
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        counts[to] = counts[from];
+        errors[to] = errors[from];
+        positions.put(ids[to], to);
+    }
+}
@@ -1,40 +1,113 @@
 package pl.agh.edu.libraryapp.stats;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import pl.agh.edu.libraryapp.book.BookQueue;
-import pl.agh.edu.libraryapp.book.services.BookService;
-import pl.agh.edu.libraryapp.rentals.RentalsService;
-import pl.agh.edu.libraryapp.user.UserService;
 
+import java.time.LocalDate;
 import java.util.List;
 
+// Rankingi z opcjonalnym zakresem dat (włącznie); kolejna strona przez afterRentals/afterId z poprzedniej odpowiedzi
 @RestController
 @RequestMapping("/stats")
 public class StatisticsController {
-    private final UserService userService;
-    private final BookService bookService;
-    private final RentalsService rentalsService;
+    private final RentalRollupService rentalRollupService;
+    private final ActivityRollupService activityRollupService;
+    private final LiveMetrics liveMetrics;
+    private final QueueWaitAnalytics queueWaitAnalytics;
 
-    public StatisticsController(UserService userService, BookService bookService, RentalsService rentalsService) {
-        this.userService = userService;
-        this.bookService = bookService;
-        this.rentalsService = rentalsService;
+    public StatisticsController(RentalRollupService rentalRollupService,
+                                ActivityRollupService activityRollupService, LiveMetrics liveMetrics,
+                                QueueWaitAnalytics queueWaitAnalytics) {
+        this.rentalRollupService = rentalRollupService;
+        this.activityRollupService = activityRollupService;
+        this.liveMetrics = liveMetrics;
+        this.queueWaitAnalytics = queueWaitAnalytics;
+    }
+
+    // Liczniki z pamięci - do częstego odpytywania przez panel, bez agregatów w bazie
+    @GetMapping("/live")
+    public LiveMetricsSnapshot getLive(@RequestParam(defaultValue = "20") int limit) {
+        return liveMetrics.snapshot(Math.clamp(limit, 0, 100));
     }
 
     @GetMapping("/rentalsPerUser")
-    public List<BooksBorrowedByUserDTO> getBooksBorrowedPerUser() {
-        return rentalsService.getBooksBorrowedPerUser();
+    public UserRentalsPage getBooksBorrowedPerUser(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "15") int limit,
+            @RequestParam(required = false) Long afterRentals,
+            @RequestParam(required = false) Long afterId) {
+        return rentalRollupService.getTopUsers(start, end, limit, afterRentals, afterId);
     }
 
     @GetMapping("/rentalsByBook")
-    public List<BookRentalsDTO> getTimesRentedPerBook() {
-        return rentalsService.getTimesRentedPerBook();
+    public BookRentalsPage getTimesRentedPerBook(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "15") int limit,
+            @RequestParam(required = false) Long afterRentals,
+            @RequestParam(required = false) Long afterId) {
+        return rentalRollupService.getTopBooks(start, end, limit, afterRentals, afterId);
     }
 
     @GetMapping("/rentalsByBookThisYear")
-    public List<BookRentalsDTO> getTimesRentedPerBookThisYear() {
-        return rentalsService.getTimesRentedPerBookThisYear();
+    public BookRentalsPage getTimesRentedPerBookThisYear(
+            @RequestParam(defaultValue = "15") int limit,
+            @RequestParam(required = false) Long afterRentals,
+            @RequestParam(required = false) Long afterId) {
+        LocalDate today = LocalDate.now();
+        return rentalRollupService.getTopBooks(today.withDayOfYear(1), today.withDayOfYear(today.lengthOfYear()),
+                limit, afterRentals, afterId);
+    }
+
+    @GetMapping("/summary")
+    public RentalSummary getSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+        return rentalRollupService.getSummary(start, end);
+    }
+
+    // Np. /stats/timeseries?metric=RENTALS&granularity=WEEK&start=2021-01-01&end=2025-12-31&categoryId=3
+    @GetMapping("/timeseries")
+    public ResponseEntity<?> getTimeSeries(
+            @RequestParam ActivityMetric metric,
+            @RequestParam(defaultValue = "DAY") ActivityGranularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "true") boolean zeroFill,
+            @RequestParam(defaultValue = "1000") int maxPoints) {
+        try {
+            return ResponseEntity.ok(activityRollupService.series(metric, categoryId, start, end, granularity,
+                    zeroFill, maxPoints));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Bez parametrów - cały katalog; bookId albo categoryId zawęża do tytułu lub kategorii
+    @GetMapping("/queue-wait")
+    public ResponseEntity<?> getQueueWait(@RequestParam(required = false) Long bookId,
+                                          @RequestParam(required = false) Long categoryId) {
+        if (bookId != null && categoryId != null) {
+            return ResponseEntity.badRequest().body("Use either bookId or categoryId");
+        }
+        if (bookId != null) {
+            return ResponseEntity.ok(queueWaitAnalytics.forBook(bookId));
+        }
+        if (categoryId != null) {
+            return ResponseEntity.ok(queueWaitAnalytics.forCategory(categoryId));
+        }
+        return ResponseEntity.ok(queueWaitAnalytics.forCatalog());
+    }
+
+    @GetMapping("/queue-wait/longest")
+    public List<QueueWaitStats> getLongestQueueWaits(@RequestParam(defaultValue = "20") int limit,
+                                                     @RequestParam(defaultValue = "5") int minSamples) {
+        return queueWaitAnalytics.longestWaits(Math.clamp(limit, 0, 100), minSamples);
     }
 }
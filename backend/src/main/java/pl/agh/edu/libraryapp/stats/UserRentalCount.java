@@ -0,0 +1,5 @@
+package pl.agh.edu.libraryapp.stats;
+
+// Tylko nazwa wyświetlana i login - bez e-maila i telefonu
+public record UserRentalCount(Long userId, String name, String username, Long rentals) {
+}
@@ -0,0 +1,32 @@
+package pl.agh.edu.libraryapp.stats;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Dzienna liczba wypożyczeń użytkownika - odpowiednik BookRentalDaily dla statystyk per czytelnik
+@Entity
+@Table(name = "user_rental_daily", indexes = {
+        @Index(name = "idx_user_rental_daily_date", columnList = "rental_date")
+})
+@IdClass(UserRentalDaily.Key.class)
+@Getter
+@NoArgsConstructor
+public class UserRentalDaily {
+
+    public record Key(Long userId, LocalDate rentalDate) {
+    }
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "rental_date")
+    private LocalDate rentalDate;
+
+    @Column(nullable = false)
+    private long rentals;
+}
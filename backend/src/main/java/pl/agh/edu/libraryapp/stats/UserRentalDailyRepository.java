@@ -0,0 +1,70 @@
+package pl.agh.edu.libraryapp.stats;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface UserRentalDailyRepository extends JpaRepository<UserRentalDaily, UserRentalDaily.Key> {
+
+    @Modifying
+    @Query("""
+            UPDATE UserRentalDaily d SET d.rentals = d.rentals + :delta
+            WHERE d.userId = :userId AND d.rentalDate = :rentalDate
+            """)
+    int applyDelta(@Param("userId") Long userId, @Param("rentalDate") LocalDate rentalDate, @Param("delta") long delta);
+
+    // Pierwsze wypożyczenie dnia: wstawia tylko ten jeden wiersz; przy wyścigu z drugą transakcją albo backfillem
+    // nic nie wstawia (0), a wołający ponawia applyDelta
+    @Modifying
+    @Query("""
+            INSERT INTO UserRentalDaily (userId, rentalDate, rentals) VALUES (:userId, :rentalDate, :delta)
+            ON CONFLICT DO NOTHING
+            """)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("rentalDate") LocalDate rentalDate, @Param("delta") long delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM UserRentalDaily d WHERE d.rentalDate >= :from AND d.rentalDate < :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("""
+            INSERT INTO UserRentalDaily (userId, rentalDate, rentals)
+            SELECT r.user.id, r.startDate, COUNT(r) FROM Rentals r
+            WHERE r.startDate >= :from AND r.startDate < :to
+            GROUP BY r.user.id, r.startDate
+            ON CONFLICT (userId, rentalDate) DO UPDATE SET rentals = rentals + excluded.rentals
+            """)
+    int insertCounts(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+            SELECT new pl.agh.edu.libraryapp.stats.UserRentalCount(u.id, CONCAT(u.firstName, ' ', u.lastName),
+                   u.username, SUM(d.rentals))
+            FROM UserRentalDaily d JOIN User u ON u.id = d.userId
+            WHERE d.rentalDate BETWEEN :start AND :end
+            GROUP BY u.id, u.firstName, u.lastName, u.username
+            ORDER BY SUM(d.rentals) DESC, u.id
+            """)
+    List<UserRentalCount> findTopPage(@Param("start") LocalDate start, @Param("end") LocalDate end,
+                                      Pageable pageable);
+
+    @Query("""
+            SELECT new pl.agh.edu.libraryapp.stats.UserRentalCount(u.id, CONCAT(u.firstName, ' ', u.lastName),
+                   u.username, SUM(d.rentals))
+            FROM UserRentalDaily d JOIN User u ON u.id = d.userId
+            WHERE d.rentalDate BETWEEN :start AND :end
+            GROUP BY u.id, u.firstName, u.lastName, u.username
+            HAVING SUM(d.rentals) < :afterRentals OR (SUM(d.rentals) = :afterRentals AND u.id > :afterId)
+            ORDER BY SUM(d.rentals) DESC, u.id
+            """)
+    List<UserRentalCount> findTopPageAfter(@Param("start") LocalDate start, @Param("end") LocalDate end,
+                                           @Param("afterRentals") Long afterRentals, @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    @Query("SELECT COUNT(DISTINCT d.userId) FROM UserRentalDaily d WHERE d.rentalDate BETWEEN :start AND :end")
+    long countUsers(@Param("start") LocalDate start, @Param("end") LocalDate end);
+}
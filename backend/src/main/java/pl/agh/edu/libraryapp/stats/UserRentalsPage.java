@@ -0,0 +1,6 @@
+package pl.agh.edu.libraryapp.stats;
+
+import java.util.List;
+
+public record UserRentalsPage(List<UserRentalCount> users, Long nextAfterRentals, Long nextAfterId) {
+}
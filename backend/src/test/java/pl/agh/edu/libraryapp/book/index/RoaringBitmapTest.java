@@ -0,0 +1,117 @@
+package pl.agh.edu.libraryapp.book.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Przejścia kontenerów tablica <-> bitmapa i operacje na zbiorach porównane z TreeSet
+class RoaringBitmapTest {
+
+    @Test
+    void ofSortsAndRemovesDuplicates() {
+        RoaringBitmap bitmap = RoaringBitmap.of(new long[]{70_000, 5, 3, 5});
+
+        assertEquals(3, bitmap.cardinality());
+        assertArrayEquals(new long[]{3, 5, 70_000}, bitmap.toArray());
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(4));
+        assertFalse(bitmap.contains(-1));
+    }
+
+    // ARRAY_MAX + 1 elementów w jednym kontenerze wymusza bitmapę, usunięcie jednego wraca do tablicy
+    @Test
+    void containerSwitchesBetweenArrayAndBitmap() {
+        long[] ids = LongStream.range(0, RoaringBitmap.ARRAY_MAX).map(i -> 2 * i).toArray();
+        RoaringBitmap array = RoaringBitmap.of(ids);
+        long extra = 2L * RoaringBitmap.ARRAY_MAX;
+
+        RoaringBitmap bitmap = array.with(extra);
+        assertEquals(RoaringBitmap.ARRAY_MAX + 1, bitmap.cardinality());
+        assertTrue(bitmap.contains(extra));
+        assertArrayEquals(LongStream.rangeClosed(0, RoaringBitmap.ARRAY_MAX).map(i -> 2 * i).toArray(),
+                bitmap.toArray());
+
+        RoaringBitmap back = bitmap.without(0);
+        assertEquals(RoaringBitmap.ARRAY_MAX, back.cardinality());
+        assertFalse(back.contains(0));
+        assertArrayEquals(LongStream.rangeClosed(1, RoaringBitmap.ARRAY_MAX).map(i -> 2 * i).toArray(),
+                back.toArray());
+        assertEquals(back.cardinality(), back.and(bitmap).cardinality());
+    }
+
+    @Test
+    void withAndWithoutLeaveOriginalUntouched() {
+        RoaringBitmap original = RoaringBitmap.of(new long[]{1, 2, 3});
+
+        RoaringBitmap added = original.with(100_000);
+        RoaringBitmap removed = original.without(2);
+
+        assertArrayEquals(new long[]{1, 2, 3}, original.toArray());
+        assertArrayEquals(new long[]{1, 2, 3, 100_000}, added.toArray());
+        assertArrayEquals(new long[]{1, 3}, removed.toArray());
+        assertSame(original, original.with(1));
+        assertSame(original, original.without(7));
+        assertTrue(original.without(1).without(2).without(3).isEmpty());
+    }
+
+    // Gęsty kontener (bitmapa) i rzadkie (tablice) w kilku kluczach, żeby pokryć każdą parę typów kontenerów
+    @Test
+    void booleanOperationsMatchReferenceSets() {
+        SplittableRandom random = new SplittableRandom(42);
+        TreeSet<Long> left = new TreeSet<>();
+        TreeSet<Long> right = new TreeSet<>();
+        for (long id = 0; id < 10_000; id++) {
+            left.add(id);
+        }
+        for (long id = 0; id < 200_000; id += 3) {
+            right.add(id);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            left.add(65_536 + random.nextLong(200_000));
+            right.add(65_536 + random.nextLong(200_000));
+        }
+        RoaringBitmap a = of(left);
+        RoaringBitmap b = of(right);
+
+        TreeSet<Long> intersection = new TreeSet<>(left);
+        intersection.retainAll(right);
+        TreeSet<Long> union = new TreeSet<>(left);
+        union.addAll(right);
+
+        assertArrayEquals(toArray(intersection), a.and(b).toArray());
+        assertArrayEquals(toArray(intersection), b.and(a).toArray());
+        assertEquals(intersection.size(), a.andCardinality(b));
+        assertEquals(intersection.size(), a.and(b).cardinality());
+        assertArrayEquals(toArray(union), a.or(b).toArray());
+        assertEquals(union.size(), b.or(a).cardinality());
+        assertTrue(a.and(RoaringBitmap.EMPTY).isEmpty());
+        assertSame(a, a.or(RoaringBitmap.EMPTY));
+    }
+
+    @Test
+    void headReturnsSmallestIds() {
+        RoaringBitmap bitmap = RoaringBitmap.of(new long[]{200_000, 7, 70_000, 1});
+
+        assertArrayEquals(new long[]{1, 7}, bitmap.head(2));
+        assertArrayEquals(new long[]{1, 7, 70_000, 200_000}, bitmap.head(10));
+        assertArrayEquals(new long[0], bitmap.head(0));
+    }
+
+    @Test
+    void idsOutsideRangeAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RoaringBitmap.EMPTY.with(-1));
+        assertThrows(IllegalArgumentException.class, () -> RoaringBitmap.of(new long[]{1L << 32}));
+    }
+
+    private static RoaringBitmap of(TreeSet<Long> ids) {
+        return RoaringBitmap.of(toArray(ids));
+    }
+
+    private static long[] toArray(TreeSet<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
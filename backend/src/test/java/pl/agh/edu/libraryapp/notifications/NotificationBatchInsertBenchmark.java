@@ -0,0 +1,58 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Transactional;
+import pl.agh.edu.libraryapp.user.User;
+import pl.agh.edu.libraryapp.user.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+@SpringBootTest(properties = "mail.from=benchmark@library.local")
+@ActiveProfiles("test")
+@Transactional
+class NotificationBatchInsertBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @MockitoBean
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void insert100kNotifications() {
+        List<User> users = userRepository.findAll();
+        assertFalse(users.isEmpty());
+
+        List<Notification> notifications = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            notifications.add(new Notification("Benchmark", "Powiadomienie " + i, users.get(i % users.size())));
+        }
+
+        long before = notificationRepository.count();
+        long start = System.nanoTime();
+        notificationService.saveAll(notifications);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(before + ROWS, notificationRepository.count());
+        System.out.printf("saveAll: %d notifications in %d ms (%.0f rows/s)%n",
+                ROWS, elapsedMillis, ROWS * 1000.0 / Math.max(1, elapsedMillis));
+    }
+}
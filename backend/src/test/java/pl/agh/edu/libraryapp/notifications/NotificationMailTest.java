@@ -0,0 +1,91 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.agh.edu.libraryapp.book.Book;
+import pl.agh.edu.libraryapp.bookItem.BookItem;
+import pl.agh.edu.libraryapp.rentals.Rentals;
+import pl.agh.edu.libraryapp.user.User;
+import pl.agh.edu.libraryapp.user.UserRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Powiadomienie zapisane w transakcji trafia do MailDeliveryQueue po commicie, a po wycofaniu nie trafia wcale
+@SpringBootTest
+@ActiveProfiles({"test", "smtp-sink"})
+class NotificationMailTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private MailDeliveryQueue mailDeliveryQueue;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void singleNotificationIsMailedAfterCommit() {
+        User user = createUser();
+        long before = enqueued();
+
+        notificationService.addBookAvailableNotification(user, new Book("Lalka", "Bolesław Prus", 1));
+
+        assertEquals(before + 1, enqueued());
+    }
+
+    @Test
+    void batchNotificationsAreMailedAfterCommit() {
+        User user = createUser();
+        long before = enqueued();
+
+        notificationService.addBookOverdueNotifications(List.of(rental(user, "Potop"), rental(user, "Quo vadis")));
+
+        assertEquals(before + 2, enqueued());
+    }
+
+    @Test
+    void rolledBackNotificationIsNotMailed() {
+        User user = createUser();
+        long before = enqueued();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            notificationService.addBookAvailableNotification(user, new Book("Lalka", "Bolesław Prus", 1));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, enqueued());
+    }
+
+    private long enqueued() {
+        return mailDeliveryQueue.getStats().enqueued();
+    }
+
+    private User createUser() {
+        String id = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User("mail" + id, "Mail", "Test", "mail" + id + "@library.local", "+48-" + id);
+        user.setPassword("pass");
+        return userRepository.save(user);
+    }
+
+    private static Rentals rental(User user, String title) {
+        BookItem item = new BookItem();
+        item.setBook(new Book(title, "Henryk Sienkiewicz", 1));
+        Rentals rental = new Rentals("ACTIVE", LocalDate.now().minusDays(20));
+        rental.setUser(user);
+        rental.setBookItem(item);
+        rental.setEndDate(LocalDate.now().minusDays(1));
+        return rental;
+    }
+}
@@ -0,0 +1,174 @@
+package pl.agh.edu.libraryapp.notifications;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import pl.agh.edu.libraryapp.book.Book;
+import pl.agh.edu.libraryapp.book.BookQueue;
+import pl.agh.edu.libraryapp.book.repositories.BookRepository;
+import pl.agh.edu.libraryapp.bookItem.BookItem;
+import pl.agh.edu.libraryapp.bookItem.BookItemRepository;
+import pl.agh.edu.libraryapp.bookQueue.BookQueueRepository;
+import pl.agh.edu.libraryapp.bookQueue.BookQueueService;
+import pl.agh.edu.libraryapp.rentals.Rentals;
+import pl.agh.edu.libraryapp.rentals.RentalsRepository;
+import pl.agh.edu.libraryapp.rentals.RentalsScheduler;
+import pl.agh.edu.libraryapp.user.User;
+import pl.agh.edu.libraryapp.user.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Pełna ścieżka powiadomień: scheduler/kolejka -> DB -> MailDeliveryQueue -> SMTP (wbudowany sink)
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "mail.delivery.queue-capacity=100000",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles({"test", "smtp-sink"})
+@DirtiesContext
+class NotificationThroughputBenchmark {
+
+    private static final int USERS = 2_000;
+    private static final int BOOKS = 1_000;
+    private static final long DRAIN_TIMEOUT_MILLIS = 300_000;
+
+    @Autowired
+    private RentalsScheduler rentalsScheduler;
+
+    @Autowired
+    private BookQueueService bookQueueService;
+
+    @Autowired
+    private MailDeliveryQueue mailDeliveryQueue;
+
+    @Autowired
+    private SmtpSinkServer smtpSink;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookItemRepository bookItemRepository;
+
+    @Autowired
+    private RentalsRepository rentalsRepository;
+
+    @Autowired
+    private BookQueueRepository bookQueueRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void notificationPathThroughput() throws InterruptedException {
+        List<User> users = createUsers();
+        List<Book> books = createBooksWithRentalsAndQueues(users);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long enqueuedBefore = mailDeliveryQueue.getStats().enqueued();
+        long sinkBefore = smtpSink.getMessageCount();
+        statistics.clear();
+        long start = System.nanoTime();
+
+        long schedulerStart = System.nanoTime();
+        rentalsScheduler.checkOverdueRentals();
+        rentalsScheduler.checkSoonOverdueRentals();
+        long schedulerNanos = System.nanoTime() - schedulerStart;
+
+        long queueStart = System.nanoTime();
+        for (Book book : books) {
+            bookQueueService.notifyAvailableBook(book.getId());
+        }
+        long queueNanos = System.nanoTime() - queueStart;
+        long statements = statistics.getPrepareStatementCount();
+
+        long expected = mailDeliveryQueue.getStats().enqueued() - enqueuedBefore;
+        assertTrue(expected >= USERS + BOOKS, "expected at least one mail per rental and per queue head");
+        awaitDelivery(sinkBefore + expected);
+        long elapsedNanos = System.nanoTime() - start;
+
+        MailDeliveryStats stats = mailDeliveryQueue.getStats();
+        assertEquals(0, stats.deadLettered());
+        System.out.printf("notifications: %d messages in %d ms (%.0f msg/s)%n",
+                expected, elapsedNanos / 1_000_000, expected * 1e9 / elapsedNanos);
+        System.out.printf("enqueue-to-delivery: avg %.1f ms, p99 %.1f ms, avg batch send %.1f ms%n",
+                stats.avgDeliveryMillis(), stats.p99DeliveryMillis(), stats.avgBatchSendMillis());
+        System.out.printf("DB time: scheduler %d ms, notifyAvailableBook x%d %d ms (%.2f ms/call), %d JDBC statements%n",
+                schedulerNanos / 1_000_000, books.size(), queueNanos / 1_000_000,
+                queueNanos / 1e6 / books.size(), statements);
+    }
+
+    private void awaitDelivery(long expectedSinkCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        while (smtpSink.getMessageCount() < expectedSinkCount) {
+            assertTrue(System.currentTimeMillis() < deadline,
+                    "mail not delivered in time: " + mailDeliveryQueue.getStats());
+            Thread.sleep(10);
+        }
+    }
+
+    private List<User> createUsers() {
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User("bench" + i, "Bench", "User" + i, "bench" + i + "@library.local", "+48-bench-" + i);
+            user.setPassword("pass");
+            users.add(user);
+        }
+        return userRepository.saveAll(users);
+    }
+
+    // Połowa wypożyczeń już po terminie, połowa z terminem za 3 dni; każda książka ma kolejkę oczekujących
+    private List<Book> createBooksWithRentalsAndQueues(List<User> users) {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Book("Benchmark " + i, "Autor " + i, 1));
+        }
+        books = bookRepository.saveAll(books);
+
+        List<BookItem> items = new ArrayList<>(BOOKS);
+        for (Book book : books) {
+            BookItem item = new BookItem();
+            item.setIsbn("BENCH-" + book.getId());
+            item.setBook(book);
+            item.setIsAvailable(false);
+            items.add(item);
+        }
+        items = bookItemRepository.saveAll(items);
+
+        LocalDate today = LocalDate.now();
+        List<Rentals> rentals = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            Rentals rental = new Rentals("ACTIVE", today.minusDays(20));
+            rental.setUser(users.get(i));
+            rental.setBookItem(items.get(i % items.size()));
+            rental.setEndDate(i % 2 == 0 ? today.minusDays(1) : today.plusDays(3));
+            rentals.add(rental);
+        }
+        rentalsRepository.saveAll(rentals);
+
+        List<BookQueue> queues = new ArrayList<>(BOOKS * 3);
+        for (int i = 0; i < BOOKS; i++) {
+            for (int j = 1; j <= 3; j++) {
+                BookQueue entry = new BookQueue("WAITING");
+                entry.setUser(users.get((i + j * 7) % users.size()));
+                entry.setBook(books.get(i));
+                queues.add(entry);
+            }
+        }
+        bookQueueRepository.saveAll(queues);
+        return books;
+    }
+}
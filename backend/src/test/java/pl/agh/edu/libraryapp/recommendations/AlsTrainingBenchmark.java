@@ -0,0 +1,80 @@
+package pl.agh.edu.libraryapp.recommendations;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import pl.agh.edu.libraryapp.recommendations.model.FactorModel;
+import pl.agh.edu.libraryapp.recommendations.model.ImplicitAlsTrainer;
+import pl.agh.edu.libraryapp.recommendations.model.Interactions;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Syntetyczna macierz 100k czytelników x 1M książek, popularność książek skośna (kwadrat rozkładu jednostajnego)
+@Tag("benchmark")
+class AlsTrainingBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int BOOKS = 1_000_000;
+    private static final int ITEMS_PER_USER = 20;
+    private static final int FACTORS = 32;
+    private static final int ITERATIONS = 10;
+
+    @Test
+    void train100kUsersOn1mBooks() {
+        SplittableRandom random = new SplittableRandom(7);
+        long[] users = new long[USERS * ITEMS_PER_USER];
+        long[] books = new long[users.length];
+        int[] ratings = new int[users.length];
+        long[] picked = new long[ITEMS_PER_USER];
+        int next = 0;
+        for (int user = 0; user < USERS; user++) {
+            int count = 0;
+            while (count < ITEMS_PER_USER) {
+                double u = random.nextDouble();
+                long book = (long) (u * u * BOOKS);
+                boolean duplicate = false;
+                for (int i = 0; i < count && !duplicate; i++) {
+                    duplicate = picked[i] == book;
+                }
+                if (!duplicate) {
+                    picked[count++] = book;
+                    users[next] = user;
+                    books[next] = book;
+                    // Co piąta para z opinią 1-5
+                    ratings[next++] = random.nextInt(5) == 0 ? 1 + random.nextInt(5) : 0;
+                }
+            }
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        // Ta sama ścieżka co trening z bazy: wiersze wypożyczeń, potem wiersze opinii
+        Interactions interactions = MatrixFactorizationStrategy.toInteractions(
+                IntStream.range(0, users.length).mapToObj(i -> new Object[]{users[i], books[i]}),
+                IntStream.range(0, users.length).filter(i -> ratings[i] > 0)
+                        .mapToObj(i -> new Object[]{users[i], books[i], ratings[i]}));
+        long built = System.nanoTime();
+        FactorModel model = ImplicitAlsTrainer.train(interactions, FACTORS, ITERATIONS, 0.1f, 10f,
+                runtime.availableProcessors(), 42L);
+        long trained = System.nanoTime();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        long queryStart = System.nanoTime();
+        long[] top = model.recommend(0, 10, _ -> false);
+        long queryMicros = (System.nanoTime() - queryStart) / 1_000;
+
+        assertEquals(10, top.length);
+        System.out.printf("ALS %d users x %d books (%d books seen), %d pairs, f=%d, %d iterations, %d cores%n",
+                USERS, BOOKS, interactions.bookCount(), interactions.pairCount(), FACTORS, ITERATIONS,
+                runtime.availableProcessors());
+        System.out.printf("Row load + CSR build: %d ms, training: %d ms (%d ms/iteration), top-10 query: %d us%n",
+                (built - start) / 1_000_000, (trained - built) / 1_000_000,
+                (trained - built) / 1_000_000 / ITERATIONS, queryMicros);
+        System.out.printf("Model ~%d MB, heap growth ~%d MB%n",
+                model.estimatedBytes() / (1024 * 1024), (heapAfter - heapBefore) / (1024 * 1024));
+    }
+}
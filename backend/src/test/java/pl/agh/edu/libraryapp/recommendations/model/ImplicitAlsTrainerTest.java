@@ -0,0 +1,66 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rozwiązanie układu f x f przez rozkład Cholesky'ego - krok, na którym stoi każdy półkrok ALS
+class ImplicitAlsTrainerTest {
+
+    // [[4, 2], [2, 3]] x = [10, 8] ma rozwiązanie x = [1.75, 1.5]; górny trójkąt nie jest czytany
+    @Test
+    void solvesTwoByTwoSystem() {
+        double[] matrix = {
+                4, Double.NaN,
+                2, 3
+        };
+        double[] b = {10, 8};
+
+        ImplicitAlsTrainer.choleskySolve(matrix, b, 2);
+
+        assertEquals(1.75, b[0], 1e-12);
+        assertEquals(1.5, b[1], 1e-12);
+        // Dolny trójkąt zawiera teraz L: [[2, 0], [1, sqrt(2)]]
+        assertEquals(2.0, matrix[0], 1e-12);
+        assertEquals(1.0, matrix[2], 1e-12);
+        assertEquals(Math.sqrt(2), matrix[3], 1e-12);
+    }
+
+    // A = Mt M + I jest symetryczna i dodatnio określona jak macierz układu ALS; sprawdzamy resztę A x - b
+    @Test
+    void solvesRandomSymmetricPositiveDefiniteSystem() {
+        int n = 8;
+        SplittableRandom random = new SplittableRandom(3);
+        double[] m = new double[n * n];
+        for (int i = 0; i < m.length; i++) {
+            m[i] = random.nextDouble(-1, 1);
+        }
+        double[] a = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double sum = i == j ? 1 : 0;
+                for (int k = 0; k < n; k++) {
+                    sum += m[k * n + i] * m[k * n + j];
+                }
+                a[i * n + j] = sum;
+            }
+        }
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = random.nextDouble(-5, 5);
+        }
+
+        double[] x = b.clone();
+        ImplicitAlsTrainer.choleskySolve(a.clone(), x, n);
+
+        for (int i = 0; i < n; i++) {
+            double row = 0;
+            for (int j = 0; j < n; j++) {
+                row += a[i * n + j] * x[j];
+            }
+            assertEquals(b[i], row, 1e-9);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package pl.agh.edu.libraryapp.recommendations.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Indeks TF-IDF + LSH na kilku książkach - przy jednym bicie sygnatury multi-probe sprawdza wszystkie kubełki,
+// więc wynik jest dokładny i nie zależy od losowania hiperpłaszczyzn
+class TextSimilarityIndexTest {
+
+    private static final TermCounts FANTASY = terms(new int[]{1, 2, 3}, new int[]{2, 1, 1});
+    private static final TermCounts FANTASY_COPY = terms(new int[]{1, 2, 3}, new int[]{2, 1, 1});
+    private static final TermCounts FANTASY_SEQUEL = terms(new int[]{1, 2, 9}, new int[]{1, 1, 3});
+    private static final TermCounts COOKBOOK = terms(new int[]{40, 41}, new int[]{1, 1});
+
+    @Test
+    void ranksByCosineAndSkipsUnrelatedBooks() {
+        TextSimilarityIndex index = index();
+
+        ScoredBooks similar = index.similar(1, 10);
+
+        assertArrayEquals(new long[]{2, 3}, similar.ids());
+        assertEquals(1.0f, similar.scores()[0], 1e-5f);
+        assertTrue(similar.scores()[1] > 0 && similar.scores()[1] < similar.scores()[0]);
+        assertEquals(4, index.bookCount());
+    }
+
+    @Test
+    void limitKeepsBestMatches() {
+        ScoredBooks similar = index().similar(1, 1);
+
+        assertArrayEquals(new long[]{2}, similar.ids());
+    }
+
+    @Test
+    void removedBookDisappearsFromResults() {
+        TextSimilarityIndex index = index();
+
+        index.remove(2);
+
+        assertArrayEquals(new long[]{3}, index.similar(1, 10).ids());
+        assertEquals(0, index.similar(2, 10).size());
+        assertEquals(3, index.bookCount());
+    }
+
+    @Test
+    void putReplacesPreviousTerms() {
+        TextSimilarityIndex index = index();
+
+        index.put(2, COOKBOOK);
+
+        assertArrayEquals(new long[]{3}, index.similar(1, 10).ids());
+        assertArrayEquals(new long[]{2}, index.similar(4, 10).ids());
+        assertEquals(1.0f, index.similar(4, 10).scores()[0], 1e-5f);
+    }
+
+    @Test
+    void unknownOrEmptyBookHasNoNeighbours() {
+        TextSimilarityIndex index = index();
+        index.put(5, TermCounts.EMPTY);
+
+        assertEquals(0, index.similar(5, 10).size());
+        assertEquals(0, index.similar(99, 10).size());
+        assertEquals(4, index.bookCount());
+    }
+
+    private static TextSimilarityIndex index() {
+        return TextSimilarityIndex.build(Map.of(1L, FANTASY, 2L, FANTASY_COPY, 3L, FANTASY_SEQUEL, 4L, COOKBOOK),
+                64, 4, 1, 16, 42L);
+    }
+
+    private static TermCounts terms(int[] features, int[] counts) {
+        return new TermCounts(features, counts);
+    }
+}
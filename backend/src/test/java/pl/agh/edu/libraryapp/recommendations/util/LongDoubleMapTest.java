@@ -0,0 +1,81 @@
+package pl.agh.edu.libraryapp.recommendations.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Adresowanie otwarte: powiększanie tablicy i usuwanie z przesunięciem wstecz porównane z HashMap
+class LongDoubleMapTest {
+
+    @Test
+    void putGetAndAddTo() {
+        LongDoubleMap map = new LongDoubleMap();
+
+        map.put(5, 1.5);
+        map.addTo(5, 2.0);
+        map.addTo(-3, 4.0);
+
+        assertEquals(2, map.size());
+        assertEquals(3.5, map.get(5, 0.0));
+        assertEquals(4.0, map.get(-3, 0.0));
+        assertEquals(-1.0, map.get(6, -1.0));
+        assertTrue(map.containsKey(-3));
+        assertFalse(map.containsKey(6));
+    }
+
+    @Test
+    void growsBeyondInitialCapacity() {
+        LongDoubleMap map = new LongDoubleMap(4);
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key * 31, key);
+        }
+
+        assertEquals(10_000, map.size());
+        for (long key = 0; key < 10_000; key++) {
+            assertEquals(key, map.get(key * 31, -1.0));
+        }
+    }
+
+    // Wąski zakres kluczy daje długie ciągi sondowania - usunięcie ze środka ciągu nie może zgubić dalszych kluczy
+    @Test
+    void randomPutsAndRemovesMatchHashMap() {
+        SplittableRandom random = new SplittableRandom(7);
+        LongDoubleMap map = new LongDoubleMap();
+        Map<Long, Double> reference = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextLong(500);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                reference.remove(key);
+            } else {
+                map.addTo(key, 1.0);
+                reference.merge(key, 1.0, Double::sum);
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        reference.forEach((key, value) -> assertEquals(value, map.get(key, -1.0), 0.0));
+        Map<Long, Double> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(reference, visited);
+    }
+
+    @Test
+    void copyIsIndependent() {
+        LongDoubleMap map = new LongDoubleMap();
+        map.put(1, 1.0);
+
+        LongDoubleMap copy = map.copy();
+        copy.put(1, 2.0);
+        copy.put(2, 3.0);
+        map.remove(1);
+
+        assertEquals(0, map.size());
+        assertEquals(2, copy.size());
+        assertEquals(2.0, copy.get(1, 0.0));
+    }
+}
@@ -0,0 +1,71 @@
+package pl.agh.edu.libraryapp.recommendations.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Kopiec K najlepszych porównany z pełnym sortowaniem, łącznie z remisami rozstrzyganymi po id
+class TopKTest {
+
+    @Test
+    void keepsBestScoresInOrder() {
+        TopK top = new TopK(3);
+        top.offer(1, 0.5);
+        top.offer(2, 0.9);
+        top.offer(3, 0.1);
+        top.offer(4, 0.7);
+        top.offer(5, 0.8);
+
+        assertTrue(top.isFull());
+        assertEquals(0.7, top.threshold());
+        assertArrayEquals(new long[]{2, 5, 4}, top.toSortedIds());
+    }
+
+    // Przy remisie wygrywa mniejsze id - także gdy trafia do pełnego kopca później
+    @Test
+    void tiesPreferSmallerIds() {
+        TopK top = new TopK(2);
+        top.offer(30, 1.0);
+        top.offer(20, 1.0);
+        top.offer(10, 1.0);
+        top.offer(40, 1.0);
+
+        assertArrayEquals(new long[]{10, 20}, top.toSortedIds());
+    }
+
+    @Test
+    void randomOffersMatchFullSort() {
+        SplittableRandom random = new SplittableRandom(11);
+        int n = 5_000;
+        long[] ids = new long[n];
+        double[] scores = new double[n];
+        TopK top = new TopK(50);
+        for (int i = 0; i < n; i++) {
+            ids[i] = random.nextLong(1_000_000);
+            // Niewiele różnych wyników, żeby remisów było dużo
+            scores[i] = random.nextInt(100) / 10.0;
+            top.offer(ids[i], scores[i]);
+        }
+
+        long[] expected = IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparingLong(i -> ids[i]))
+                .limit(50)
+                .mapToLong(i -> ids[i])
+                .toArray();
+        assertArrayEquals(expected, top.toSortedIds());
+    }
+
+    @Test
+    void zeroCapacityIgnoresOffers() {
+        TopK top = new TopK(0);
+        top.offer(1, 1.0);
+
+        assertEquals(0, top.size());
+        assertEquals(Double.NEGATIVE_INFINITY, top.threshold());
+        assertArrayEquals(new long[0], top.toSortedIds());
+    }
+}
@@ -0,0 +1,100 @@
+package pl.agh.edu.libraryapp.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Gwarancja błędu względnego kwantyli i zwijanie najniższych kubełków po przekroczeniu maxBuckets
+class QuantileSketchTest {
+
+    private static final double ACCURACY = 0.02;
+
+    @Test
+    void emptySketchReturnsZero() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 512);
+
+        assertEquals(0, sketch.count());
+        assertEquals(0.0, sketch.quantile(0.5));
+    }
+
+    // Wartości 1..n: kwantyl q to dokładnie wartość o randze q * (n - 1)
+    @Test
+    void quantilesStayWithinRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 512);
+        int n = 100_000;
+        for (int value = 1; value <= n; value++) {
+            sketch.add(value);
+        }
+
+        assertEquals(n, sketch.count());
+        assertEquals(n, sketch.max());
+        for (double q : new double[]{0.01, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99}) {
+            double exact = (long) (q * (n - 1)) + 1;
+            double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= ACCURACY * exact + 1e-9,
+                    "q=" + q + ": estimate " + estimate + ", exact " + exact);
+        }
+    }
+
+    // Kolejność dodawania nie zmienia wyniku - kubełki zależą tylko od wartości
+    @Test
+    void resultDoesNotDependOnInsertionOrder() {
+        QuantileSketch ascending = new QuantileSketch(ACCURACY, 512);
+        QuantileSketch descending = new QuantileSketch(ACCURACY, 512);
+        for (int value = 1; value <= 10_000; value++) {
+            ascending.add(value);
+            descending.add(10_001 - value);
+        }
+
+        for (double q : new double[]{0.1, 0.5, 0.9, 0.99}) {
+            assertEquals(ascending.quantile(q), descending.quantile(q));
+        }
+    }
+
+    @Test
+    void valuesBelowOneCountAsZero() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 512);
+        for (int i = 0; i < 10; i++) {
+            sketch.add(0);
+            sketch.add(100);
+        }
+
+        assertEquals(20, sketch.count());
+        assertEquals(0.0, sketch.quantile(0.25));
+        assertEquals(100.0, sketch.quantile(0.9), ACCURACY * 100);
+    }
+
+    // Przy 16 kubełkach najniższe wartości zwijają się w pierwszy kubełek: tracą dokładność (zawyżone),
+    // ale górne kwantyle, liczność i maksimum zostają dokładne
+    @Test
+    void collapsedLowBucketsKeepHighQuantilesAccurate() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 16);
+        int n = 100_000;
+        for (int value = 1; value <= n; value++) {
+            sketch.add(value);
+        }
+
+        assertEquals(n, sketch.count());
+        assertEquals(n, sketch.max());
+        double exactP99 = (long) (0.99 * (n - 1)) + 1;
+        assertEquals(exactP99, sketch.quantile(0.99), ACCURACY * exactP99);
+        double exactP01 = (long) (0.01 * (n - 1)) + 1;
+        assertTrue(sketch.quantile(0.01) > (1 + ACCURACY) * exactP01);
+        assertTrue(sketch.quantile(0.0) <= sketch.quantile(0.5));
+        assertTrue(sketch.quantile(1.0) <= sketch.max());
+    }
+
+    // Wartości malejąco rozszerzają zakres w dół - zwijanie dotyczy nadal tylko najniższych kubełków
+    @Test
+    void descendingValuesCollapseOnlyLowestBuckets() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 16);
+        int n = 100_000;
+        for (int value = n; value >= 1; value--) {
+            sketch.add(value);
+        }
+
+        assertEquals(n, sketch.count());
+        double exactP99 = (long) (0.99 * (n - 1)) + 1;
+        assertEquals(exactP99, sketch.quantile(0.99), ACCURACY * exactP99);
+    }
+}
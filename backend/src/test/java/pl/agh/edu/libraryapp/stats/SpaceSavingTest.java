@@ -0,0 +1,87 @@
+package pl.agh.edu.libraryapp.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Space-Saving: wypierany jest zawsze najmniejszy licznik, a nowy element dziedziczy go jako błąd
+class SpaceSavingTest {
+
+    @Test
+    void newItemReplacesSmallestCounterAndInheritsItAsError() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        offer(sketch, 1, 3);
+        offer(sketch, 2, 2);
+        offer(sketch, 3, 1);
+
+        sketch.offer(4);
+
+        List<SpaceSaving.Entry> top = sketch.top(10);
+        assertEquals(List.of(new SpaceSaving.Entry(1, 3, 0), new SpaceSaving.Entry(2, 2, 0),
+                new SpaceSaving.Entry(4, 2, 1)), top);
+    }
+
+    @Test
+    void evictionFollowsHeapOrderAfterIncrements() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        offer(sketch, 1, 3);
+        offer(sketch, 2, 2);
+        offer(sketch, 3, 1);
+        sketch.offer(4);
+        // 2 wyprzedza 4, więc najmniejszy licznik ma teraz 4
+        sketch.offer(2);
+
+        sketch.offer(5);
+
+        assertEquals(List.of(new SpaceSaving.Entry(1, 3, 0), new SpaceSaving.Entry(2, 3, 0),
+                new SpaceSaving.Entry(5, 3, 2)), sketch.top(10));
+    }
+
+    // Element o częstości > N / capacity musi zostać na liście, a count - error <= prawdziwa liczba <= count
+    @Test
+    void frequentItemSurvivesStreamOfDistinctItems() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer(i % 3 == 0 ? 7 : 1_000 + i);
+        }
+
+        SpaceSaving.Entry first = sketch.top(1).getFirst();
+        assertEquals(7, first.id());
+        assertTrue(first.count() - first.error() <= 334);
+        assertTrue(first.count() >= 334);
+    }
+
+    @Test
+    void decayKeepsOrder() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        offer(sketch, 1, 4);
+        offer(sketch, 2, 2);
+
+        sketch.decay(0.5);
+
+        assertEquals(List.of(new SpaceSaving.Entry(1, 2, 0), new SpaceSaving.Entry(2, 1, 0)), sketch.top(10));
+    }
+
+    @Test
+    void removedItemFreesItsCounter() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        offer(sketch, 1, 3);
+        offer(sketch, 2, 1);
+        offer(sketch, 3, 2);
+
+        sketch.remove(2);
+        sketch.offer(4);
+
+        assertEquals(List.of(new SpaceSaving.Entry(1, 3, 0), new SpaceSaving.Entry(3, 2, 0),
+                new SpaceSaving.Entry(4, 1, 0)), sketch.top(10));
+        assertEquals(2, sketch.top(2).size());
+    }
+
+    private static void offer(SpaceSaving sketch, long id, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.offer(id);
+        }
+    }
+}
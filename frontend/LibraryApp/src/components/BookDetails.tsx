@@ -26,14 +26,10 @@ interface Book {
 
 interface Review {
     id: number;
+    userId: number;
+    reviewerName: string;
     rating: number;
     description: string | null;
-    user: {
-        id: number;
-        username: string;
-        firstName: string;
-        lastName: string;
-    };
     createdAt: string;
 }
 
@@ -41,6 +37,8 @@ interface ReviewData {
     reviews: Review[];
     averageRating: number;
     reviewCount: number;
+    nextBefore: string | null;
+    nextBeforeId: number | null;
 }
 
 interface QueueUser {
@@ -87,6 +85,7 @@ export function BookDetails({ token }: Props) {
     // Reviews state
     const [reviewData, setReviewData] = useState<ReviewData | null>(null);
     const [loadingReviews, setLoadingReviews] = useState(false);
+    const [loadingMoreReviews, setLoadingMoreReviews] = useState(false);
     const [newRating, setNewRating] = useState<number>(5);
     const [newDescription, setNewDescription] = useState<string>("");
     const [submittingReview, setSubmittingReview] = useState(false);
@@ -406,15 +405,7 @@ export function BookDetails({ token }: Props) {
                 }
             );
             setReviewData(response.data);
-
-            // Check if current user has already reviewed
-            const userId = getUserId(effectiveToken);
-            if (userId) {
-                const currentUserReview = response.data.reviews.find(
-                    (r) => r.user.id === userId
-                );
-                setUserReview(currentUserReview || null);
-            }
+            await fetchUserReview();
         } catch (err) {
             console.error("Nie udało się pobrać opinii", err);
         } finally {
@@ -422,6 +413,56 @@ export function BookDetails({ token }: Props) {
         }
     };
 
+    const fetchMoreReviews = async () => {
+        if (!id || !reviewData?.nextBefore || reviewData.nextBeforeId == null) return;
+
+        try {
+            setLoadingMoreReviews(true);
+            const response = await axios.get<ReviewData>(
+                `http://localhost:8080/book/${id}/reviews`,
+                {
+                    params: {
+                        before: reviewData.nextBefore,
+                        beforeId: reviewData.nextBeforeId,
+                    },
+                    headers: {
+                        Authorization: `Bearer ${effectiveToken}`,
+                    },
+                }
+            );
+            setReviewData({
+                ...response.data,
+                reviews: [...reviewData.reviews, ...response.data.reviews],
+            });
+        } catch (err) {
+            console.error("Nie udało się pobrać kolejnych opinii", err);
+        } finally {
+            setLoadingMoreReviews(false);
+        }
+    };
+
+    // Opinia użytkownika może nie być na pierwszej stronie, więc pobieramy ją osobno
+    const fetchUserReview = async () => {
+        if (!getUserId(effectiveToken)) return;
+
+        try {
+            const response = await axios.get<Review>(
+                `http://localhost:8080/book/${id}/reviews/user`,
+                {
+                    headers: {
+                        Authorization: `Bearer ${effectiveToken}`,
+                    },
+                }
+            );
+            setUserReview(response.data);
+        } catch (err: any) {
+            if (err.response?.status !== 404) {
+                console.error("Nie udało się pobrać opinii użytkownika", err);
+            }
+            setUserReview(null);
+        }
+    };
+
     const fetchSimilarBooks = async () => {
         if (!id) return;
 
@@ -1046,7 +1087,7 @@ export function BookDetails({ token }: Props) {
                                     <div className="space-y-6">
                                         {reviewData.reviews.map((review) => {
                                             const currentUserId = getUserId(effectiveToken);
-                                            const canDelete = adminUser || (currentUserId && review.user.id === currentUserId);
+                                            const canDelete = adminUser || (currentUserId && review.userId === currentUserId);
                                             
                                             return (
                                             <div
@@ -1056,11 +1097,8 @@ export function BookDetails({ token }: Props) {
                                                 <div className="flex justify-between items-start mb-3">
                                                     <div>
                                                         <h5 className="font-semibold text-lg text-gray-900">
-                                                            {review.user.firstName} {review.user.lastName}
+                                                            {review.reviewerName}
                                                         </h5>
-                                                        <p className="text-sm text-gray-500">
-                                                            @{review.user.username}
-                                                        </p>
                                                     </div>
                                                     <div className="flex items-center gap-3">
                                                         <div className="flex items-center gap-2">
@@ -1122,6 +1160,17 @@ export function BookDetails({ token }: Props) {
                                             </div>
                                             );
                                         })}
+                                        {reviewData.nextBefore && (
+                                            <div className="flex justify-center">
+                                                <button
+                                                    onClick={fetchMoreReviews}
+                                                    disabled={loadingMoreReviews}
+                                                    className="px-6 py-2 text-amber-700 border border-amber-600 rounded-lg hover:bg-amber-50 transition-colors disabled:opacity-50"
+                                                >
+                                                    {loadingMoreReviews ? 'Ładowanie...' : 'Pokaż więcej opinii'}
+                                                </button>
+                                            </div>
+                                        )}
                                     </div>
                                 ) : (
                                     <div className="text-center py-12 bg-gray-50 rounded-xl">
@@ -13,6 +13,7 @@ interface Props {
 
 export function NotificationDropdown({ token }: Props) {
     const [notifications, setNotifications] = useState<NotificationDto[]>([]);
+    const [unreadCount, setUnreadCount] = useState(0);
     const [show, setShow] = useState(false);
     const navigate = useNavigate();
 
@@ -32,12 +33,33 @@ export function NotificationDropdown({ token }: Props) {
         }
     };
 
+    const fetchUnreadCount = async () => {
+        try {
+            const response = await fetch("http://localhost:8080/notifications/new/count", {
+                headers: {
+                    Authorization: `Bearer ${token}`,
+                },
+            });
+            if (response.ok) {
+                setUnreadCount(await response.json());
+            }
+        } catch (error) {
+            console.error("Błąd pobierania liczby powiadomień:", error);
+        }
+    };
+
     useEffect(() => {
-        fetchNotifications();
-        const interval = setInterval(fetchNotifications, 30000);
+        fetchUnreadCount();
+        const interval = setInterval(fetchUnreadCount, 30000);
         return () => clearInterval(interval);
     }, [token]);
 
+    useEffect(() => {
+        if (show) {
+            fetchNotifications();
+        }
+    }, [show]);
+
     const markAsRead = async (id: number) => {
         try {
             await fetch(`http://localhost:8080/notifications/${id}`, {
@@ -45,6 +67,7 @@ export function NotificationDropdown({ token }: Props) {
                 headers: { Authorization: `Bearer ${token}` },
             });
             setNotifications(notifications.filter((n) => n.id !== id));
+            setUnreadCount((count) => Math.max(0, count - 1));
         } catch (error) {
             console.error("Błąd przy oznaczaniu jako przeczytane:", error);
         }
@@ -60,9 +83,9 @@ export function NotificationDropdown({ token }: Props) {
                     <svg className="w-6 h-6" fill="none" stroke="currentColor" viewBox="0 0 24 24">
                         <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M15 17h5l-1.405-1.405A2.032 2.032 0 0118 14.158V11a6.002 6.002 0 00-4-5.659V5a2 2 0 10-4 0v.341C7.67 6.165 6 8.388 6 11v3.159c0 .538-.214 1.055-.595 1.436L4 17h5m6 0v1a3 3 0 11-6 0v-1m6 0H9" />
                     </svg>
-                    {notifications.length > 0 && (
+                    {unreadCount > 0 && (
                         <span className="absolute -top-1 -right-1 flex h-5 w-5 items-center justify-center rounded-full bg-red-500 text-xs font-bold text-white shadow-lg">
-              {notifications.length}
+              {unreadCount}
             </span>
                     )}
                 </div>
@@ -82,7 +105,7 @@ export function NotificationDropdown({ token }: Props) {
                             <h3 className="text-lg font-semibold text-white flex items-center justify-between">
                                 <span>Powiadomienia</span>
                                 <span className="text-sm bg-white bg-opacity-20 px-2 py-1 rounded-full">
-                  {notifications.length} nowych
+                  {unreadCount} nowych
                 </span>
                             </h3>
                         </div>
@@ -1,40 +1,55 @@
 import { useState, useEffect } from "react";
 import axios from "axios";
 
-interface User {
-    id: number;
+interface UserRentalCount {
+    userId: number;
+    name: string;
     username: string;
-    firstName: string;
-    lastName: string;
-    email: string;
-    phoneNumber: string;
+    rentals: number;
 }
 
-interface BooksBorrowedByUserDTO {
-    user: User;
-    booksBorrowed: number;
+interface UserRentalsPage {
+    users: UserRentalCount[];
+    nextAfterRentals: number | null;
+    nextAfterId: number | null;
 }
 
-interface Book {
-    id: number;
+interface BookRentalCount {
+    bookId: number;
     title: string;
     author: string;
-    count: number;
+    rentals: number;
+}
+
+interface BookRentalsPage {
+    books: BookRentalCount[];
+    nextAfterRentals: number | null;
+    nextAfterId: number | null;
+}
+
+interface RentalSummary {
+    users: number;
+    books: number;
+    rentals: number;
 }
 
-interface BookRentalsDTO {
-    book: Book;
-    timesRented: number;
+interface RankedItem {
+    id: number;
+    label: string;
+    rentals: number;
 }
 
+const TOP_LIMIT = 15;
+
 interface Props {
     token: string | null;
 }
 
 export function Statistics({ token }: Props) {
-    const [rentalsPerUser, setRentalsPerUser] = useState<BooksBorrowedByUserDTO[]>([]);
-    const [rentalsByBook, setRentalsByBook] = useState<BookRentalsDTO[]>([]);
-    const [rentalsByBookThisYear, setRentalsByBookThisYear] = useState<BookRentalsDTO[]>([]);
+    const [rentalsPerUser, setRentalsPerUser] = useState<RankedItem[]>([]);
+    const [rentalsByBook, setRentalsByBook] = useState<RankedItem[]>([]);
+    const [rentalsByBookThisYear, setRentalsByBookThisYear] = useState<RankedItem[]>([]);
+    const [summary, setSummary] = useState<RentalSummary>({ users: 0, books: 0, rentals: 0 });
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState<string | null>(null);
     const [activeView, setActiveView] = useState<'users' | 'books-all' | 'books-year'>('users');
@@ -53,21 +68,22 @@ export function Statistics({ token }: Props) {
                 setLoading(true);
                 setError(null);
 
-                const [usersResponse, booksResponse, booksYearResponse] = await Promise.all([
-                    axios.get<BooksBorrowedByUserDTO[]>("http://localhost:8080/stats/rentalsPerUser", {
-                        headers: { Authorization: `Bearer ${effectiveToken}` },
-                    }),
-                    axios.get<BookRentalsDTO[]>("http://localhost:8080/stats/rentalsByBook", {
-                        headers: { Authorization: `Bearer ${effectiveToken}` },
-                    }),
-                    axios.get<BookRentalsDTO[]>("http://localhost:8080/stats/rentalsByBookThisYear", {
-                        headers: { Authorization: `Bearer ${effectiveToken}` },
-                    }),
+                const headers = { Authorization: `Bearer ${effectiveToken}` };
+                const params = { limit: TOP_LIMIT };
+                const [usersResponse, booksResponse, booksYearResponse, summaryResponse] = await Promise.all([
+                    axios.get<UserRentalsPage>("http://localhost:8080/stats/rentalsPerUser", { headers, params }),
+                    axios.get<BookRentalsPage>("http://localhost:8080/stats/rentalsByBook", { headers, params }),
+                    axios.get<BookRentalsPage>("http://localhost:8080/stats/rentalsByBookThisYear", { headers, params }),
+                    axios.get<RentalSummary>("http://localhost:8080/stats/summary", { headers }),
                 ]);
 
-                setRentalsPerUser(usersResponse.data);
-                setRentalsByBook(booksResponse.data);
-                setRentalsByBookThisYear(booksYearResponse.data);
+                setRentalsPerUser(usersResponse.data.users.map(user =>
+                    ({ id: user.userId, label: `${user.name} (@${user.username})`, rentals: user.rentals })));
+                setRentalsByBook(booksResponse.data.books.map(book =>
+                    ({ id: book.bookId, label: `${book.title} - ${book.author}`, rentals: book.rentals })));
+                setRentalsByBookThisYear(booksYearResponse.data.books.map(book =>
+                    ({ id: book.bookId, label: `${book.title} - ${book.author}`, rentals: book.rentals })));
+                setSummary(summaryResponse.data);
             } catch (err) {
                 console.error("Błąd podczas pobierania statystyk:", err);
                 setError("Nie udało się pobrać statystyk");
@@ -79,15 +95,7 @@ export function Statistics({ token }: Props) {
         fetchStatistics();
     }, [effectiveToken]);
 
-    const getMaxValue = (data: BooksBorrowedByUserDTO[] | BookRentalsDTO[]) => {
-        if (data.length === 0) return 1;
-        const isUserData = 'booksBorrowed' in data[0];
-        return Math.max(...data.map(item =>
-            isUserData ? (item as BooksBorrowedByUserDTO).booksBorrowed : (item as BookRentalsDTO).timesRented
-        ));
-    };
-
-    const renderBarChart = (data: BooksBorrowedByUserDTO[] | BookRentalsDTO[]) => {
+    const renderBarChart = (data: RankedItem[]) => {
         if (data.length === 0) {
             return (
                 <div className="text-center py-12">
@@ -99,39 +107,23 @@ export function Statistics({ token }: Props) {
             );
         }
 
-        const maxValue = getMaxValue(data);
-        const isUserData = 'booksBorrowed' in data[0];
-        const sortedData = [...data].sort((a, b) => {
-            const aValue = isUserData ? (a as BooksBorrowedByUserDTO).booksBorrowed : (a as BookRentalsDTO).timesRented;
-            const bValue = isUserData ? (b as BooksBorrowedByUserDTO).booksBorrowed : (b as BookRentalsDTO).timesRented;
-            return bValue - aValue;
-        }).slice(0, 15);
+        // Serwer zwraca ranking już posortowany malejąco
+        const maxValue = Math.max(1, data[0].rentals);
 
         return (
             <div className="space-y-4">
-                {sortedData.map((item, index) => {
-                    const isUser = 'booksBorrowed' in item;
-                    const rentals = isUser
-                        ? (item as BooksBorrowedByUserDTO).booksBorrowed
-                        : (item as BookRentalsDTO).timesRented;
+                {data.map((item, index) => {
+                    const rentals = item.rentals;
                     const percentage = (rentals / maxValue) * 100;
 
-                    const label = isUser
-                        ? `${(item as BooksBorrowedByUserDTO).user.firstName} ${(item as BooksBorrowedByUserDTO).user.lastName} (@${(item as BooksBorrowedByUserDTO).user.username})`
-                        : `${(item as BookRentalsDTO).book.title} - ${(item as BookRentalsDTO).book.author}`;
-
-                    const itemId = isUser
-                        ? (item as BooksBorrowedByUserDTO).user.id
-                        : (item as BookRentalsDTO).book.id;
-
                     return (
-                        <div key={itemId} className="group">
+                        <div key={item.id} className="group">
                             <div className="flex justify-between items-center mb-2">
                                 <div className="flex items-center gap-3 flex-1 min-w-0">
                                     <span className="flex-shrink-0 w-8 h-8 bg-gradient-to-r from-amber-500 to-amber-600 rounded-full flex items-center justify-center text-white font-bold text-sm">
                                         {index + 1}
                                     </span>
-                                    <span className="text-gray-900 font-medium truncate">{label}</span>
+                                    <span className="text-gray-900 font-medium truncate">{item.label}</span>
                                 </div>
                                 <span className="ml-4 flex-shrink-0 px-4 py-1.5 bg-gradient-to-r from-blue-500 to-blue-600 text-white rounded-full font-bold text-sm">
                                     {rentals}
@@ -157,9 +149,9 @@ export function Statistics({ token }: Props) {
     };
 
     const renderSummaryCards = () => {
-        const totalUsers = rentalsPerUser.length;
-        const totalBooks = rentalsByBook.length;
-        const totalRentalsAllTime = rentalsByBook.reduce((sum, item) => sum + item.timesRented, 0);
+        const totalUsers = summary.users;
+        const totalBooks = summary.books;
+        const totalRentalsAllTime = summary.rentals;
         const averageRentalsPerUser = totalUsers > 0 ? (totalRentalsAllTime / totalUsers).toFixed(1) : '0';
 
         return (